@@ -0,0 +1,98 @@
+package Animation;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+
+/**
+ * Writes frames to a single animation file as they're rendered, instead of a
+ * file per frame. Each frame is written out as it's appended, so the memory
+ * used doesn't grow with the length of the animation.
+ *
+ * Appending a frame is split in two so that it can be pipelined: encode may be
+ * called on any thread, and write must be called on one thread at a time, in
+ * the order of the frames.
+ *
+ * @author E. Dov Neimand
+ * @param <T> The type of an encoded frame.
+ */
+public abstract class AnimationWriter<T> implements AutoCloseable {
+
+    protected final File file;
+    protected final double framesPerSecond;
+    private int frames = 0;
+
+    /**
+     * The constructor.
+     *
+     * @param file The animation file.
+     * @param framesPerSecond The speed of the animation.
+     */
+    protected AnimationWriter(File file, double framesPerSecond) {
+        this.file = file;
+        this.framesPerSecond = framesPerSecond;
+    }
+
+    /**
+     * Opens a writer for the type of animation named by the file's
+     * extension, gif or avi.
+     *
+     * @param file The animation file.
+     * @param framesPerSecond The speed of the animation.
+     * @return A writer for the file.
+     */
+    public static AnimationWriter<?> open(File file, double framesPerSecond) {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".gif")) return new GifWriter(file, framesPerSecond);
+        if (name.endsWith(".avi")) return new AviWriter(file, framesPerSecond);
+        throw new IllegalArgumentException("Animations are written as .gif or .avi, not " + file.getName() + ".");
+    }
+
+    /**
+     * Encodes a frame. This may be called on any thread.
+     *
+     * @param frame The frame.
+     * @return The encoded frame.
+     */
+    public abstract T encode(BufferedImage frame);
+
+    /**
+     * Writes an encoded frame after the frames already written.
+     *
+     * @param encoded The encoded frame.
+     */
+    public void write(T encoded) {
+        writeFrame(encoded);
+        frames++;
+    }
+
+    /**
+     * Writes an encoded frame to the file.
+     *
+     * @param encoded The encoded frame.
+     */
+    protected abstract void writeFrame(T encoded);
+
+    /**
+     * Encodes a frame and writes it after the frames already written.
+     *
+     * @param frame The frame.
+     */
+    public void append(BufferedImage frame) {
+        write(encode(frame));
+    }
+
+    /**
+     * The number of frames written so far.
+     *
+     * @return The number of frames written so far.
+     */
+    public int frames() {
+        return frames;
+    }
+
+    /**
+     * Finishes the animation file.
+     */
+    @Override
+    public abstract void close();
+}
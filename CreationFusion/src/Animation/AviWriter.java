@@ -0,0 +1,265 @@
+package Animation;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Writes an AVI of JPEG frames, motion JPEG, which most players open.
+ *
+ * The headers are a fixed size, so room is left for them and they're filled
+ * in when the file is closed and the number of frames is known. Each frame is
+ * written as it comes, and its entry in the index that ends the file is kept
+ * in a temporary file until then. An AVI of this kind can be no larger than 4
+ * gigabytes.
+ *
+ * @author E. Dov Neimand
+ */
+public class AviWriter extends AnimationWriter<byte[]> {
+
+    private static final int HEADER_BYTES = 224, MOVI = 220;
+
+    private final FileChannel out;
+    private final File indexFile;
+    private final DataOutputStream index;
+    private float quality = 0.9f;
+    private int width = -1, height = -1, largestFrame = 0;
+
+    /**
+     * The constructor.
+     *
+     * @param file The animation file.
+     * @param framesPerSecond The speed of the animation. It's rounded to a
+     * whole number.
+     */
+    public AviWriter(File file, double framesPerSecond) {
+        super(file, framesPerSecond);
+        try {
+            file.delete();
+            out = new RandomAccessFile(file, "rw").getChannel();
+            out.position(HEADER_BYTES);
+            indexFile = File.createTempFile("avi index ", ".tmp");
+            indexFile.deleteOnExit();
+            index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+        } catch (IOException ex) {
+            Logger.getLogger(AviWriter.class.getName()).log(Level.SEVERE, null, ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Sets the JPEG quality of the frames.
+     *
+     * @param quality From 0, the smallest files, to 1, the best pictures.
+     * @return this
+     */
+    public AviWriter setQuality(float quality) {
+        this.quality = quality;
+        return this;
+    }
+
+    /**
+     * Checks that a frame is the same size as the first frame.
+     *
+     * @param frame The frame.
+     */
+    private synchronized void checkSize(BufferedImage frame) {
+        if (width < 0) {
+            width = frame.getWidth();
+            height = frame.getHeight();
+        } else if (frame.getWidth() != width || frame.getHeight() != height)
+            throw new IllegalArgumentException("Every frame must be " + width + " by " + height
+                    + ", not " + frame.getWidth() + " by " + frame.getHeight() + ".");
+    }
+
+    /**
+     * Encodes a frame as a JPEG.
+     *
+     * @param frame The frame.
+     * @return The bytes of the JPEG.
+     */
+    @Override
+    public byte[] encode(BufferedImage frame) {
+        checkSize(frame);
+
+        BufferedImage rgb = frame;
+        if (frame.getType() != BufferedImage.TYPE_INT_RGB && frame.getType() != BufferedImage.TYPE_3BYTE_BGR) {
+            rgb = new BufferedImage(frame.getWidth(), frame.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2d = rgb.createGraphics();
+            g2d.drawImage(frame, 0, 0, null);
+            g2d.dispose();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        try (ImageOutputStream jpeg = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(jpeg);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(rgb, null, null), param);
+        } catch (IOException ex) {
+            Logger.getLogger(AviWriter.class.getName()).log(Level.SEVERE, null, ex);
+            throw new RuntimeException(ex);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * A little endian buffer.
+     *
+     * @param size The size of the buffer.
+     * @return The buffer.
+     */
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Puts a four character code in a buffer.
+     *
+     * @param buf The buffer.
+     * @param fourCC The four character code.
+     * @return The buffer.
+     */
+    private static ByteBuffer fourCC(ByteBuffer buf, String fourCC) {
+        return buf.put(fourCC.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Writes all of a buffer to the file.
+     *
+     * @param buf The buffer, ready to be written.
+     * @throws IOException
+     */
+    private void writeFully(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) out.write(buf);
+    }
+
+    @Override
+    protected void writeFrame(byte[] encoded) {
+        try {
+            long chunk = out.position();
+            int padded = encoded.length + (encoded.length & 1);
+            if (chunk + 8 + padded > 0xFFFFFFFFL - (frames() + 1) * 16L)
+                throw new IllegalStateException("An AVI can be no larger than 4 gigabytes.");
+
+            ByteBuffer buf = buffer(8 + padded);
+            fourCC(buf, "00dc").putInt(encoded.length).put(encoded);
+            buf.position(8 + padded).flip();
+            writeFully(buf);
+
+            index.writeInt((int) (chunk - MOVI));
+            index.writeInt(encoded.length);
+            largestFrame = Math.max(largestFrame, encoded.length);
+        } catch (IOException ex) {
+            Logger.getLogger(AviWriter.class.getName()).log(Level.SEVERE, null, ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Appends the index, and fills in the headers.
+     */
+    @Override
+    public void close() {
+        try {
+            index.close();
+            long moviEnd = out.position();
+
+            ByteBuffer idx = buffer(16 << 10);
+            fourCC(idx, "idx1").putInt(16 * frames());
+            try (DataInputStream entries = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+                for (int i = 0; i < frames(); i++) {
+                    if (idx.remaining() < 16) {
+                        idx.flip();
+                        writeFully(idx);
+                        idx.clear();
+                    }
+                    fourCC(idx, "00dc").putInt(0x10).putInt(entries.readInt()).putInt(entries.readInt());
+                }
+            }
+            idx.flip();
+            writeFully(idx);
+            long end = out.position();
+
+            int w = Math.max(width, 0), h = Math.max(height, 0), rate = (int) Math.max(1, Math.round(framesPerSecond));
+            ByteBuffer head = buffer(HEADER_BYTES);
+            fourCC(head, "RIFF").putInt((int) (end - 8));
+            fourCC(head, "AVI ");
+            fourCC(head, "LIST").putInt(192);
+            fourCC(head, "hdrl");
+
+            fourCC(head, "avih").putInt(56)
+                    .putInt(1_000_000 / rate)
+                    .putInt(largestFrame * rate)
+                    .putInt(0)
+                    .putInt(0x10)
+                    .putInt(frames())
+                    .putInt(0)
+                    .putInt(1)
+                    .putInt(largestFrame + 8)
+                    .putInt(w).putInt(h)
+                    .putInt(0).putInt(0).putInt(0).putInt(0);
+
+            fourCC(head, "LIST").putInt(116);
+            fourCC(head, "strl");
+            fourCC(fourCC(fourCC(head, "strh").putInt(56), "vids"), "MJPG")
+                    .putInt(0)
+                    .putShort((short) 0).putShort((short) 0)
+                    .putInt(0)
+                    .putInt(1).putInt(rate)
+                    .putInt(0)
+                    .putInt(frames())
+                    .putInt(largestFrame + 8)
+                    .putInt(-1)
+                    .putInt(0)
+                    .putShort((short) 0).putShort((short) 0).putShort((short) w).putShort((short) h);
+            fourCC(head, "strf").putInt(40)
+                    .putInt(40)
+                    .putInt(w).putInt(h)
+                    .putShort((short) 1).putShort((short) 24);
+            fourCC(head, "MJPG")
+                    .putInt(w * h * 3)
+                    .putInt(0).putInt(0).putInt(0).putInt(0);
+
+            fourCC(head, "LIST").putInt((int) (moviEnd - MOVI));
+            fourCC(head, "movi");
+            head.flip();
+            out.position(0);
+            writeFully(head);
+        } catch (IOException ex) {
+            Logger.getLogger(AviWriter.class.getName()).log(Level.SEVERE, null, ex);
+            throw new RuntimeException(ex);
+        } finally {
+            try {
+                out.close();
+            } catch (IOException ex) {
+                Logger.getLogger(AviWriter.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            indexFile.delete();
+        }
+    }
+}
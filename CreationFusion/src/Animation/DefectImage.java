@@ -1,7 +1,6 @@
 package Animation;
 
 import GeometricTools.Vec;
-import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
@@ -26,48 +25,38 @@ public class DefectImage extends BufferedImage {
      * Creates a BufferedImage with a transparent background and a disk in the
      * middle.
      *
-     * @param width The width of the image.
-     * @param height The height of the image.
-     * @return A BufferedImage with a transparent background and a disk in the
-     * middle.
+     * @param sd The defect.
+     * @param diameter The diameter of the image.
+     * @param color The color of the defect.
      */
     private DefectImage(SnapDefect sd, int diameter, Color color) {
         super(diameter, diameter, BufferedImage.TYPE_INT_ARGB);
         embedTo = sd.loc;
         this.color = color;
-
-        Graphics2D g2d = createGraphics();
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2d.setComposite(AlphaComposite.Clear);
-        g2d.fillRect(0, 0, diameter, diameter);
-        g2d.setComposite(AlphaComposite.SrcOver);
-
-        int innerRadius = diameter / 15;
-
-        g2d.setColor(color);
-        g2d.fillOval(diameter / 2 - innerRadius, diameter / 2 - innerRadius, 2 * innerRadius, 2 * innerRadius);
-
-        g2d.dispose();
     }
 
     /**
-     * Adds a tail to the given BufferedImage at a specified angle.
+     * Draws a defect on a transparent square image: a disk in the middle and
+     * a tail from the middle at each angle.
      *
-     * @param image The BufferedImage to draw on.
-     * @param angle The angle of the line segment.
+     * @param image A square image with a transparent background.
+     * @param color The color of the defect.
+     * @param tailAngles The angles of the tails.
      */
-    private void addTail(double angle) {
-        Graphics2D g2d = createGraphics();
+    static void paint(BufferedImage image, Color color, double... tailAngles) {
+        int diameter = image.getWidth();
+        Graphics2D g2d = image.createGraphics();
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setColor(color);
 
-        int centX = getWidth() / 2, centY = getHeight() / 2;
+        int innerRadius = diameter / 15;
+        g2d.fillOval(diameter / 2 - innerRadius, diameter / 2 - innerRadius, 2 * innerRadius, 2 * innerRadius);
 
+        int cent = diameter / 2;
+        double lineLength = diameter / 2;
         g2d.setStroke(new BasicStroke(3));
-        g2d.setColor(color);
-        double lineLength = Math.min(getWidth(), getHeight()) / 2;
-        int endX = (int) (centX + lineLength * Math.cos(angle));
-        int endY = (int) (centY + lineLength * Math.sin(angle));
-        g2d.drawLine(getWidth() / 2, centY, endX, endY);
+        for (double angle : tailAngles)
+            g2d.drawLine(cent, cent, (int) (cent + lineLength * Math.cos(angle)), (int) (cent + lineLength * Math.sin(angle)));
 
         g2d.dispose();
     }
@@ -81,7 +70,7 @@ public class DefectImage extends BufferedImage {
      */
     public DefectImage(PosSnapDefect psd, int diameter) {
         this(psd, diameter, Color.RED);
-        addTail(psd.tailAngle().rad());
+        paint(this, color, psd.tailAngle().rad());
     }
 
     /**
@@ -93,8 +82,7 @@ public class DefectImage extends BufferedImage {
      */
     public DefectImage(NegSnapDefect nsd, int diameter) {
         this(nsd, diameter, Color.BLUE);
-        Arrays.stream(nsd.tailAngle()).map(tail -> tail.rad())
-                .forEach(tailAngle -> addTail(tailAngle));
+        paint(this, color, Arrays.stream(nsd.tailAngle()).mapToDouble(tail -> tail.rad()).toArray());
     }
 
 }
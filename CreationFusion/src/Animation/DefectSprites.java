@@ -0,0 +1,174 @@
+package Animation;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import snapDefects.NegSnapDefect;
+import snapDefects.PosSnapDefect;
+import snapDefects.SnapDefect;
+
+/**
+ * Pictures of defects, drawn once and reused. A picture depends only on the
+ * charge, the diameter and the tail angles, so the tail angles are rounded to
+ * a number of steps per circle and each combination is drawn the first time
+ * it's needed. Drawing a defect is then a single drawImage. The sprites are
+ * shared across threads.
+ *
+ * A negative defect has three tails, so there are millions of combinations
+ * and nearly every negative defect of a long movie would get its own sprite.
+ * The sprites are therefore held in a cache of no more than a given number of
+ * pixels, and the least recently used are dropped first.
+ *
+ * @author E. Dov Neimand
+ */
+public class DefectSprites {
+
+    private static DefectSprites shared;
+
+    private final int stepsPerCircle;
+    private final long maxPixels;
+    private long pixels = 0;
+    private final LinkedHashMap<Long, BufferedImage> sprites = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The constructor. The cache holds up to 16 million pixels, 64 megabytes.
+     *
+     * @param stepsPerCircle The number of tail angles a full circle is rounded
+     * to. At most 512.
+     */
+    public DefectSprites(int stepsPerCircle) {
+        this(stepsPerCircle, 16L << 20);
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param stepsPerCircle The number of tail angles a full circle is rounded
+     * to. At most 512.
+     * @param maxPixels The greatest number of pixels of sprites held.
+     */
+    public DefectSprites(int stepsPerCircle, long maxPixels) {
+        if (stepsPerCircle > 512)
+            throw new IllegalArgumentException("At most 512 steps per circle, not " + stepsPerCircle + ".");
+        this.stepsPerCircle = stepsPerCircle;
+        this.maxPixels = maxPixels;
+    }
+
+    /**
+     * Sprites with tail angles rounded to the nearest degree, shared by
+     * everything that doesn't set its own.
+     *
+     * @return The shared sprites.
+     */
+    public static synchronized DefectSprites shared() {
+        if (shared == null) shared = new DefectSprites(360);
+        return shared;
+    }
+
+    /**
+     * The step a tail angle is rounded to.
+     *
+     * @param radians The tail angle.
+     * @return The step, from 0 to stepsPerCircle - 1.
+     */
+    private int step(double radians) {
+        return Math.floorMod((int) Math.round(radians / (2 * Math.PI) * stepsPerCircle), stepsPerCircle);
+    }
+
+    /**
+     * The angle of a step.
+     *
+     * @param step The step.
+     * @return The angle in radians.
+     */
+    private double angle(int step) {
+        return 2 * Math.PI * step / stepsPerCircle;
+    }
+
+    /**
+     * The picture of a snap defect. Its top left corner goes where the snap
+     * defect is drawn, as with DefectImage. Don't draw on it, it's shared.
+     *
+     * @param snap The snap defect.
+     * @param diameter The diameter of the picture, from 1 to 65535.
+     * @return The picture of the snap defect.
+     */
+    public BufferedImage sprite(SnapDefect snap, int diameter) {
+        if (diameter < 1 || diameter >= 1 << 16)
+            throw new IllegalArgumentException("The diameter must be from 1 to 65535, not " + diameter + ".");
+
+        int[] steps = snap.getCharge()
+                ? new int[]{step(((PosSnapDefect) snap).tailAngle().rad())}
+                : Arrays.stream(((NegSnapDefect) snap).tailAngle()).mapToInt(tail -> step(tail.rad())).sorted().toArray();
+
+        long key = snap.getCharge() ? 1 : 0;
+        key = key << 16 | diameter;
+        for (int step : steps) key = key << 9 | step;
+
+        synchronized (this) {
+            BufferedImage sprite = sprites.get(key);
+            if (sprite != null) return sprite;
+        }
+
+        BufferedImage sprite = new BufferedImage(diameter, diameter, BufferedImage.TYPE_INT_ARGB);
+        DefectImage.paint(sprite, snap.getCharge() ? Color.RED : Color.BLUE,
+                Arrays.stream(steps).mapToDouble(this::angle).toArray());
+
+        synchronized (this) {
+            BufferedImage drawn = sprites.get(key);
+            if (drawn != null) return drawn;
+            put(key, sprite);
+            return sprite;
+        }
+    }
+
+    /**
+     * Adds a sprite to the cache and drops the least recently used sprites
+     * until the cache fits. The sprite added is always kept. The caller must
+     * hold the lock.
+     *
+     * @param key The key of the sprite.
+     * @param sprite The sprite.
+     */
+    private void put(long key, BufferedImage sprite) {
+        sprites.put(key, sprite);
+        pixels += (long) sprite.getWidth() * sprite.getHeight();
+
+        Iterator<Map.Entry<Long, BufferedImage>> eldest = sprites.entrySet().iterator();
+        while (pixels > maxPixels && eldest.hasNext()) {
+            Map.Entry<Long, BufferedImage> entry = eldest.next();
+            if (entry.getKey() == key) continue;
+            pixels -= (long) entry.getValue().getWidth() * entry.getValue().getHeight();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * The number of sprites held.
+     *
+     * @return The number of sprites held.
+     */
+    public synchronized int size() {
+        return sprites.size();
+    }
+
+    /**
+     * The number of pixels of sprites held.
+     *
+     * @return The number of pixels of sprites held.
+     */
+    public synchronized long pixels() {
+        return pixels;
+    }
+
+    /**
+     * Discards all the sprites.
+     */
+    public synchronized void clear() {
+        sprites.clear();
+        pixels = 0;
+    }
+}
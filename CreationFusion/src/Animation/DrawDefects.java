@@ -6,17 +6,17 @@ import GeometricTools.Vec;
 import SnapManagement.PairSnDef;
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.IntFunction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 import javax.imageio.ImageIO;
-import org.apache.commons.imaging.Imaging;
 import snapDefects.SnapDefect;
 
 /**
@@ -28,6 +28,8 @@ public class DrawDefects {
 
     private final int diameter;
     private final Rectangle frame;
+    private FrameCache frames = FrameCache.shared();
+    private DefectSprites sprites = DefectSprites.shared();
 
     /**
      * The constructor.
@@ -41,6 +43,39 @@ public class DrawDefects {
         this.diameter = diameter;
     }
 
+    /**
+     * Sets the cache the backgrounds are decoded into. By default, the shared
+     * frame cache is used.
+     *
+     * @param frames The cache the backgrounds are decoded into.
+     * @return this
+     */
+    public DrawDefects setFrameCache(FrameCache frames) {
+        this.frames = frames;
+        return this;
+    }
+
+    /**
+     * Sets the sprites snap defects are drawn with. By default, the shared
+     * sprites are used.
+     *
+     * @param sprites The sprites snap defects are drawn with.
+     * @return this
+     */
+    public DrawDefects setDefectSprites(DefectSprites sprites) {
+        this.sprites = sprites;
+        return this;
+    }
+
+    /**
+     * The cache the backgrounds are decoded into.
+     *
+     * @return The cache the backgrounds are decoded into.
+     */
+    public FrameCache getFrameCache() {
+        return frames;
+    }
+
     /**
      * Draws the images to a file, ensuring they are scaled to fit within the
      * frame.
@@ -68,33 +103,25 @@ public class DrawDefects {
     }
 
     /**
-     * Crops a section of the given image file and fits it to frame.
+     * Crops a section of the given image file and fits it to frame. The
+     * cropped and scaled background comes from the frame cache. If there's no
+     * file, or it can't be read, the background is black.
      *
-     * @param picture The picture to be cropped and fit.
+     * @param img The picture to be cropped and fit.
      * @param window The crop borders.
-     * @return A buffered image the size of frame.
+     * @param g2d Draws the background.
      */
-    
     private void setBackground(File img, Rectangle window, Graphics2D g2d) {
-        if (img == null) {
-            g2d.setColor(Color.BLACK);
-            g2d.fillRect(0, 0, (int) frame.width(), (int) frame.height());
-            
-        } else {
+        if (img != null) {
             try {
-                BufferedImage grabFrom = Imaging.getBufferedImage(img).getSubimage(
-                        (int) window.getX(),
-                        (int) window.getY(),
-                        (int) window.width(),
-                        (int) window.height()
-                );
-                
-                g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-                g2d.drawImage(grabFrom, 0, 0, (int) frame.width(), (int) frame.height(), null);
-            } catch (IOException ex) {
-                Logger.getLogger(DrawDefects.class.getName()).log(Level.SEVERE, null, ex);
+                g2d.drawImage(frames.crop(img, window, (int) frame.width(), (int) frame.height()), 0, 0, null);
+                return;
+            } catch (UncheckedIOException ex) {
+                Logger.getLogger(DrawDefects.class.getName()).log(Level.SEVERE, null, ex.getCause());
             }
         }
+        g2d.setColor(Color.BLACK);
+        g2d.fillRect(0, 0, (int) frame.width(), (int) frame.height());
     }
     
     
@@ -109,12 +136,32 @@ public class DrawDefects {
      * @param images The images to be drawn.
      */
     public void draw(File outputPath, Rectangle window, File background, SnapDefect... images) {
-        draw(outputPath, 
-                background, window, 
-                Arrays.stream(images)
-                        .map(snap -> snap.getImage(diameter))
-                        .toArray(DefectImage[]::new)
-        );
+        saveImage(outputPath, compose(window, background, images));
+    }
+
+    /**
+     * Draws the snap defects over the background, scaled to fit within the
+     * frame.
+     *
+     * @param window The window the defects are coming from.
+     * @param background To be placed behind the defects. May be null for a
+     * black background.
+     * @param images The snap defects to be drawn.
+     * @return The picture.
+     */
+    public BufferedImage compose(Rectangle window, File background, SnapDefect... images) {
+        BufferedImage toImg = new BufferedImage((int) frame.width(), (int) frame.height(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = toImg.createGraphics();
+
+        setBackground(background, window, g2d);
+
+        for (SnapDefect snap : images) {
+            Vec scaled = window.scale(snap.loc, frame);
+            g2d.drawImage(sprites.sprite(snap, diameter), (int) scaled.getX(), (int) scaled.getY(), null);
+        }
+
+        g2d.dispose();
+        return toImg;
     }
 
     /**
@@ -206,19 +253,101 @@ public class DrawDefects {
      * @param defectPairs The defect pairs to be drawn.
      */
     public static void drawDefectPairs(int defectDiameter, int frameWidth, int frameHeight, File parentFolder, List<PairSnDef> defectPairs) {
+        drawDefectPairs(defectDiameter, frameWidth, frameHeight, parentFolder, defectPairs, null);
+    }
+
+    /**
+     * Draws the proffered defects in the folder, each over the microscope
+     * frame it was found in. The pictures are composed and encoded in
+     * parallel and written in order by a RenderPipeline.
+     *
+     * @param defectDiameter The diameter of the image.
+     * @param frameWidth The width of the pictures.
+     * @param frameHeight The height of the pictures.
+     * @param parentFolder The folder the new pictures will be put in.
+     * @param defectPairs The defect pairs to be drawn.
+     * @param background The microscope frame at each time. May be null for a
+     * black background.
+     */
+    public static void drawDefectPairs(int defectDiameter, int frameWidth, int frameHeight, File parentFolder, List<PairSnDef> defectPairs, IntFunction<File> background) {
+        try (RenderPipeline pipeline = new RenderPipeline()) {
+            drawDefectPairs(defectDiameter, frameWidth, frameHeight, parentFolder, defectPairs, background, pipeline);
+        }
+    }
+
+    /**
+     * Draws the proffered defects in the folder, each over the microscope
+     * frame it was found in, with the given pipeline. The pipeline is not
+     * closed, so some pictures may still be unwritten when this method
+     * returns.
+     *
+     * @param defectDiameter The diameter of the image.
+     * @param frameWidth The width of the pictures.
+     * @param frameHeight The height of the pictures.
+     * @param parentFolder The folder the new pictures will be put in.
+     * @param defectPairs The defect pairs to be drawn.
+     * @param background The microscope frame at each time. May be null for a
+     * black background.
+     * @param pipeline Composes, encodes and writes the pictures.
+     */
+    public static void drawDefectPairs(int defectDiameter, int frameWidth, int frameHeight, File parentFolder, List<PairSnDef> defectPairs, IntFunction<File> background, RenderPipeline pipeline) {
         DrawDefects di = new DrawDefects(frameWidth, frameHeight, defectDiameter);
 
         Rectangle window = getBounds(defectPairs, defectDiameter);
 
-        defectPairs.forEach(pair -> di.draw(
-                new File(parentFolder + File.separator + pair.pos.getTime() + "_" + pair.pos.getId() + "_" + pair.neg.getId() + ".png"),
-                window,
-                new DefectImage(pair.pos, defectDiameter),
-                new DefectImage(pair.neg, defectDiameter)
-        )
-        );
+        for (PairSnDef pair : defectPairs)
+            pipeline.submit(
+                    new File(parentFolder + File.separator + pair.pos.getTime() + "_" + pair.pos.getId() + "_" + pair.neg.getId() + ".png"),
+                    () -> di.compose(window, background == null ? null : background.apply(pair.pos.getTime()), pair.pos, pair.neg)
+            );
+    }
+
+    /**
+     * Draws the proffered defects as the frames of a single animation, each
+     * over the microscope frame it was found in. The frames are appended to
+     * the animation as they're drawn.
+     *
+     * @param defectDiameter The diameter of the image.
+     * @param frameWidth The width of the pictures.
+     * @param frameHeight The height of the pictures.
+     * @param animation The animation file, a .gif or an .avi.
+     * @param framesPerSecond The speed of the animation.
+     * @param defectPairs The defect pairs to be drawn.
+     * @param background The microscope frame at each time. May be null for a
+     * black background.
+     */
+    public static void animateDefectPairs(int defectDiameter, int frameWidth, int frameHeight, File animation, double framesPerSecond, List<PairSnDef> defectPairs, IntFunction<File> background) {
+        try (AnimationWriter<?> writer = AnimationWriter.open(animation, framesPerSecond)) {
+            try (RenderPipeline pipeline = new RenderPipeline()) {
+                animateDefectPairs(defectDiameter, frameWidth, frameHeight, writer, defectPairs, background, pipeline);
+            }
+        }
+    }
+
+    /**
+     * Draws the proffered defects as the frames of an animation, each over the
+     * microscope frame it was found in, with the given pipeline. Neither the
+     * animation nor the pipeline is closed, and the pipeline must be closed
+     * before the animation is.
+     *
+     * @param defectDiameter The diameter of the image.
+     * @param frameWidth The width of the pictures.
+     * @param frameHeight The height of the pictures.
+     * @param animation The animation the pictures are appended to.
+     * @param defectPairs The defect pairs to be drawn.
+     * @param background The microscope frame at each time. May be null for a
+     * black background.
+     * @param pipeline Composes, encodes and writes the pictures.
+     */
+    public static void animateDefectPairs(int defectDiameter, int frameWidth, int frameHeight, AnimationWriter<?> animation, List<PairSnDef> defectPairs, IntFunction<File> background, RenderPipeline pipeline) {
+        DrawDefects di = new DrawDefects(frameWidth, frameHeight, defectDiameter);
+
+        Rectangle window = getBounds(defectPairs, defectDiameter);
+
+        for (PairSnDef pair : defectPairs)
+            pipeline.submit(
+                    () -> di.compose(window, background == null ? null : background.apply(pair.pos.getTime()), pair.pos, pair.neg),
+                    animation
+            );
     }
-    
-    
-    
 }
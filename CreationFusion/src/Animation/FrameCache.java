@@ -0,0 +1,307 @@
+package Animation;
+
+import GeometricTools.Rectangle;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import org.apache.commons.imaging.Imaging;
+
+/**
+ * A cache of decoded microscope frames, and of crops of them scaled to a
+ * target size, so that a frame drawn behind many pictures is decoded once.
+ *
+ * The cache holds no more than a given number of bytes of pixels, dropping
+ * the least recently used images first. The image most recently added is
+ * always kept, even if it alone is larger than the cache. If several threads
+ * ask for the same image at once, it's decoded once and they all get it.
+ * Frames that will be needed soon can be decoded ahead on a background thread
+ * with prefetch.
+ *
+ * @author E. Dov Neimand
+ */
+public class FrameCache {
+
+    private static FrameCache shared;
+
+    private final long maxBytes;
+    private long bytes = 0, hits = 0, misses = 0;
+    private final LinkedHashMap<Key, BufferedImage> images = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Key, CompletableFuture<BufferedImage>> loading = new HashMap<>();
+    private final ExecutorService ahead = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "frame cache prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The constructor.
+     *
+     * @param maxBytes The greatest number of bytes of pixels held.
+     */
+    public FrameCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * A cache of 512 megabytes shared by everything that doesn't set its own.
+     *
+     * @return The shared cache.
+     */
+    public static synchronized FrameCache shared() {
+        if (shared == null) shared = new FrameCache(512L << 20);
+        return shared;
+    }
+
+    /**
+     * Identifies a cached image: a whole frame, or a crop of a frame scaled to
+     * a target size.
+     */
+    private static class Key {
+
+        private final File file;
+        private final int x, y, width, height, targetWidth, targetHeight;
+
+        /**
+         * The key of a whole frame.
+         *
+         * @param file The file of the frame.
+         */
+        public Key(File file) {
+            this(file, -1, -1, -1, -1, -1, -1);
+        }
+
+        /**
+         * The constructor.
+         *
+         * @param file The file of the frame.
+         * @param x The left edge of the crop.
+         * @param y The top edge of the crop.
+         * @param width The width of the crop.
+         * @param height The height of the crop.
+         * @param targetWidth The width the crop is scaled to.
+         * @param targetHeight The height the crop is scaled to.
+         */
+        public Key(File file, int x, int y, int width, int height, int targetWidth, int targetHeight) {
+            this.file = file.getAbsoluteFile();
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.targetWidth = targetWidth;
+            this.targetHeight = targetHeight;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Key)) return false;
+            Key other = (Key) obj;
+            return x == other.x && y == other.y && width == other.width && height == other.height
+                    && targetWidth == other.targetWidth && targetHeight == other.targetHeight
+                    && file.equals(other.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(file, x, y, width, height, targetWidth, targetHeight);
+        }
+    }
+
+    /**
+     * The number of bytes of pixels in an image.
+     *
+     * @param image The image.
+     * @return The number of bytes of pixels in the image.
+     */
+    private static long bytesOf(BufferedImage image) {
+        DataBuffer data = image.getRaster().getDataBuffer();
+        return (long) data.getSize() * data.getNumBanks() * DataBuffer.getDataTypeSize(data.getDataType()) / 8;
+    }
+
+    /**
+     * Gets an image from the cache, or loads it. A load already under way on
+     * another thread is waited for rather than repeated.
+     *
+     * @param key The key of the image.
+     * @param load Loads the image.
+     * @return The image.
+     */
+    private BufferedImage get(Key key, Supplier<BufferedImage> load) {
+        CompletableFuture<BufferedImage> future;
+        boolean loadHere = false;
+
+        synchronized (this) {
+            BufferedImage image = images.get(key);
+            if (image != null) {
+                hits++;
+                return image;
+            }
+            misses++;
+            future = loading.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                loading.put(key, future);
+                loadHere = true;
+            }
+        }
+
+        if (loadHere) {
+            try {
+                BufferedImage image = load.get();
+                synchronized (this) {
+                    put(key, image);
+                    loading.remove(key);
+                }
+                future.complete(image);
+            } catch (RuntimeException ex) {
+                synchronized (this) {
+                    loading.remove(key);
+                }
+                future.completeExceptionally(ex);
+                throw ex;
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+            throw ex;
+        }
+    }
+
+    /**
+     * Adds an image to the cache and drops the least recently used images
+     * until the cache fits. The caller must hold the lock.
+     *
+     * @param key The key of the image.
+     * @param image The image.
+     */
+    private void put(Key key, BufferedImage image) {
+        BufferedImage old = images.put(key, image);
+        if (old != null) bytes -= bytesOf(old);
+        bytes += bytesOf(image);
+
+        Iterator<Map.Entry<Key, BufferedImage>> eldest = images.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<Key, BufferedImage> entry = eldest.next();
+            if (entry.getKey().equals(key)) continue;
+            bytes -= bytesOf(entry.getValue());
+            eldest.remove();
+        }
+    }
+
+    /**
+     * A whole decoded frame. Don't draw on it, it's shared.
+     *
+     * @param file The file of the frame.
+     * @return The decoded frame.
+     * @throws UncheckedIOException If the frame can't be read.
+     */
+    public BufferedImage frame(File file) {
+        return get(new Key(file), () -> {
+            try {
+                return Imaging.getBufferedImage(file);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * A crop of a frame scaled to a target size. Don't draw on it, it's
+     * shared.
+     *
+     * @param file The file of the frame.
+     * @param window The crop borders.
+     * @param width The width the crop is scaled to.
+     * @param height The height the crop is scaled to.
+     * @return The scaled crop.
+     * @throws UncheckedIOException If the frame can't be read.
+     */
+    public BufferedImage crop(File file, Rectangle window, int width, int height) {
+        Key key = new Key(file, (int) window.getX(), (int) window.getY(), (int) window.width(), (int) window.height(), width, height);
+
+        return get(key, () -> {
+            BufferedImage crop = frame(file).getSubimage(key.x, key.y, key.width, key.height);
+            BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2d = scaled.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.drawImage(crop, 0, 0, width, height, null);
+            g2d.dispose();
+            return scaled;
+        });
+    }
+
+    /**
+     * Decodes a frame on the background thread so that it's ready when it's
+     * asked for.
+     *
+     * @param file The file of the frame.
+     */
+    public void prefetch(File file) {
+        ahead.execute(() -> frame(file));
+    }
+
+    /**
+     * Decodes, crops and scales a frame on the background thread so that it's
+     * ready when it's asked for.
+     *
+     * @param file The file of the frame.
+     * @param window The crop borders.
+     * @param width The width the crop is scaled to.
+     * @param height The height the crop is scaled to.
+     */
+    public void prefetch(File file, Rectangle window, int width, int height) {
+        ahead.execute(() -> crop(file, window, width, height));
+    }
+
+    /**
+     * The number of bytes of pixels held.
+     *
+     * @return The number of bytes of pixels held.
+     */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    /**
+     * The number of times an image was found in the cache.
+     *
+     * @return The number of hits.
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * The number of times an image was not found in the cache.
+     *
+     * @return The number of misses.
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Empties the cache.
+     */
+    public synchronized void clear() {
+        images.clear();
+        bytes = 0;
+    }
+}
@@ -0,0 +1,125 @@
+package Animation;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOInvalidTreeException;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Writes an animated GIF that loops forever, with ImageIO's GIF writer. The
+ * frames are reduced to the default 256 color palette, a color cube and a
+ * gray ramp, when they're encoded, so the writer doesn't build a palette for
+ * each frame.
+ *
+ * @author E. Dov Neimand
+ */
+public class GifWriter extends AnimationWriter<BufferedImage> {
+
+    private final ImageWriter writer;
+    private final ImageOutputStream out;
+
+    /**
+     * The constructor.
+     *
+     * @param file The animation file.
+     * @param framesPerSecond The speed of the animation. GIFs keep time in
+     * hundredths of a second.
+     */
+    public GifWriter(File file, double framesPerSecond) {
+        super(file, framesPerSecond);
+        writer = ImageIO.getImageWritersByFormatName("gif").next();
+        try {
+            file.delete();
+            out = new FileImageOutputStream(file);
+            writer.setOutput(out);
+            writer.prepareWriteSequence(null);
+        } catch (IOException ex) {
+            Logger.getLogger(GifWriter.class.getName()).log(Level.SEVERE, null, ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Reduces a frame to the default palette.
+     *
+     * @param frame The frame.
+     * @return The frame with indexed colors.
+     */
+    @Override
+    public BufferedImage encode(BufferedImage frame) {
+        BufferedImage indexed = new BufferedImage(frame.getWidth(), frame.getHeight(), BufferedImage.TYPE_BYTE_INDEXED);
+        Graphics2D g2d = indexed.createGraphics();
+        g2d.drawImage(frame, 0, 0, null);
+        g2d.dispose();
+        return indexed;
+    }
+
+    /**
+     * The metadata of a frame: its delay, and for the first frame, that the
+     * animation loops.
+     *
+     * @param frame The frame.
+     * @return The metadata of the frame.
+     * @throws IIOInvalidTreeException
+     */
+    private IIOMetadata metadata(BufferedImage frame) throws IIOInvalidTreeException {
+        IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(frame), null);
+        String format = metadata.getNativeMetadataFormatName();
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+
+        IIOMetadataNode control = new IIOMetadataNode("GraphicControlExtension");
+        control.setAttribute("disposalMethod", "none");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("transparentColorFlag", "FALSE");
+        control.setAttribute("delayTime", Integer.toString((int) Math.round(100 / framesPerSecond)));
+        control.setAttribute("transparentColorIndex", "0");
+        root.appendChild(control);
+
+        if (frames() == 0) {
+            IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+            loop.setAttribute("applicationID", "NETSCAPE");
+            loop.setAttribute("authenticationCode", "2.0");
+            loop.setUserObject(new byte[]{1, 0, 0});
+            IIOMetadataNode extensions = new IIOMetadataNode("ApplicationExtensions");
+            extensions.appendChild(loop);
+            root.appendChild(extensions);
+        }
+
+        metadata.setFromTree(format, root);
+        return metadata;
+    }
+
+    @Override
+    protected void writeFrame(BufferedImage encoded) {
+        try {
+            writer.writeToSequence(new IIOImage(encoded, null, metadata(encoded)), null);
+        } catch (IOException ex) {
+            Logger.getLogger(GifWriter.class.getName()).log(Level.SEVERE, null, ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.endWriteSequence();
+            out.close();
+        } catch (IOException ex) {
+            Logger.getLogger(GifWriter.class.getName()).log(Level.SEVERE, null, ex);
+            throw new RuntimeException(ex);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package Animation;
+
+import GeometricTools.Rectangle;
+import GeometricTools.Vec;
+import SnapManagement.Defect;
+import defectManagement.DefectManager;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import snapDefects.SnapDefect;
+
+/**
+ * Draws the defects of a whole movie over its microscope frames, one picture
+ * per frame. Each defect is drawn with its trajectory over the last few
+ * frames, and each positive defect is joined by a line to its twin or spouse
+ * while both are alive.
+ *
+ * The snap defects of each frame are looked up in a time index built once,
+ * and the frames are composed, encoded and written by a RenderPipeline.
+ *
+ * @author E. Dov Neimand
+ */
+public class MovieOverlay {
+
+    private final DefectManager dm;
+    private final SnapDefect[][] byTime;
+    private final Rectangle window, frame;
+    private final int diameter;
+    private int trail = 10;
+    private IntFunction<File> background = null;
+    private FrameCache frames = FrameCache.shared();
+    private DefectSprites sprites = DefectSprites.shared();
+
+    /**
+     * The constructor.
+     *
+     * @param dm The defects to be drawn.
+     * @param window The part of the movie to be drawn.
+     * @param width The width of the pictures.
+     * @param height The height of the pictures.
+     * @param diameter The diameter of the defects in the pictures.
+     */
+    public MovieOverlay(DefectManager dm, Rectangle window, int width, int height, int diameter) {
+        this.dm = dm;
+        this.byTime = dm.snapsByTime();
+        this.window = window;
+        this.frame = new Rectangle(width, height);
+        this.diameter = diameter;
+    }
+
+    /**
+     * Sets the number of frames of history drawn behind each defect.
+     *
+     * @param trail The number of frames of history.
+     * @return this
+     */
+    public MovieOverlay setTrail(int trail) {
+        this.trail = trail;
+        return this;
+    }
+
+    /**
+     * Sets the microscope frames the defects are drawn over.
+     *
+     * @param background The microscope frame at each time. May be null for a
+     * black background.
+     * @return this
+     */
+    public MovieOverlay setBackground(IntFunction<File> background) {
+        this.background = background;
+        return this;
+    }
+
+    /**
+     * Sets the cache the backgrounds are decoded into.
+     *
+     * @param frames The cache the backgrounds are decoded into.
+     * @return this
+     */
+    public MovieOverlay setFrameCache(FrameCache frames) {
+        this.frames = frames;
+        return this;
+    }
+
+    /**
+     * Sets the sprites the defects are drawn with.
+     *
+     * @param sprites The sprites the defects are drawn with.
+     * @return this
+     */
+    public MovieOverlay setDefectSprites(DefectSprites sprites) {
+        this.sprites = sprites;
+        return this;
+    }
+
+    /**
+     * The number of frames.
+     *
+     * @return The number of frames.
+     */
+    public int numFrames() {
+        return byTime.length;
+    }
+
+    /**
+     * Where a snap defect is in the picture.
+     *
+     * @param snap The snap defect.
+     * @return The location of the snap defect in the picture.
+     */
+    private Vec place(SnapDefect snap) {
+        return window.scale(snap.loc, frame);
+    }
+
+    /**
+     * The snap defect of a defect at a time.
+     *
+     * @param def The defect.
+     * @param time The time.
+     * @return The snap defect at the time, or null if the defect wasn't seen
+     * then.
+     */
+    private static SnapDefect at(Defect def, int time) {
+        int index = time - def.getBirth().getTime();
+        List<? extends SnapDefect> path = def.getLifeCourse();
+        return index < 0 || index >= path.size() ? null : path.get(index);
+    }
+
+    /**
+     * Draws the picture of a frame: the background, the trajectories, the
+     * links between partners, and the defects, centered on their locations.
+     * If the background can't be read, it's black.
+     *
+     * @param time The time of the frame.
+     * @return The picture.
+     */
+    public BufferedImage compose(int time) {
+        BufferedImage picture = new BufferedImage((int) frame.width(), (int) frame.height(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = picture.createGraphics();
+
+        File img = background == null ? null : background.apply(time);
+        if (img != null) {
+            try {
+                g2d.drawImage(frames.crop(img, window, picture.getWidth(), picture.getHeight()), 0, 0, null);
+            } catch (UncheckedIOException ex) {
+                Logger.getLogger(MovieOverlay.class.getName()).log(Level.SEVERE, null, ex.getCause());
+                img = null;
+            }
+        }
+        if (img == null) {
+            g2d.setColor(Color.BLACK);
+            g2d.fillRect(0, 0, picture.getWidth(), picture.getHeight());
+        }
+
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setStroke(new BasicStroke(2));
+
+        for (SnapDefect snap : byTime[time]) {
+            Defect def = dm.getDefect(snap);
+            Path2D.Double path = new Path2D.Double();
+            boolean started = false;
+            for (int t = Math.max(time - trail, def.getBirth().getTime()); t <= time; t++) {
+                SnapDefect past = at(def, t);
+                if (past == null || !window.contains(past.loc)) continue;
+                Vec p = place(past);
+                if (started) path.lineTo(p.getX(), p.getY());
+                else path.moveTo(p.getX(), p.getY());
+                started = true;
+            }
+            g2d.setColor(snap.getCharge() ? new Color(255, 120, 120) : new Color(120, 120, 255));
+            g2d.draw(path);
+
+            if (!snap.getCharge()) continue;
+            for (boolean event : new boolean[]{DefectManager.BIRTH, DefectManager.DEATH}) {
+                if (!def.hasPair(event)) continue;
+                SnapDefect partner = at(def.getPair(event), time);
+                if (partner == null) continue;
+                Vec a = place(snap), b = place(partner);
+                g2d.setColor(event == DefectManager.BIRTH ? Color.GREEN : Color.YELLOW);
+                g2d.drawLine((int) a.getX(), (int) a.getY(), (int) b.getX(), (int) b.getY());
+            }
+        }
+
+        for (SnapDefect snap : byTime[time]) {
+            if (!window.contains(snap.loc)) continue;
+            Vec p = place(snap);
+            g2d.drawImage(sprites.sprite(snap, diameter), (int) p.getX() - diameter / 2, (int) p.getY() - diameter / 2, null);
+        }
+
+        g2d.dispose();
+        return picture;
+    }
+
+    /**
+     * Draws every frame, in order, to a PNG file named by its time.
+     *
+     * @param folder The folder the pictures are written to.
+     * @param pipeline Composes, encodes and writes the pictures. It's not
+     * closed.
+     */
+    public void render(File folder, RenderPipeline pipeline) {
+        folder.mkdirs();
+        for (int time = 0; time < numFrames(); time++) {
+            int t = time;
+            pipeline.submit(new File(folder, String.format("frame_%05d.png", t)), () -> compose(t));
+        }
+    }
+
+    /**
+     * Draws every frame, in order, to a PNG file named by its time, and waits
+     * for them to be written.
+     *
+     * @param folder The folder the pictures are written to.
+     * @return The number of pictures written.
+     */
+    public int render(File folder) {
+        RenderPipeline pipeline = new RenderPipeline();
+        try {
+            render(folder, pipeline);
+        } finally {
+            pipeline.close();
+        }
+        return pipeline.framesWritten();
+    }
+
+    /**
+     * Draws every frame, in order, into a single animation.
+     *
+     * @param animation The animation file, a .gif or an .avi.
+     * @param framesPerSecond The speed of the animation.
+     * @return The number of frames written.
+     */
+    public int animate(File animation, double framesPerSecond) {
+        try (AnimationWriter<?> writer = AnimationWriter.open(animation, framesPerSecond)) {
+            try (RenderPipeline pipeline = new RenderPipeline()) {
+                for (int time = 0; time < numFrames(); time++) {
+                    int t = time;
+                    pipeline.submit(() -> compose(t), writer);
+                }
+            }
+            return writer.frames();
+        }
+    }
+
+    public static void main(String[] args) {
+        DefectManager dm = main.DefaultData.cells_14_15_19();
+
+        File animation = new File("images/output/overlay.avi");
+        int frames = new MovieOverlay(dm, new Rectangle(0, 0, 2050, 2050), 1024, 1024, 40)
+                .setTrail(15)
+                .animate(animation, 10);
+        System.out.println(frames + " frames written to " + animation + ".");
+    }
+}
@@ -0,0 +1,239 @@
+package Animation;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Renders frames in three stages: frames are composed on a pool of worker
+ * threads, encoded on the same pool, and written on a single I/O thread in the
+ * order they were submitted.
+ *
+ * No more than framesInFlight frames are between submission and being
+ * written, so the queues between the stages are bounded and submit blocks
+ * when the pipeline is full. With the default deflate level, the PNG files
+ * are byte for byte what ImageIO.write produces.
+ *
+ * A frame that fails to be composed, encoded or written is logged and counted,
+ * and the frames after it are still written.
+ *
+ * @author E. Dov Neimand
+ */
+public class RenderPipeline implements AutoCloseable {
+
+    private final ExecutorService workers, io;
+    private final Semaphore inFlight;
+    private final AtomicInteger written = new AtomicInteger(), failed = new AtomicInteger();
+    private int submitted = 0;
+    private CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+    private int deflateLevel = -1;
+    private long start = -1;
+    private volatile long end = -1;
+
+    /**
+     * A pipeline with a worker thread for each processor, and twice as many
+     * frames in flight.
+     */
+    public RenderPipeline() {
+        this(Runtime.getRuntime().availableProcessors(), 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param threads The number of threads frames are composed and encoded
+     * on.
+     * @param framesInFlight The greatest number of frames submitted but not
+     * yet written.
+     */
+    public RenderPipeline(int threads, int framesInFlight) {
+        workers = Executors.newFixedThreadPool(threads);
+        io = Executors.newSingleThreadExecutor();
+        inFlight = new Semaphore(framesInFlight);
+    }
+
+    /**
+     * Sets the deflate level of the PNG files.
+     *
+     * @param deflateLevel From 0, no compression, to 9, the most compression.
+     * -1 for the ImageIO default.
+     * @return this
+     */
+    public RenderPipeline setDeflateLevel(int deflateLevel) {
+        this.deflateLevel = deflateLevel;
+        return this;
+    }
+
+    /**
+     * Encodes an image as a PNG.
+     *
+     * @param image The image.
+     * @return The bytes of the PNG file.
+     */
+    public byte[] png(BufferedImage image) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = null;
+            if (deflateLevel >= 0) {
+                param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(1 - deflateLevel / 9f);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            writer.dispose();
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Composes a frame and writes it to a PNG file.
+     *
+     * @param outputPath Where the PNG is written.
+     * @param compose Composes the frame.
+     */
+    public void submit(File outputPath, Supplier<BufferedImage> compose) {
+        submit(compose, this::png, bytes -> {
+            try {
+                Files.write(outputPath.toPath(), bytes);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * Composes a frame and appends it to an animation. The frame is encoded on
+     * the worker threads and written to the animation on the I/O thread.
+     *
+     * @param <T> The type of an encoded frame.
+     * @param compose Composes the frame.
+     * @param animation The animation the frame is appended to. It's written
+     * to only on the I/O thread, so it shouldn't be closed until this
+     * pipeline is.
+     */
+    public <T> void submit(Supplier<BufferedImage> compose, AnimationWriter<T> animation) {
+        submit(compose, animation::encode, animation::write);
+    }
+
+    /**
+     * Composes a frame and encodes it on the worker threads, and then writes
+     * it on the I/O thread after every frame submitted before it. Blocks while
+     * framesInFlight frames are unwritten. If the frame fails at any stage,
+     * the failure is logged and counted, and the next frame is written anyway.
+     *
+     * @param <T> The type of the encoded frame.
+     * @param compose Composes the frame.
+     * @param encode Encodes the frame.
+     * @param write Writes the encoded frame.
+     */
+    public synchronized <T> void submit(Supplier<BufferedImage> compose, Function<BufferedImage, T> encode, Consumer<T> write) {
+        inFlight.acquireUninterruptibly();
+        if (start < 0) start = System.nanoTime();
+
+        int index = submitted++;
+
+        CompletableFuture<T> encoded = CompletableFuture.supplyAsync(compose, workers)
+                .thenApplyAsync(encode, workers);
+
+        lastWrite = lastWrite.thenCompose(previous -> encoded.handleAsync((frame, ex) -> {
+            try {
+                if (ex == null) {
+                    write.accept(frame);
+                    written.incrementAndGet();
+                } else fail(index, ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+            } catch (RuntimeException writeEx) {
+                fail(index, writeEx);
+            } finally {
+                end = System.nanoTime();
+                inFlight.release();
+            }
+            return (Void) null;
+        }, io));
+    }
+
+    /**
+     * Logs and counts a frame that could not be written.
+     *
+     * @param index The order in which the frame was submitted, from 0.
+     * @param ex Why the frame could not be written.
+     */
+    private void fail(int index, Throwable ex) {
+        failed.incrementAndGet();
+        Logger.getLogger(RenderPipeline.class.getName()).log(Level.SEVERE, "Frame " + index + " was not written.", ex);
+    }
+
+    /**
+     * The number of frames written so far.
+     *
+     * @return The number of frames written so far.
+     */
+    public int framesWritten() {
+        return written.get();
+    }
+
+    /**
+     * The number of frames that failed to be composed, encoded or written so
+     * far.
+     *
+     * @return The number of frames that were not written.
+     */
+    public int framesFailed() {
+        return failed.get();
+    }
+
+    /**
+     * The number of frames written per second, from the first submission to
+     * the most recent write.
+     *
+     * @return The throughput in frames per second.
+     */
+    public double framesPerSecond() {
+        return end <= start ? 0 : written.get() / ((end - start) / 1e9);
+    }
+
+    /**
+     * Waits for every frame to be written and stops the threads.
+     */
+    @Override
+    public void close() {
+        try {
+            lastWrite.join();
+        } finally {
+            workers.shutdown();
+            io.shutdown();
+            try {
+                workers.awaitTermination(1, TimeUnit.MINUTES);
+                io.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException ex) {
+                Logger.getLogger(RenderPipeline.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+    }
+}
@@ -9,7 +9,9 @@ import Charts.ScatterPlot;
 import GeometricTools.ProximityMetric;
 import GeometricTools.Vec;
 import SnapManagement.PairSnDef;
+import dataTools.GroupedStats;
 import defectManagement.DefectManager;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,6 +19,7 @@ import java.util.function.DoubleUnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.commons.math3.util.Precision;
+import org.jfree.data.xy.YIntervalSeriesCollection;
 import snapDefects.NegSnapDefect;
 
 /**
@@ -40,7 +43,7 @@ public class BirthAndDeathTracker {
      */
     public void angleNearEvent(boolean isBirth, int maxDist) {
         
-        var pairs = dm.pairsAtDistance(pair -> pair.anglePRel().deg(), isBirth, maxDist);
+        var pairs = dm.pairsAtDistance(frame -> frame.anglePRelDeg(), isBirth, maxDist);
         HeatMap.factory(
                 dm.getName() + ": angPRel as a function of distance",
                 "distance",
@@ -71,7 +74,7 @@ public class BirthAndDeathTracker {
                 dm.getName() + ": mpPhase as a function of distance",
                 "distance",
                 "mpPhase",
-                dm.pairsAtDistance(pair -> pair.mpPhase(), birth, 60),
+                dm.pairsAtDistance(frame -> frame.mpPhase(), birth, 60),
                 1000,
                 .3,
                 Double.NaN,
@@ -159,12 +162,14 @@ public class BirthAndDeathTracker {
      */
     public void speedFunctionOfAngle(boolean birth){
         
-        List<Vec> vecs = dm.pairs(birth).filter(pair -> pair.hasVelocity()).map(pair -> 
-                        new Vec(
-                                pair.mpPhase(), 
-                                pair.relVelocity().dot(pair.pos.loc.minus(pair.neg.loc).angle().vec())
-                        )
-                ).collect(Collectors.toList());
+        List<Vec> vecs = dm.forEachPairFrame(birth, 
+                ArrayList<Vec>::new, 
+                (list, frame) -> {
+                    if (frame.hasVelocity()) 
+                        list.add(new Vec(frame.mpPhase(), frame.separationSpeed()));
+                }, 
+                BirthAndDeathTracker::concat
+        );
         
 //        NamedData data = new NamedData(
 //                vecs, 
@@ -181,24 +186,49 @@ public class BirthAndDeathTracker {
      */
     public void distanceOfFrame(int timeRange, int minLongevity){
                 
-                NamedData ann = new NamedData(dm.pairs(DefectManager.DEATH)
-                        .filter(pair -> pair.timeFromEvent < timeRange)
-                        .filter(pair -> dm.getDefect(pair.pos).age() > minLongevity && dm.getDefect(pair.neg).age() > minLongevity)
-                        .map(pair -> new Vec(-pair.timeFromEvent, pair.dist()))                        
-                        .collect(Collectors.toList()), "Annihilation");
-                
-                NamedData creation = new NamedData(dm.pairs(DefectManager.BIRTH)
-                        .filter(pair -> pair.timeFromEvent < timeRange)
-                        .filter(pair -> dm.getDefect(pair.pos).age() > minLongevity && dm.getDefect(pair.neg).age() > minLongevity)
-                        .map(pair -> new Vec(pair.timeFromEvent, pair.dist()))
-                        .collect(Collectors.toList()), "Creation");
-                
-                
+                YIntervalSeriesCollection distances = new YIntervalSeriesCollection();
+                distances.addSeries(LineChart.series("Annihilation", distanceOfFrame(DefectManager.DEATH, timeRange, minLongevity)));
+                distances.addSeries(LineChart.series("Creation", distanceOfFrame(DefectManager.BIRTH, timeRange, minLongevity)));
                 
-                LineChart.factory("Distance Evolution Between Defect Pairs: " + dm.getName(), "Frame", "Distance", ann, creation);
+                LineChart.factory("Distance Evolution Between Defect Pairs: " + dm.getName(), "Frame", "Distance", distances);
 
     }
     
+    /**
+     * The mean and standard deviation of the distance between paired defects
+     * at each time from their event. Times before annihilation are negative.
+     * The frames are aggregated as they're visited, and not kept.
+     *
+     * @param birth True for creation pairs, false for annihilation pairs.
+     * @param timeRange Only frames closer than this to the event are used.
+     * @param minLongevity Both defects must live longer than this.
+     * @return The distances grouped by the time from the event.
+     */
+    private GroupedStats distanceOfFrame(boolean birth, int timeRange, int minLongevity) {
+        return dm.forEachPairFrame(birth,
+                () -> new GroupedStats(1),
+                (stats, frame) -> {
+                    if (frame.timeFromEvent < timeRange
+                            && frame.posAge > minLongevity
+                            && frame.negAge > minLongevity)
+                        stats.add(birth ? frame.timeFromEvent : -frame.timeFromEvent, frame.dist());
+                },
+                GroupedStats::merge
+        );
+    }
+
+    /**
+     * Adds the second list to the first.
+     *
+     * @param a The list added to.
+     * @param b The list whose elements are added.
+     * @return a, with the elements of b added.
+     */
+    private static List<Vec> concat(List<Vec> a, List<Vec> b) {
+        a.addAll(b);
+        return a;
+    }
+    
     /**
      * The longevity of the defects.
      * @param numBins The number of bins in the histogram.
@@ -24,6 +24,7 @@ public class ChargeTracker {
      * @param dm The name of the experiment. 
      */
     public ChargeTracker(DefectManager dm) {
+        this.dm = dm;
 //        graphChargeOfTime();
 //        graphCumulativeCharge();
 //        graphRatioOfTime();
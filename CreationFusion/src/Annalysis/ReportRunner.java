@@ -0,0 +1,156 @@
+package Annalysis;
+
+import Charts.ChartOutput;
+import defectManagement.DefectManager;
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import main.DefaultData;
+
+/**
+ * Runs a set of analyses of a DefectManager at once and writes every chart
+ * they make to files in a folder, with no display needed. Each analysis runs
+ * on its own thread, and renders its charts as it makes them.
+ *
+ * An analysis that fails is reported, and the others carry on.
+ *
+ * @author E. Dov Neimand
+ */
+public class ReportRunner {
+
+    private final DefectManager dm;
+    private final File folder;
+    private ChartOutput.Format format = ChartOutput.Format.PNG;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private final Map<String, Consumer<DefectManager>> analyses = new LinkedHashMap<>();
+
+    /**
+     * The constructor.
+     *
+     * @param dm The defects to be analyzed.
+     * @param folder The folder the charts are written to.
+     */
+    public ReportRunner(DefectManager dm, File folder) {
+        this.dm = dm;
+        this.folder = folder;
+    }
+
+    /**
+     * Sets the file format of the charts.
+     *
+     * @param format The file format of the charts.
+     * @return this
+     */
+    public ReportRunner setFormat(ChartOutput.Format format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * Sets the number of analyses run at once.
+     *
+     * @param threads The number of analyses run at once.
+     * @return this
+     */
+    public ReportRunner setThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Adds an analysis to the report.
+     *
+     * @param name The name of the analysis.
+     * @param analysis Makes charts from the defects.
+     * @return this
+     */
+    public ReportRunner add(String name, Consumer<DefectManager> analysis) {
+        analyses.put(name, analysis);
+        return this;
+    }
+
+    /**
+     * Adds the analyses of BirthAndDeathTracker and ChargeTracker, with the
+     * settings they're usually run with.
+     *
+     * @return this
+     */
+    public ReportRunner addStandard() {
+        for (boolean event : new boolean[]{DefectManager.BIRTH, DefectManager.DEATH}) {
+            String name = event == DefectManager.BIRTH ? "creation" : "annihilation";
+            add("angle near " + name, dm -> new BirthAndDeathTracker(dm).angleNearEvent(event, 60));
+            add("phase near " + name, dm -> new BirthAndDeathTracker(dm).phaseNearFusion(event));
+            add("speed at angle near " + name, dm -> new BirthAndDeathTracker(dm).speedFunctionOfAngle(event));
+        }
+        return add("number of defects", dm -> new BirthAndDeathTracker(dm).numberOfDefects())
+                .add("distance of frame", dm -> new BirthAndDeathTracker(dm).distanceOfFrame(50, 5))
+                .add("longevity", dm -> new BirthAndDeathTracker(dm).longevity(50, 1, null))
+                .add("tail angles at annihilation", dm -> new BirthAndDeathTracker(dm).negTailAngleAtDeath(50))
+                .add("charge", dm -> new ChargeTracker(dm).graphChargeOfTime())
+                .add("charge ratio", dm -> new ChargeTracker(dm).graphRatioOfTime());
+    }
+
+    /**
+     * Runs every analysis and waits for them to finish. While the report is
+     * running, all charts, including those of other threads, go to the
+     * report's folder. Afterwards they go wherever they went before.
+     *
+     * @return The analyses that failed, by name, with what went wrong.
+     */
+    public Map<String, Throwable> run() {
+        File before = ChartOutput.getFolder();
+        ChartOutput.Format beforeFormat = ChartOutput.getFormat();
+        ChartOutput.toFolder(folder, format);
+
+        Map<String, Throwable> failures = new ConcurrentHashMap<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            Map<String, Future<?>> running = new LinkedHashMap<>();
+            analyses.forEach((name, analysis) -> running.put(name, pool.submit(() -> {
+                long start = System.nanoTime();
+                analysis.accept(dm);
+                Logger.getLogger(ReportRunner.class.getName()).log(Level.FINE, "{0} done in {1} seconds.",
+                        new Object[]{name, (System.nanoTime() - start) / 1e9});
+            })));
+
+            running.forEach((name, future) -> {
+                try {
+                    future.get();
+                } catch (Exception ex) {
+                    Logger.getLogger(ReportRunner.class.getName()).log(Level.SEVERE, name, ex);
+                    failures.put(name, ex.getCause() == null ? ex : ex.getCause());
+                }
+            });
+        } finally {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException ex) {
+                Logger.getLogger(ReportRunner.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            if (before == null) ChartOutput.toScreen();
+            else ChartOutput.toFolder(before, beforeFormat);
+        }
+
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public static void main(String[] args) {
+        DefectManager dm = DefaultData.cells_14_15_19();
+
+        Map<String, Throwable> failures = new ReportRunner(dm, new File("images" + File.separator + "report" + File.separator + dm.getName()))
+                .addStandard()
+                .run();
+
+        failures.forEach((name, ex) -> System.out.println(name + " failed: " + ex));
+    }
+}
@@ -51,6 +51,10 @@ public class BarChart extends ApplicationFrame {
         categories.forEach(cat -> dcds.addValue(cat.getValue(),"", cat.getKey()));
         
         
+        if (ChartOutput.toFiles()) {
+            ChartOutput.write(createChart(dcds, title, xAxisLabel, yAxisLabel), title);
+            return;
+        }
         BarChart barChart = new BarChart(title, xAxisLabel, yAxisLabel, dcds);
         barChart.pack();
         RefineryUtilities.centerFrameOnScreen(barChart);
@@ -72,7 +76,7 @@ public class BarChart extends ApplicationFrame {
     
 
     /**
-     * Creates a bar chart.
+     * Creates a bar chart, without putting it anywhere.
      *
      * @param dataset           the dataset.
      * @param title             the chart title.
@@ -80,7 +84,7 @@ public class BarChart extends ApplicationFrame {
      * @param valueAxisLabel    the label for the value axis.
      * @return the bar chart.
      */
-    private JFreeChart createChart(DefaultCategoryDataset dataset, String title, String categoryAxisLabel, String valueAxisLabel) {
+    public static JFreeChart createChart(DefaultCategoryDataset dataset, String title, String categoryAxisLabel, String valueAxisLabel) {
         JFreeChart chart = ChartFactory.createBarChart(
                 title,
                 categoryAxisLabel,
@@ -0,0 +1,189 @@
+package Charts;
+
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jfree.chart.ChartUtilities;
+import org.jfree.chart.JFreeChart;
+import org.jfree.data.xy.IntervalXYDataset;
+import org.jfree.data.xy.XYDataset;
+import org.jfree.graphics2d.svg.SVGGraphics2D;
+import org.jfree.graphics2d.svg.SVGUtils;
+
+/**
+ * Where the factories in this package put their charts: on the screen, or in
+ * files in a folder. Without a display, charts go to images/charts by default.
+ *
+ * Each chart is written to its own file, named by a running count and its
+ * title, so charts may be written from many threads at once.
+ *
+ * @author E. Dov Neimand
+ */
+public class ChartOutput {
+
+    /**
+     * The file formats charts can be written in.
+     */
+    public enum Format {
+        PNG, SVG
+    }
+
+    private static File folder = GraphicsEnvironment.isHeadless() ? new File("images" + File.separator + "charts") : null;
+    private static Format format = Format.PNG;
+    private static int width = 800, height = 600;
+    private static final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * Sends charts to files in a folder instead of the screen.
+     *
+     * @param folder The folder the charts are written to.
+     * @param format The file format of the charts.
+     */
+    public static synchronized void toFolder(File folder, Format format) {
+        folder.mkdirs();
+        ChartOutput.folder = folder;
+        ChartOutput.format = format;
+    }
+
+    /**
+     * Sends charts to the screen.
+     */
+    public static synchronized void toScreen() {
+        folder = null;
+    }
+
+    /**
+     * Sets the size of the charts written to files.
+     *
+     * @param width The width of the charts.
+     * @param height The height of the charts.
+     */
+    public static synchronized void setSize(int width, int height) {
+        ChartOutput.width = width;
+        ChartOutput.height = height;
+    }
+
+    /**
+     * Are charts being written to files?
+     *
+     * @return True if charts go to files, false if they go to the screen.
+     */
+    public static synchronized boolean toFiles() {
+        return folder != null;
+    }
+
+    /**
+     * The folder charts are written to.
+     *
+     * @return The folder charts are written to, or null if they go to the
+     * screen.
+     */
+    public static synchronized File getFolder() {
+        return folder;
+    }
+
+    /**
+     * The file format charts are written in.
+     *
+     * @return The file format charts are written in.
+     */
+    public static synchronized Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Writes a chart to a new file in the folder.
+     *
+     * @param chart The chart.
+     * @param title The title of the chart, used to name the file.
+     * @return The file the chart was written to.
+     */
+    public static File write(JFreeChart chart, String title) {
+        File file;
+        Format f;
+        int w, h;
+        synchronized (ChartOutput.class) {
+            folder.mkdirs();
+            String name = title.replaceAll("[^A-Za-z0-9._-]+", "_");
+            if (name.length() > 100) name = name.substring(0, 100);
+            file = new File(folder, String.format("%03d_%s.%s", count.getAndIncrement(), name, format.name().toLowerCase()));
+            f = format;
+            w = width;
+            h = height;
+        }
+        write(chart, file, f, w, h);
+        return file;
+    }
+
+    /**
+     * Writes a chart to a new file in the folder, and the full data it was
+     * drawn from beside it as a CSV file, for charts that only draw a summary
+     * of their data.
+     *
+     * @param chart The chart.
+     * @param title The title of the chart, used to name the files.
+     * @param data The full data.
+     * @return The file the chart was written to.
+     */
+    public static File write(JFreeChart chart, String title, XYDataset... data) {
+        File file = write(chart, title);
+        String name = file.getName();
+        writeData(new File(file.getParentFile(), name.substring(0, name.lastIndexOf('.')) + ".csv"), data);
+        return file;
+    }
+
+    /**
+     * Writes data as a CSV file, with a row for each point: the series, x and
+     * y, and for intervals, the low and high y.
+     *
+     * @param file The file.
+     * @param data The data.
+     */
+    public static void writeData(File file, XYDataset... data) {
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+            out.println("series,x,y,yLow,yHigh");
+            for (XYDataset set : data)
+                for (int s = 0; s < set.getSeriesCount(); s++)
+                    for (int i = 0; i < set.getItemCount(s); i++) {
+                        out.print(set.getSeriesKey(s) + "," + set.getXValue(s, i) + "," + set.getYValue(s, i));
+                        if (set instanceof IntervalXYDataset)
+                            out.print("," + ((IntervalXYDataset) set).getStartYValue(s, i) + "," + ((IntervalXYDataset) set).getEndYValue(s, i));
+                        else out.print(",,");
+                        out.println();
+                    }
+        } catch (IOException ex) {
+            Logger.getLogger(ChartOutput.class.getName()).log(Level.SEVERE, null, ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Writes a chart to a file.
+     *
+     * @param chart The chart.
+     * @param file The file.
+     * @param format The file format.
+     * @param width The width of the chart.
+     * @param height The height of the chart.
+     */
+    public static void write(JFreeChart chart, File file, Format format, int width, int height) {
+        try {
+            if (format == Format.PNG) ChartUtilities.saveChartAsPNG(file, chart, width, height);
+            else {
+                SVGGraphics2D g2 = new SVGGraphics2D(width, height);
+                chart.draw(g2, new Rectangle(width, height));
+                SVGUtils.writeToSVG(file, g2.getSVGElement());
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(ChartOutput.class.getName()).log(Level.SEVERE, null, ex);
+            throw new RuntimeException(ex);
+        }
+    }
+}
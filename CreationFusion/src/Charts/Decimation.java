@@ -0,0 +1,108 @@
+package Charts;
+
+import java.util.Arrays;
+import org.jfree.data.xy.IntervalXYDataset;
+import org.jfree.data.xy.YIntervalSeries;
+import org.jfree.data.xy.YIntervalSeriesCollection;
+
+/**
+ * Thins a line to a number of points it can be drawn with at screen
+ * resolution, with Largest-Triangle-Three-Buckets. The first and last points
+ * are kept, the points between are split into buckets, and from each bucket
+ * the point kept is the one that makes the largest triangle with the point
+ * kept from the bucket before and the average of the bucket after. Peaks and
+ * troughs survive, where taking every nth point would lose them.
+ *
+ * @author E. Dov Neimand
+ */
+public class Decimation {
+
+    /**
+     * The indices of the points kept by Largest-Triangle-Three-Buckets. The
+     * points should be in order of x.
+     *
+     * @param x The x values.
+     * @param y The y values.
+     * @param threshold The number of points kept, at least 3.
+     * @return The indices of the points kept, in increasing order. If there
+     * are no more points than the threshold, all of them.
+     */
+    public static int[] lttb(double[] x, double[] y, int threshold) {
+        int n = x.length;
+        if (threshold >= n || threshold < 3) {
+            int[] all = new int[n];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+
+        int[] kept = new int[threshold];
+        double bucketSize = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        kept[0] = 0;
+
+        for (int b = 0; b < threshold - 2; b++) {
+            int start = (int) Math.floor(b * bucketSize) + 1,
+                    end = (int) Math.floor((b + 1) * bucketSize) + 1,
+                    nextStart = end,
+                    nextEnd = Math.min((int) Math.floor((b + 2) * bucketSize) + 1, n);
+
+            double avgX = 0, avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += x[i];
+                avgY += y[i];
+            }
+            avgX /= nextEnd - nextStart;
+            avgY /= nextEnd - nextStart;
+
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((x[a] - avgX) * (y[i] - y[a]) - (x[a] - x[i]) * (avgY - y[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            kept[b + 1] = a = chosen;
+        }
+
+        kept[threshold - 1] = n - 1;
+        return kept;
+    }
+
+    /**
+     * Thins every series of a dataset of intervals, choosing the points by
+     * their y values and keeping the intervals of those chosen.
+     *
+     * @param data The dataset.
+     * @param threshold The greatest number of points kept in each series.
+     * @return The thinned dataset.
+     */
+    public static YIntervalSeriesCollection lttb(IntervalXYDataset data, int threshold) {
+        YIntervalSeriesCollection thinned = new YIntervalSeriesCollection();
+        for (int s = 0; s < data.getSeriesCount(); s++) {
+            int n = data.getItemCount(s), series = s;
+            double[] x = new double[n], y = new double[n];
+            Arrays.setAll(x, i -> data.getXValue(series, i));
+            Arrays.setAll(y, i -> data.getYValue(series, i));
+
+            YIntervalSeries kept = new YIntervalSeries(data.getSeriesKey(s), false, true);
+            for (int i : lttb(x, y, threshold))
+                kept.add(x[i], y[i], data.getStartYValue(s, i), data.getEndYValue(s, i));
+            thinned.addSeries(kept);
+        }
+        return thinned;
+    }
+
+    /**
+     * The largest number of points in a series of a dataset.
+     *
+     * @param data The dataset.
+     * @return The largest number of points in a series.
+     */
+    public static int longestSeries(IntervalXYDataset data) {
+        int longest = 0;
+        for (int s = 0; s < data.getSeriesCount(); s++) longest = Math.max(longest, data.getItemCount(s));
+        return longest;
+    }
+}
@@ -0,0 +1,238 @@
+package Charts;
+
+import GeometricTools.Rectangle;
+import GeometricTools.Vec;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * The density of a set of points on a grid over a region.
+ *
+ * Each point is binned to its nearest grid point once, and the density at a
+ * grid point is then the number of bins within a disc around it, summed with
+ * row prefix sums, or the bins weighted by a Gaussian, summed one axis at a
+ * time. Both are linear in the number of grid points times the width of the
+ * kernel, and not in the number of points, and the rows are done in parallel.
+ * Since points are moved to their nearest grid point, distances are off by no
+ * more than half a grid spacing on each axis.
+ *
+ * An axis may be modular, in which case it runs from 0 to its modulus and
+ * the kernel wraps around it.
+ *
+ * @author E. Dov Neimand
+ */
+public class DensityGrid {
+
+    private final Rectangle region;
+    private final int xRes, yRes;
+    private final double dx, dy;
+    private final boolean xPeriodic, yPeriodic;
+    private final int[] col, row;
+
+    /**
+     * The constructor.
+     *
+     * @param region The region the grid covers. The grid points are at its
+     * lower left corner and then every width / xRes and height / yRes. On a
+     * modular axis, the region should run from 0 to the modulus.
+     * @param xRes The number of grid points across.
+     * @param yRes The number of grid points up.
+     * @param data The points.
+     * @param xMod The modulus of the x axis, or Double.NaN or infinity if it's
+     * not modular.
+     * @param yMod Like xMod, but for the y axis.
+     */
+    public DensityGrid(Rectangle region, int xRes, int yRes, List<Vec> data, double xMod, double yMod) {
+        this.region = region;
+        this.xRes = xRes;
+        this.yRes = yRes;
+        this.dx = region.width() / xRes;
+        this.dy = region.height() / yRes;
+        this.xPeriodic = Double.isFinite(xMod);
+        this.yPeriodic = Double.isFinite(yMod);
+
+        col = new int[data.size()];
+        row = new int[data.size()];
+        IntStream.range(0, data.size()).parallel().forEach(i -> {
+            Vec vec = data.get(i);
+            col[i] = (int) Math.round((vec.getX() - region.getX()) / dx);
+            row[i] = (int) Math.round((vec.getY() - region.getY()) / dy);
+            if (xPeriodic) col[i] = Math.floorMod(col[i], xRes);
+            if (yPeriodic) row[i] = Math.floorMod(row[i], yRes);
+        });
+    }
+
+    /**
+     * The number of points in each bin, with a margin of bins around the grid
+     * for the kernel to reach into. On a modular axis, the margin is the
+     * other side of the grid.
+     *
+     * @param xPad The width of the margin on the left and right.
+     * @param yPad The height of the margin above and below.
+     * @return The number of points in each bin, indexed by row and then
+     * column, offset by the margin.
+     */
+    private double[][] bins(int xPad, int yPad) {
+        int width = xRes + 2 * xPad, height = yRes + 2 * yPad;
+        double[][] bins = new double[height][width];
+
+        for (int i = 0; i < col.length; i++) {
+            int r = row[i] + yPad, c = col[i] + xPad;
+            if (r >= 0 && r < height && c >= 0 && c < width) bins[r][c]++;
+        }
+
+        if (xPeriodic || yPeriodic) wrap(bins, xPad, yPad);
+
+        return bins;
+    }
+
+    /**
+     * Copies bins into the margins of the modular axes, from the other side
+     * of the grid.
+     *
+     * @param bins The bins, filled inside the grid.
+     * @param xPad The width of the margin on the left and right.
+     * @param yPad The height of the margin above and below.
+     */
+    private void wrap(double[][] bins, int xPad, int yPad) {
+        if (xPeriodic)
+            for (double[] line : bins)
+                for (int c = 0; c < line.length; c++)
+                    if (c < xPad || c >= xPad + xRes) line[c] = line[xPad + Math.floorMod(c - xPad, xRes)];
+        if (yPeriodic)
+            for (int r = 0; r < bins.length; r++)
+                if (r < yPad || r >= yPad + yRes) bins[r] = bins[yPad + Math.floorMod(r - yPad, yRes)].clone();
+    }
+
+    /**
+     * The offsets a kernel of a given reach covers on an axis. On a modular
+     * axis, no more offsets than there are grid points are covered, so that
+     * no point is counted twice.
+     *
+     * @param reach The number of grid points on each side.
+     * @param res The number of grid points on the axis.
+     * @param periodic True if the axis is modular.
+     * @return The first and last offset.
+     */
+    private static int[] offsets(int reach, int res, boolean periodic) {
+        if (periodic && 2 * reach + 1 > res) return new int[]{-res / 2, res - 1 - res / 2};
+        return new int[]{-reach, reach};
+    }
+
+    /**
+     * The number of points within a radius of each grid point.
+     *
+     * @param r The radius.
+     * @return The number of points within the radius of each grid point,
+     * indexed by row and then column.
+     */
+    public double[][] disc(double r) {
+        int yReach = (int) Math.ceil(r / dy) - 1, xReach = (int) Math.ceil(r / dx);
+        double[][] bins = bins(xReach, yReach);
+        int[] rows = offsets(yReach, yRes, yPeriodic);
+
+        int[] first = new int[rows[1] - rows[0] + 1], width = new int[first.length];
+        for (int k = rows[0]; k <= rows[1]; k++) {
+            int h = (int) Math.ceil(Math.sqrt(r * r - k * dy * k * dy) / dx) - 1;
+            int[] cols = offsets(h, xRes, xPeriodic);
+            first[k - rows[0]] = cols[0];
+            width[k - rows[0]] = cols[1] - cols[0] + 1;
+        }
+
+        double[][] prefix = new double[bins.length][];
+        IntStream.range(0, bins.length).parallel().forEach(i -> {
+            prefix[i] = new double[bins[i].length + 1];
+            for (int c = 0; c < bins[i].length; c++) prefix[i][c + 1] = prefix[i][c] + bins[i][c];
+        });
+
+        double[][] z = new double[yRes][xRes];
+        IntStream.range(0, yRes).parallel().forEach(i -> {
+            for (int k = rows[0]; k <= rows[1]; k++) {
+                double[] line = prefix[i + yReach + k];
+                int from = xReach + first[k - rows[0]], to = from + width[k - rows[0]];
+                for (int c = 0; c < xRes; c++) z[i][c] += line[c + to] - line[c + from];
+            }
+        });
+        return z;
+    }
+
+    /**
+     * The points weighted by a Gaussian of their distance from each grid
+     * point, so that a point on the grid point counts once. The Gaussian is
+     * cut off at 3 standard deviations.
+     *
+     * @param sigma The standard deviation of the Gaussian.
+     * @return The weighted number of points near each grid point, indexed by
+     * row and then column.
+     */
+    public double[][] gaussian(double sigma) {
+        int xReach = (int) Math.ceil(3 * sigma / dx), yReach = (int) Math.ceil(3 * sigma / dy);
+        double[][] bins = bins(xReach, yReach);
+        int[] cols = offsets(xReach, xRes, xPeriodic), rows = offsets(yReach, yRes, yPeriodic);
+
+        double[] xWeights = weights(sigma, dx, xReach), yWeights = weights(sigma, dy, yReach);
+
+        double[][] across = new double[bins.length][xRes];
+        IntStream.range(0, bins.length).parallel().forEach(i -> {
+            for (int c = 0; c < xRes; c++)
+                for (int k = cols[0]; k <= cols[1]; k++)
+                    across[i][c] += xWeights[k + xReach] * bins[i][c + xReach + k];
+        });
+
+        double[][] z = new double[yRes][xRes];
+        IntStream.range(0, yRes).parallel().forEach(i -> {
+            for (int k = rows[0]; k <= rows[1]; k++) {
+                double w = yWeights[k + yReach];
+                double[] line = across[i + yReach + k];
+                for (int c = 0; c < xRes; c++) z[i][c] += w * line[c];
+            }
+        });
+        return z;
+    }
+
+    /**
+     * The weights of a Gaussian along one axis.
+     *
+     * @param sigma The standard deviation.
+     * @param spacing The distance between grid points on the axis.
+     * @param reach The number of grid points on each side.
+     * @return The weight of each offset from -reach to reach.
+     */
+    private static double[] weights(double sigma, double spacing, int reach) {
+        double[] weights = new double[2 * reach + 1];
+        Arrays.setAll(weights, k -> Math.exp(-Math.pow((k - reach) * spacing, 2) / (2 * sigma * sigma)));
+        return weights;
+    }
+
+    /**
+     * A density laid out as the x, y and z arrays of a DefaultXYZDataset
+     * series, one row of the grid after another.
+     *
+     * @param z The density, indexed by row and then column.
+     * @return The x values, y values, and densities of the grid points.
+     */
+    public double[][] toXYZ(double[][] z) {
+        double[] xs = new double[xRes * yRes], ys = new double[xRes * yRes], zs = new double[xRes * yRes];
+        IntStream.range(0, yRes).parallel().forEach(i -> {
+            for (int c = 0; c < xRes; c++) {
+                xs[i * xRes + c] = region.getX() + c * dx;
+                ys[i * xRes + c] = region.getY() + i * dy;
+                zs[i * xRes + c] = z[i][c];
+            }
+        });
+        return new double[][]{xs, ys, zs};
+    }
+
+    public static void main(String[] args) {
+        List<Vec> data = IntStream.range(0, 1_000_000)
+                .mapToObj(i -> new Vec(ThreadLocalRandom.current().nextGaussian() + 5, ThreadLocalRandom.current().nextDouble() * 2 * Math.PI))
+                .toList();
+
+        long start = System.nanoTime();
+        DensityGrid grid = new DensityGrid(new Rectangle(0, 0, 10, 2 * Math.PI, 0), 1000, 1000, data, Double.NaN, 2 * Math.PI);
+        double[][] z = grid.disc(0.1);
+        System.out.println("A million points on a 1000 by 1000 grid in " + (System.nanoTime() - start) / 1e9 + " seconds.  Peak " + Arrays.stream(z).flatMapToDouble(Arrays::stream).max().getAsDouble());
+    }
+}
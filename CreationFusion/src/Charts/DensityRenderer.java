@@ -0,0 +1,82 @@
+package Charts;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.plot.CrosshairState;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.PlotRenderingInfo;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.AbstractXYItemRenderer;
+import org.jfree.chart.renderer.xy.XYItemRendererState;
+import org.jfree.data.xy.XYDataset;
+import org.jfree.ui.RectangleEdge;
+
+/**
+ * Draws each series of a scatter plot as an image of how many points fall on
+ * each pixel, instead of a shape for each point. The image is made anew each
+ * time the chart is drawn, at the size of the data area, so it stays sharp
+ * when the chart is zoomed. Darker pixels have more points, on a log scale.
+ *
+ * No chart entity is made for the points, so a series of any size draws in
+ * about the time it takes to count its points. The dataset itself is
+ * untouched, so the axes and anything that exports the data see all of it.
+ *
+ * @author E. Dov Neimand
+ */
+public class DensityRenderer extends AbstractXYItemRenderer {
+
+    private static final long serialVersionUID = 6800839111696896414L;
+
+    @Override
+    public XYItemRendererState initialise(Graphics2D g2, Rectangle2D dataArea, XYPlot plot, XYDataset dataset, PlotRenderingInfo info) {
+        XYItemRendererState state = super.initialise(g2, dataArea, plot, dataset, info);
+        state.setProcessVisibleItemsOnly(false);
+        return state;
+    }
+
+    /**
+     * Draws the image of a whole series when called for its first item, and
+     * does nothing for the other items.
+     */
+    @Override
+    public void drawItem(Graphics2D g2, XYItemRendererState state, Rectangle2D dataArea, PlotRenderingInfo info, XYPlot plot, ValueAxis domainAxis, ValueAxis rangeAxis, XYDataset dataset, int series, int item, CrosshairState crosshairState, int pass) {
+        if (item != 0 || !isSeriesVisible(series)) return;
+
+        int width = (int) Math.ceil(dataArea.getWidth()), height = (int) Math.ceil(dataArea.getHeight());
+        if (width <= 0 || height <= 0) return;
+
+        boolean vertical = plot.getOrientation() == PlotOrientation.VERTICAL;
+        RectangleEdge xEdge = plot.getDomainAxisEdge(), yEdge = plot.getRangeAxisEdge();
+
+        int[] counts = new int[width * height];
+        int max = 0;
+        for (int i = 0; i < dataset.getItemCount(series); i++) {
+            double x = domainAxis.valueToJava2D(dataset.getXValue(series, i), dataArea, xEdge),
+                    y = rangeAxis.valueToJava2D(dataset.getYValue(series, i), dataArea, yEdge);
+            int col = (int) ((vertical ? x : y) - dataArea.getX()),
+                    row = (int) ((vertical ? y : x) - dataArea.getY());
+            if (col < 0 || col >= width || row < 0 || row >= height) continue;
+            max = Math.max(max, ++counts[row * width + col]);
+        }
+        if (max == 0) return;
+
+        Paint paint = lookupSeriesPaint(series);
+        int rgb = (paint instanceof Color ? (Color) paint : Color.BLACK).getRGB() & 0xFFFFFF;
+        double logMax = Math.log1p(max);
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = new int[counts.length];
+        for (int p = 0; p < counts.length; p++)
+            if (counts[p] > 0) {
+                int alpha = 64 + (int) (191 * Math.log1p(counts[p]) / logMax);
+                pixels[p] = alpha << 24 | rgb;
+            }
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+
+        g2.drawImage(image, (int) dataArea.getX(), (int) dataArea.getY(), null);
+    }
+}
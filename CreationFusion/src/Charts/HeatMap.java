@@ -17,7 +17,6 @@ import java.awt.*;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.DoubleStream;
-import java.util.stream.IntStream;
 
 /**
  * A class for generating and displaying heat map charts.
@@ -39,6 +38,22 @@ public class HeatMap extends ApplicationFrame {
 public HeatMap(String title, String xAxisLabel, String yAxisLabel, List<Vec> data, double radius, int res, double xMod, double yMod) {
     super(title);
 
+    setContentPane(new ChartPanel(chart(xAxisLabel, yAxisLabel, data, radius, res, xMod, yMod)));
+}
+
+    /**
+ * Creates the heat map chart, without putting it anywhere.
+ *
+ * @param xAxisLabel the label for the x-axis.
+ * @param yAxisLabel the label for the y-axis.
+ * @param data      the list of data points.
+ * @param radius    the size of each grid cell.
+ * @param res       The square root of the number of pixels.
+ * @param xMod      A value if the x axis is modular, and Double.NaN if it's not.
+ * @param yMod      Like xMod, but for the y axis.
+ * @return The chart.
+ */
+public static JFreeChart chart(String xAxisLabel, String yAxisLabel, List<Vec> data, double radius, int res, double xMod, double yMod) {
     DefaultXYZDataset dataSet = new DefaultXYZDataset();
 
     double[][] values = heatField(region(data, xMod, yMod), res, res, data, radius, xMod, yMod);
@@ -65,13 +80,11 @@ public HeatMap(String title, String xAxisLabel, String yAxisLabel, List<Vec> dat
     JFreeChart chart = new JFreeChart(plot);
     chart.addSubtitle(createPaintScaleLegend(paintScale));
 
-    ChartPanel cp = new ChartPanel(chart);
-
     XYBlockRenderer blocks = colorAssigner;
     blocks.setBlockWidth(0.5 / res);
     blocks.setBlockHeight(0.5 / res);
 
-    setContentPane(cp);
+    return chart;
 }
 
 
@@ -159,7 +172,9 @@ private static LookupPaintScale createPaintScale(double[] zValues) {
     }
 
     /**
-     * Constructs a heat field. The number of points is xRes * yRes.
+     * Constructs a heat field. The number of points is xRes * yRes. The data
+     * is binned into a DensityGrid, so the time taken grows with the number of
+     * grid points and not with the number of data.
      *
      * @param region The region.
      * @param xRes   The x resolution. Big number is higher resolution.
@@ -172,24 +187,8 @@ private static LookupPaintScale createPaintScale(double[] zValues) {
      * @return The heat field.
      */
     private static double[][] heatField(GeometricTools.Rectangle region, int xRes, int yRes, List<Vec> data, double r, double xMod, double yMod) {
-
-        double dx = region.width() / xRes;
-        double dy = region.height() / yRes;
-
-        double x[] = new double[xRes * yRes];
-        double y[] = new double[xRes * yRes];
-        double z[] = new double[xRes * yRes];
-
-        IntStream.range(0, xRes * yRes).parallel().forEach(i -> {
-
-            x[i] = region.getX() + (i % xRes) * dx;
-            y[i] = region.getY() + (i / yRes) * dy;
-            z[i] = data.stream()
-                    .filter(vec -> new Vec(x[i], y[i]).dist(vec, xMod, yMod) < r)
-                    .count();
-        });
-
-        return new double[][]{x, y, z};
+        DensityGrid grid = new DensityGrid(region, xRes, yRes, data, xMod, yMod);
+        return grid.toXYZ(grid.disc(r));
     }
 
     /**
@@ -219,6 +218,10 @@ private static LookupPaintScale createPaintScale(double[] zValues) {
      * @param yMod       The modularity of the y axis.
      */
     public static void factory(String title, String xAxisLabel, String yAxisLabel, List<Vec> data, int res, double r, double xMod, double yMod) {
+        if (ChartOutput.toFiles()) {
+            ChartOutput.write(chart(xAxisLabel, yAxisLabel, data, r, res, xMod, yMod), title);
+            return;
+        }
         HeatMap hm = new HeatMap(title, xAxisLabel, yAxisLabel, data, r, res, xMod, yMod);
         hm.pack();
         hm.setVisible(true);
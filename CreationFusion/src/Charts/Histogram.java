@@ -30,6 +30,26 @@ public class Histogram extends JFrame {
     public Histogram(String title, double[] data, String xAxisTitle, int numBins, DoubleUnaryOperator overlay) {
         super(title);
 
+        // Display the chart in a panel
+        ChartPanel chartPanel = new ChartPanel(chart(title, data, xAxisTitle, numBins, overlay));
+        chartPanel.setPreferredSize(new java.awt.Dimension(800, 600));
+        setContentPane(chartPanel);
+        
+        setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+
+    }
+
+    /**
+     * Creates a histogram chart, without putting it anywhere.
+     * @param title The title of the chart.
+     * @param data The array of values for which the histogram is to be generated.
+     * @param xAxisTitle The title for the x-axis.
+     * @param numBins The number of bins (segments) in the histogram.
+     * @param overlay A function to be drawn on top of the histogram.
+     * @return The chart.
+     */
+    public static JFreeChart chart(String title, double[] data, String xAxisTitle, int numBins, DoubleUnaryOperator overlay) {
+
         // Create a dataset for the histogram
         HistogramDataset dataset = new HistogramDataset();
         dataset.addSeries(title, data, numBins);
@@ -54,13 +74,7 @@ public class Histogram extends JFrame {
                 numBins*2
             );
 
-        // Display the chart in a panel
-        ChartPanel chartPanel = new ChartPanel(chart);
-        chartPanel.setPreferredSize(new java.awt.Dimension(800, 600));
-        setContentPane(chartPanel);
-        
-        setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
-
+        return chart;
     }
     
     /**
@@ -70,7 +84,7 @@ public class Histogram extends JFrame {
      * @param overlay The function to be drawn on top of the histogram.
      * @param steps The number of steps of the overlay function.
      */
-    private void overlayFunction(JFreeChart chart, double min, double max, DoubleUnaryOperator overlay, int increments) {
+    private static void overlayFunction(JFreeChart chart, double min, double max, DoubleUnaryOperator overlay, int increments) {
         XYSeries series = new XYSeries("Overlay");
 
         double step = (double)(max - min)/ increments;        
@@ -103,6 +117,10 @@ public class Histogram extends JFrame {
      * @param overlay A function that overlays the chart.
      */
     public static void factory(double[] data, int numBins, String title, String xAxis, DoubleUnaryOperator overlay){
+        if (ChartOutput.toFiles()) {
+            ChartOutput.write(chart(title, data, xAxis, numBins, overlay), title);
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
             Histogram histogram = new Histogram(title, data, xAxis, numBins, overlay);
             histogram.setSize(600, 400);
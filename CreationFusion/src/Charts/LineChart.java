@@ -1,14 +1,8 @@
 package Charts;
 
-import GeometricTools.Vec;
-import dataTools.StdDev;
+import dataTools.GroupedStats;
 import java.awt.BasicStroke;
 import java.awt.Color;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.stream.DoubleStream;
 import javax.swing.JPanel;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
@@ -17,6 +11,7 @@ import org.jfree.chart.axis.NumberAxis;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.plot.XYPlot;
 import org.jfree.chart.renderer.xy.DeviationRenderer;
+import org.jfree.data.xy.IntervalXYDataset;
 import org.jfree.data.xy.XYDataset;
 import org.jfree.data.xy.YIntervalSeries;
 import org.jfree.data.xy.YIntervalSeriesCollection;
@@ -27,6 +22,10 @@ import org.jfree.ui.RefineryUtilities;
 
 public class LineChart extends ApplicationFrame {
 
+    private static int screenPoints = 800;
+
+    private final transient XYDataset data;
+
     /**
      * Creates a new demo.
      *
@@ -37,6 +36,7 @@ public class LineChart extends ApplicationFrame {
      */
     public LineChart(String title, String xAxis, String yAxis, XYDataset dataSet) {
         super("Plot");
+        this.data = dataSet;
         JPanel chartPanel = new ChartPanel(createChart(title, xAxis, yAxis, dataSet));
         chartPanel.setPreferredSize(new java.awt.Dimension(800, 600));
         setContentPane(chartPanel);
@@ -44,17 +44,51 @@ public class LineChart extends ApplicationFrame {
 
 
     /**
-     * Creates a chart.
+     * The full data of the chart, even if fewer points were drawn.
+     *
+     * @return The full data of the chart.
+     */
+    public XYDataset getData() {
+        return data;
+    }
+
+    /**
+     * Sets the most points a series is drawn with. Longer series are thinned
+     * to this many with Largest-Triangle-Three-Buckets.
+     *
+     * @param points The most points a series is drawn with, about the width
+     * of the chart in pixels.
+     */
+    public static void setScreenPoints(int points) {
+        screenPoints = points;
+    }
+
+    /**
+     * Will the data be thinned before it's drawn?
+     *
+     * @param dataset The data.
+     * @return True if a series is too long to be drawn in full.
+     */
+    private static boolean thinned(XYDataset dataset) {
+        return dataset instanceof IntervalXYDataset && Decimation.longestSeries((IntervalXYDataset) dataset) > screenPoints;
+    }
+
+    /**
+     * Creates a chart, without putting it anywhere. Series longer than the
+     * screen points are thinned.
      *
+     * @param title The title of the chart.
+     * @param xAxName The name of the x axis.
+     * @param yAxName The name of the y axis.
      * @param dataset the data for the chart.
      * @return a chart.
      */
-    private static JFreeChart createChart(String title, String xAxName, String yAxName, XYDataset dataset) {
+    public static JFreeChart createChart(String title, String xAxName, String yAxName, XYDataset dataset) {
         JFreeChart chart = ChartFactory.createXYLineChart(
                 title,      // chart title
                 xAxName,                      // x axis label
                 yAxName,                      // y axis label
-                dataset,                  // data
+                thinned(dataset) ? Decimation.lttb((IntervalXYDataset) dataset, screenPoints) : dataset, // data
                 PlotOrientation.VERTICAL,
                 true,                     // include legend
                 true,                     // tooltips
@@ -100,6 +134,11 @@ public class LineChart extends ApplicationFrame {
      * @param data The data.
      */
     public static void factory(String title, String xAxis, String yAxis, XYDataset data){
+        if (ChartOutput.toFiles()) {
+            if (thinned(data)) ChartOutput.write(createChart(title, xAxis, yAxis, data), title, data);
+            else ChartOutput.write(createChart(title, xAxis, yAxis, data), title);
+            return;
+        }
         LineChart demo = new LineChart(title, xAxis, yAxis, data);
         demo.pack();
         RefineryUtilities.centerFrameOnScreen(demo);
@@ -136,43 +175,48 @@ public class LineChart extends ApplicationFrame {
     }
     
     /**
-     * Creates and displays a line chart.
+     * Creates and displays a line chart of the mean and standard deviation of
+     * y at each whole number x.
      * @param title The title of the chart.
      * @param xAxis The name of the x axis.
      * @param yAxis The name of the y axis.
      * @param data The data.
      */
     public static void factory(String title, String xAxis, String yAxis, NamedData... data){
-        YIntervalSeries[] series = new YIntervalSeries[data.length];
-        Arrays.setAll(series, i -> new YIntervalSeries(data[i].name));
-        
-        for(int i = 0; i < data.length; i++){
-            HashMap<Double, List<Double>> map = new HashMap<>(data[i].size());
-            data[i].forEach(datum -> {
-                if(!map.containsKey(datum.getX()))
-                    map.put(datum.getX(), new LinkedList<>());
-                map.get(datum.getX()).add(datum.getY());
-            });
-            final int j = i;
-            map.forEach((x, yList) -> {
-                StdDev stdDev = new StdDev() {
-                    @Override
-                    public DoubleStream data() {
-                        return yList.stream().mapToDouble(d ->d);
-                    }
-                };
-                double avgY = stdDev.getAverage(), dev = stdDev.compute();
-                series[j].add(x, avgY, avgY - dev, avgY + dev);
-            });
-            
-        }
-        
-        
+        factory(title, xAxis, yAxis, 1, data);
+    }
+
+    /**
+     * Creates and displays a line chart of the mean and standard deviation of
+     * y for x grouped into bins.
+     * @param title The title of the chart.
+     * @param xAxis The name of the x axis.
+     * @param yAxis The name of the y axis.
+     * @param binWidth The width of the bins x is grouped into.
+     * @param data The data.
+     */
+    public static void factory(String title, String xAxis, String yAxis, double binWidth, NamedData... data){
         YIntervalSeriesCollection dataSet = new YIntervalSeriesCollection();
-        Arrays.stream(series).forEach(s -> dataSet.addSeries(s));
-        
+        for (NamedData nd : data)
+            dataSet.addSeries(series(nd.name, nd.stream().parallel().collect(GroupedStats.collector(binWidth))));
+
         factory(title, xAxis, yAxis, dataSet);
     }
+
+    /**
+     * A series of the mean plus and minus the standard deviation of each bin.
+     * @param name The name of the series.
+     * @param stats The grouped data.
+     * @return The series.
+     */
+    public static YIntervalSeries series(String name, GroupedStats stats){
+        YIntervalSeries series = new YIntervalSeries(name);
+        for (int bin : stats.bins()) {
+            double avgY = stats.mean(bin), dev = stats.stdDev(bin);
+            series.add(stats.x(bin), avgY, avgY - dev, avgY + dev);
+        }
+        return series;
+    }
     
     
     
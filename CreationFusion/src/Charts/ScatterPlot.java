@@ -21,6 +21,10 @@ import org.jfree.ui.RefineryUtilities;
 
 public class ScatterPlot extends ApplicationFrame {
 
+    private static int densityThreshold = 20_000;
+
+    private final transient List<XYDataset> data;
+
     /**
      * Creates a new scatter plot.
      *
@@ -32,13 +36,48 @@ public class ScatterPlot extends ApplicationFrame {
      */
     public ScatterPlot(String title, String xAxis, String yAxis, List<XYDataset> data, List<Color> colors) {
         super(title);
+        this.data = data;
         JPanel chartPanel = new ChartPanel(createChart(title, xAxis, yAxis, data, colors));
         chartPanel.setPreferredSize(new java.awt.Dimension(800, 600));
         setContentPane(chartPanel);
     }
 
     /**
-     * Creates a scatter plot chart.
+     * The data of the plot.
+     *
+     * @return The data of the plot.
+     */
+    public List<XYDataset> getData() {
+        return data;
+    }
+
+    /**
+     * Sets the number of points above which each data set is drawn as a
+     * density image instead of a shape for each point.
+     *
+     * @param points The number of points, over all the data sets.
+     */
+    public static void setDensityThreshold(int points) {
+        densityThreshold = points;
+    }
+
+    /**
+     * Are there too many points to draw one at a time?
+     *
+     * @param datasets The data sets.
+     * @return True if the points are drawn as a density image.
+     */
+    private static boolean dense(List<XYDataset> datasets) {
+        long points = 0;
+        for (XYDataset set : datasets)
+            for (int s = 0; s < set.getSeriesCount(); s++) points += set.getItemCount(s);
+        return points > densityThreshold;
+    }
+
+    /**
+     * Creates a scatter plot chart, without putting it anywhere. If there are
+     * more points than the density threshold, each data set is drawn as an
+     * image of its density.
      *
      * @param title the chart title.
      * @param xAxisLabel the x axis label.
@@ -47,7 +86,7 @@ public class ScatterPlot extends ApplicationFrame {
      * @param colors the colors for each data set.
      * @return the scatter plot chart.
      */
-    private JFreeChart createChart(String title, String xAxisLabel, String yAxisLabel,
+    public static JFreeChart createChart(String title, String xAxisLabel, String yAxisLabel,
             List<XYDataset> datasets, List<Color> colors) {
         JFreeChart chart = ChartFactory.createScatterPlot(
                 title, // chart title
@@ -62,6 +101,16 @@ public class ScatterPlot extends ApplicationFrame {
 
         XYPlot plot = (XYPlot) chart.getPlot();
 
+        if (dense(datasets)) {
+            for (int i = 0; i < datasets.size(); i++) {
+                plot.setDataset(i, datasets.get(i));
+                DensityRenderer renderer = new DensityRenderer();
+                renderer.setSeriesPaint(0, colors.get(i));
+                plot.setRenderer(i, renderer);
+            }
+            return chart;
+        }
+
         for (int i = 0; i < datasets.size(); i++) {
             plot.setDataset(i, datasets.get(i));
             plot.setRenderer(i, new org.jfree.chart.renderer.xy.XYLineAndShapeRenderer(false, true));
@@ -86,6 +135,11 @@ public class ScatterPlot extends ApplicationFrame {
      * @param colors The colors for each data set.
      */
     public static void createAndShowScatterPlot(String title, String xAxis, String yAxis, List<XYDataset> data, List<Color> colors) {
+        if (ChartOutput.toFiles()) {
+            if (dense(data)) ChartOutput.write(createChart(title, xAxis, yAxis, data, colors), title, data.toArray(XYDataset[]::new));
+            else ChartOutput.write(createChart(title, xAxis, yAxis, data, colors), title);
+            return;
+        }
         ScatterPlot scatterPlot = new ScatterPlot(title, xAxis, yAxis, data, colors);
         scatterPlot.pack();
         RefineryUtilities.centerFrameOnScreen(scatterPlot);
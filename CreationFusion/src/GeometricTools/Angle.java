@@ -29,9 +29,21 @@ public class Angle {
      */
     protected Angle(double posOrNegRadians, double circ) {
         this.circ = circ;
-        if (posOrNegRadians >= circ) rad = posOrNegRadians % circ;
-        else if (posOrNegRadians < 0) rad = circ + posOrNegRadians % circ;
-        else rad = posOrNegRadians;
+        rad = place(posOrNegRadians, circ);
+    }
+
+    /**
+     * Places a value in radians between 0 and circ, the same way the
+     * constructor does, without creating an Angle.
+     *
+     * @param posOrNegRadians An angle that may be positive or negative.
+     * @param circ The circumference of the circle.
+     * @return The angle placed between 0 and circ.
+     */
+    public static double place(double posOrNegRadians, double circ) {
+        if (posOrNegRadians >= circ) return posOrNegRadians % circ;
+        else if (posOrNegRadians < 0) return circ + posOrNegRadians % circ;
+        else return posOrNegRadians;
     }
     
     /**
@@ -44,7 +44,7 @@ public class Interval {
      * @return true if x is in the line segment, false otherwise.
      */
     public boolean contains(double x, double epsilon) {
-        return min <= x && x <= max;
+        return min + epsilon <= x && x <= max - epsilon;
     }
 
     /**
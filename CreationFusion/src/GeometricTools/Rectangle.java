@@ -104,6 +104,24 @@ public class Rectangle {
         inside.forEach(vec -> expand(vec));
     }
     
+    /**
+     * A rectangle with the same borders as this one, but a different distance
+     * from the edge that's considered nearby.
+     * @param nearEdge A distance from the edge that's considered nearby.
+     * @return A rectangle with the same borders and the new near edge distance.
+     */
+    public Rectangle withNearEdge(double nearEdge){
+        return new Rectangle(nearEdge, xSeg, ySeg);
+    }
+    
+    /**
+     * The distance from the edge that's considered nearby.
+     * @return The distance from the edge that's considered nearby.
+     */
+    public double getNearEdge(){
+        return nearEdge;
+    }
+    
     /**
      * Does this rectangle contain the proffered point?
      * @param loc The point to check for membership in the rectangle.
@@ -3,7 +3,7 @@ package ImageWork;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.InputStreamReader;
-import java.awt.image.WritableRaster;
+import java.awt.image.Raster;
 import javax.imageio.ImageIO;
 import java.io.IOException;
 import java.util.Set;
@@ -53,6 +53,19 @@ public class CellPSegm {
 
     }
 
+    /**
+     * Segments a picture with a persistent segmentation worker and uploads the
+     * cells.
+     *
+     * @param worker A running segmentation worker.
+     * @param inputImagePath The path to the input image.
+     * @param tempSegmentedImageStorage The path to the output image.
+     * @return The cells in the picture.
+     */
+    public static Set<SnapCell> fromRaw(SegmentationWorker worker, String inputImagePath, String tempSegmentedImageStorage) {
+        return fromSegmented(worker.segment(new File(inputImagePath), new File(tempSegmentedImageStorage)).getPath());
+    }
+
     /**
      * Created individual cells from an image where each cell has it's own
      * unique color.
@@ -60,12 +73,13 @@ public class CellPSegm {
      * @param raster
      * @return A collection of cells
      */
-    private static Set<SnapCell> fromSegmentedImage(WritableRaster raster) {
-                
-        return Pixel.grid(raster.getWidth(), raster.getHeight())
-                .filter(vec -> SnapCell.color(raster, vec) != 0)
-                .map(vec -> new SnapCell(vec, SnapCell.color(raster, vec), raster))
-                .filter(cell -> cell.size() > min_num_cell_pixels)
+    private static Set<SnapCell> fromSegmentedImage(Raster raster) {
+
+        ConnectedComponents components = new ConnectedComponents(raster);
+
+        return components.labels(label -> components.size(label) > min_num_cell_pixels)
+                .parallel()
+                .mapToObj(label -> new SnapCell(components, label))
                 .collect(Collectors.toSet());
     }
 
@@ -107,6 +121,7 @@ public class CellPSegm {
 
     public static final String pythonLoc = "/home/edov/miniconda3/envs/cellpose/bin/python",
             pythonScriptPath = "../Vision/cellpose_segment.py",
+            workerScriptPath = "../Vision/cellpose_worker.py",
             inputImagePath = "../../VictorData/HBEC/s2(120-919)/Trans__042.tif",
             tempSegmentedStorage = "images/output/segmented.png";    
     
@@ -118,6 +133,16 @@ public class CellPSegm {
     public static Set<SnapCell> defaultFromRaw(String cellPicturePath){
         return fromRaw(pythonLoc, pythonScriptPath, cellPicturePath, tempSegmentedStorage);
     }
+
+    /**
+     * Starts a persistent cellpose worker with the default values. Close it
+     * when done.
+     *
+     * @return A persistent cellpose worker.
+     */
+    public static SegmentationWorker defaultWorker() {
+        return new SegmentationWorker(pythonLoc, workerScriptPath);
+    }
     
     
 }
@@ -0,0 +1,247 @@
+package ImageWork;
+
+import GeometricTools.NematicDirector;
+import GeometricTools.Vec;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import nematics.FixedAnchor;
+import nematics.NematicFieldAnchor;
+
+/**
+ * The cells of every frame of a time lapse, stored in a compact binary file so
+ * that the images need never be decoded again.
+ *
+ * The file starts with a magic number, a format version and the number of
+ * frames. Each frame is the number of its cells followed by a record for each
+ * cell: the x and y of its centroid, the angle of its director and its quality
+ * as floats, and its area in pixels as an int. The file is memory mapped when
+ * it's read.
+ *
+ * @author E. Dov Neimand
+ */
+public class CellTable {
+
+    private static final int MAGIC = 0x43454C4C, VERSION = 1;
+
+    /**
+     * The number of bytes in each cell record.
+     */
+    public static final int RECORD_BYTES = 4 * Float.BYTES + Integer.BYTES;
+
+    private final ByteBuffer data;
+    private final int[] frameStart, frameSize;
+
+    /**
+     * Reads a cell table.
+     *
+     * @param file A file written by a CellTable.Writer.
+     */
+    public CellTable(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (in.getInt() != MAGIC || in.getInt() != VERSION)
+                throw new IOException(file + " is not a cell table of version " + VERSION + ".");
+
+            int numFrames = in.getInt();
+            frameStart = new int[numFrames];
+            frameSize = new int[numFrames];
+            for (int frame = 0; frame < numFrames; frame++) {
+                frameSize[frame] = in.getInt();
+                frameStart[frame] = in.position();
+                in.position(in.position() + frameSize[frame] * RECORD_BYTES);
+            }
+            data = in;
+
+        } catch (IOException ex) {
+            Logger.getLogger(CellTable.class.getName()).log(Level.SEVERE, null, ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * The number of frames.
+     *
+     * @return The number of frames.
+     */
+    public int numFrames() {
+        return frameSize.length;
+    }
+
+    /**
+     * The number of cells in a frame.
+     *
+     * @param frame The index of the frame.
+     * @return The number of cells in the frame.
+     */
+    public int numCells(int frame) {
+        return frameSize[frame];
+    }
+
+    /**
+     * The position in the file of a field of a cell.
+     *
+     * @param frame The index of the frame.
+     * @param cell The index of the cell in the frame.
+     * @param field The index of the field in the record.
+     * @return The position of the field.
+     */
+    private int at(int frame, int cell, int field) {
+        return frameStart[frame] + cell * RECORD_BYTES + field * Float.BYTES;
+    }
+
+    /**
+     * The x value of the centroid of a cell.
+     *
+     * @param frame The index of the frame.
+     * @param cell The index of the cell in the frame.
+     * @return The x value of the centroid.
+     */
+    public float x(int frame, int cell) {
+        return data.getFloat(at(frame, cell, 0));
+    }
+
+    /**
+     * The y value of the centroid of a cell.
+     *
+     * @param frame The index of the frame.
+     * @param cell The index of the cell in the frame.
+     * @return The y value of the centroid.
+     */
+    public float y(int frame, int cell) {
+        return data.getFloat(at(frame, cell, 1));
+    }
+
+    /**
+     * The angle of the director of a cell, in radians.
+     *
+     * @param frame The index of the frame.
+     * @param cell The index of the cell in the frame.
+     * @return The angle of the director.
+     */
+    public float angle(int frame, int cell) {
+        return data.getFloat(at(frame, cell, 2));
+    }
+
+    /**
+     * The quality of a cell. See SnapCell.quality.
+     *
+     * @param frame The index of the frame.
+     * @param cell The index of the cell in the frame.
+     * @return The quality of the cell.
+     */
+    public float quality(int frame, int cell) {
+        return data.getFloat(at(frame, cell, 3));
+    }
+
+    /**
+     * The number of pixels in a cell.
+     *
+     * @param frame The index of the frame.
+     * @param cell The index of the cell in the frame.
+     * @return The number of pixels in the cell.
+     */
+    public int area(int frame, int cell) {
+        return data.getInt(at(frame, cell, 4));
+    }
+
+    /**
+     * The cells of a frame as anchors for a nematic field.
+     *
+     * @param frame The index of the frame.
+     * @return The cells of the frame.
+     */
+    public Set<NematicFieldAnchor> anchors(int frame) {
+        return IntStream.range(0, numCells(frame))
+                .mapToObj(cell -> new FixedAnchor(
+                        new Vec(x(frame, cell), y(frame, cell)),
+                        new NematicDirector(angle(frame, cell)),
+                        quality(frame, cell)))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * The record of a frame: the number of cells followed by the record of
+     * each cell.
+     *
+     * @param cells The cells of the frame.
+     * @return The record of the frame.
+     */
+    public static byte[] encode(Collection<SnapCell> cells) {
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + cells.size() * RECORD_BYTES);
+        frame.putInt(cells.size());
+        for (SnapCell cell : cells)
+            frame.putFloat((float) cell.mean.getX())
+                    .putFloat((float) cell.mean.getY())
+                    .putFloat((float) cell.getDir().rad())
+                    .putFloat((float) cell.quality())
+                    .putInt(cell.size());
+        return frame.array();
+    }
+
+    /**
+     * Writes a cell table one frame at a time. The table is written beside its
+     * destination and moved into place when it's closed, so a partially
+     * written table is never read.
+     */
+    public static class Writer implements AutoCloseable {
+
+        private final File file, temp;
+        private final DataOutputStream out;
+        private final int numFrames;
+        private int written = 0;
+
+        /**
+         * The constructor.
+         *
+         * @param file Where the table is to be saved.
+         * @param numFrames The number of frames that will be written.
+         * @throws IOException If the file can't be opened.
+         */
+        public Writer(File file, int numFrames) throws IOException {
+            this.file = file;
+            this.numFrames = numFrames;
+            this.temp = new File(file.getPath() + ".tmp");
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(numFrames);
+        }
+
+        /**
+         * Writes the next frame.
+         *
+         * @param frame The record of the frame, from encode.
+         * @return this
+         * @throws IOException If there's trouble writing.
+         */
+        public Writer append(byte[] frame) throws IOException {
+            out.write(frame);
+            written++;
+            return this;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+            if (written != numFrames)
+                throw new IOException("Only " + written + " of " + numFrames + " frames were written to " + file + ".");
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
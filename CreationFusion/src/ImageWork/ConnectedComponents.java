@@ -0,0 +1,397 @@
+package ImageWork;
+
+import java.awt.image.Raster;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Labels the connected regions of equal, non zero color in a segmented image.
+ * Two pixels are connected if they are adjacent, including diagonally, and
+ * have the same color. This is the same notion of connected used by the flood
+ * fill SnapCell used to do, but the image is read once into an array and its
+ * horizontal runs are labeled with a two pass union find, so no objects are
+ * created per pixel.
+ *
+ * Labels run from 1 to numComponents(). A label of 0 is background. Along with
+ * its size and bounding box, the raw moments of each component are collected
+ * so that its mean and covariance are available without visiting its pixels
+ * again.
+ *
+ * @author E. Dov Neimand
+ */
+public class ConnectedComponents {
+
+    public final int width, height;
+    private final int[] labels;
+    private int numComponents;
+    private int[] color, size, minX, minY, maxX, maxY;
+    private long[] sumX, sumY, sumXX, sumXY, sumYY;
+
+    /**
+     * Labels the first band of the raster.
+     *
+     * @param raster A segmented image, where each cell has its own color and
+     * the background is 0.
+     */
+    public ConnectedComponents(Raster raster) {
+        this(raster.getSamples(
+                raster.getMinX(), raster.getMinY(),
+                raster.getWidth(), raster.getHeight(),
+                0, (int[]) null), raster.getWidth(), raster.getHeight());
+    }
+
+    /**
+     * Labels an array of colors.
+     *
+     * @param colors The colors of the pixels, row by row. This array is not
+     * changed.
+     * @param width The width of the image.
+     * @param height The height of the image.
+     */
+    public ConnectedComponents(int[] colors, int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.labels = new int[width * height];
+
+        int[] parent = firstPass(colors);
+        secondPass(colors, parent);
+    }
+
+    /**
+     * Gives each horizontal run of equal color a provisional label and records
+     * which provisional labels meet. A run meets the runs of the same color in
+     * the row above that overlap it or touch it diagonally.
+     *
+     * @param colors The colors of the pixels.
+     * @return The union find forest of the provisional labels.
+     */
+    private int[] firstPass(int[] colors) {
+        int[] parent = new int[1024];
+        int next = 1;
+
+        for (int y = 0; y < height; y++) {
+            int row = y * width, up = row - width;
+            int x = 0;
+            while (x < width) {
+                int c = colors[row + x];
+                if (c == 0) {
+                    x++;
+                    continue;
+                }
+
+                int start = x;
+                while (x < width && colors[row + x] == c) x++;
+
+                int label = 0;
+                if (y > 0) {
+                    boolean inRun = false;
+                    for (int above = Math.max(start - 1, 0); above < Math.min(x + 1, width); above++) {
+                        boolean same = colors[up + above] == c;
+                        if (same && !inRun) label = union(parent, label, labels[up + above]);
+                        inRun = same;
+                    }
+                }
+
+                if (label == 0) {
+                    if (next == parent.length)
+                        parent = Arrays.copyOf(parent, parent.length * 2);
+                    parent[next] = next;
+                    label = next++;
+                }
+                Arrays.fill(labels, row + start, row + x, label);
+            }
+        }
+
+        return Arrays.copyOf(parent, next);
+    }
+
+    /**
+     * Joins two provisional labels.
+     *
+     * @param parent The union find forest.
+     * @param a A provisional label, or 0 for none.
+     * @param b A provisional label.
+     * @return The root of the joined labels.
+     */
+    private static int union(int[] parent, int a, int b) {
+        int rootB = find(parent, b);
+        if (a == 0) return rootB;
+        int rootA = find(parent, a);
+        if (rootA < rootB) {
+            parent[rootB] = rootA;
+            return rootA;
+        }
+        parent[rootA] = rootB;
+        return rootB;
+    }
+
+    /**
+     * The root of a provisional label, halving the path along the way.
+     *
+     * @param parent The union find forest.
+     * @param label A provisional label.
+     * @return The root of the label.
+     */
+    private static int find(int[] parent, int label) {
+        while (parent[label] != label) {
+            parent[label] = parent[parent[label]];
+            label = parent[label];
+        }
+        return label;
+    }
+
+    /**
+     * Replaces provisional labels with consecutive final labels and collects
+     * the size, color, bounding box and raw moments of each component.
+     *
+     * @param colors The colors of the pixels.
+     * @param parent The union find forest.
+     */
+    private void secondPass(int[] colors, int[] parent) {
+        int[] finalLabel = new int[parent.length];
+        for (int i = 1; i < parent.length; i++) {
+            int root = find(parent, i);
+            if (finalLabel[root] == 0) finalLabel[root] = ++numComponents;
+            finalLabel[i] = finalLabel[root];
+        }
+
+        int n = numComponents + 1;
+        color = new int[n];
+        size = new int[n];
+        minX = new int[n];
+        minY = new int[n];
+        maxX = new int[n];
+        maxY = new int[n];
+        sumX = new long[n];
+        sumY = new long[n];
+        sumXX = new long[n];
+        sumXY = new long[n];
+        sumYY = new long[n];
+        Arrays.fill(minX, Integer.MAX_VALUE);
+        Arrays.fill(minY, Integer.MAX_VALUE);
+        Arrays.fill(maxX, -1);
+        Arrays.fill(maxY, -1);
+
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            int x = 0;
+            while (x < width) {
+                int provisional = labels[row + x];
+                if (provisional == 0) {
+                    x++;
+                    continue;
+                }
+
+                int start = x;
+                while (x < width && labels[row + x] == provisional) x++;
+
+                int label = finalLabel[provisional];
+                Arrays.fill(labels, row + start, row + x, label);
+                color[label] = colors[row + start];
+                size[label] += x - start;
+                if (start < minX[label]) minX[label] = start;
+                if (x - 1 > maxX[label]) maxX[label] = x - 1;
+                if (y < minY[label]) minY[label] = y;
+                maxY[label] = y;
+
+                long runLength = x - start, runSumX = sumTo(x - 1) - sumTo(start - 1);
+                sumX[label] += runSumX;
+                sumY[label] += runLength * y;
+                sumXX[label] += sumOfSquaresTo(x - 1) - sumOfSquaresTo(start - 1);
+                sumXY[label] += runSumX * y;
+                sumYY[label] += runLength * y * y;
+            }
+        }
+    }
+
+    /**
+     * The sum of the integers from 0 to k.
+     *
+     * @param k The last integer.
+     * @return 0 + 1 + ... + k.
+     */
+    private static long sumTo(long k) {
+        return k * (k + 1) / 2;
+    }
+
+    /**
+     * The sum of the squares of the integers from 0 to k.
+     *
+     * @param k The last integer.
+     * @return 0 + 1 + 4 + ... + k^2.
+     */
+    private static long sumOfSquaresTo(long k) {
+        return k * (k + 1) * (2 * k + 1) / 6;
+    }
+
+    /**
+     * The number of components.
+     *
+     * @return The number of components.
+     */
+    public int numComponents() {
+        return numComponents;
+    }
+
+    /**
+     * The label of a pixel.
+     *
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return The label of the pixel, or 0 if it's background.
+     */
+    public int label(int x, int y) {
+        return labels[y * width + x];
+    }
+
+    /**
+     * The number of pixels in a component.
+     *
+     * @param label The label of the component.
+     * @return The number of pixels in the component.
+     */
+    public int size(int label) {
+        return size[label];
+    }
+
+    /**
+     * The color of a component in the segmented image.
+     *
+     * @param label The label of the component.
+     * @return The color of the component.
+     */
+    public int color(int label) {
+        return color[label];
+    }
+
+    /**
+     * The least x value in the component.
+     *
+     * @param label The label of the component.
+     * @return The least x value in the component.
+     */
+    public int minX(int label) {
+        return minX[label];
+    }
+
+    /**
+     * The least y value in the component.
+     *
+     * @param label The label of the component.
+     * @return The least y value in the component.
+     */
+    public int minY(int label) {
+        return minY[label];
+    }
+
+    /**
+     * The greatest x value in the component.
+     *
+     * @param label The label of the component.
+     * @return The greatest x value in the component.
+     */
+    public int maxX(int label) {
+        return maxX[label];
+    }
+
+    /**
+     * The greatest y value in the component.
+     *
+     * @param label The label of the component.
+     * @return The greatest y value in the component.
+     */
+    public int maxY(int label) {
+        return maxY[label];
+    }
+
+    /**
+     * The sum of the x values of the pixels in a component.
+     *
+     * @param label The label of the component.
+     * @return The sum of the x values.
+     */
+    public long sumX(int label) {
+        return sumX[label];
+    }
+
+    /**
+     * The sum of the y values of the pixels in a component.
+     *
+     * @param label The label of the component.
+     * @return The sum of the y values.
+     */
+    public long sumY(int label) {
+        return sumY[label];
+    }
+
+    /**
+     * The sum of the squares of the x values of the pixels in a component.
+     *
+     * @param label The label of the component.
+     * @return The sum of x^2.
+     */
+    public long sumXX(int label) {
+        return sumXX[label];
+    }
+
+    /**
+     * The sum of the products of the x and y values of the pixels in a
+     * component.
+     *
+     * @param label The label of the component.
+     * @return The sum of xy.
+     */
+    public long sumXY(int label) {
+        return sumXY[label];
+    }
+
+    /**
+     * The sum of the squares of the y values of the pixels in a component.
+     *
+     * @param label The label of the component.
+     * @return The sum of y^2.
+     */
+    public long sumYY(int label) {
+        return sumYY[label];
+    }
+
+    /**
+     * The labels of the components that pass the filter.
+     *
+     * @param filter Which labels are desired.
+     * @return The labels of the components that pass the filter.
+     */
+    public IntStream labels(IntPredicate filter) {
+        return IntStream.rangeClosed(1, numComponents).filter(filter);
+    }
+
+    /**
+     * Visits each pixel of a component, searching only its bounding box.
+     *
+     * @param label The label of the component.
+     * @param visitor Visits the x and y coordinates of each pixel.
+     */
+    public void forEachPixel(int label, PixelVisitor visitor) {
+        for (int y = minY[label]; y <= maxY[label]; y++) {
+            int row = y * width;
+            for (int x = minX[label]; x <= maxX[label]; x++)
+                if (labels[row + x] == label) visitor.visit(x, y);
+        }
+    }
+
+    /**
+     * Visits the coordinates of a pixel.
+     */
+    @FunctionalInterface
+    public interface PixelVisitor {
+
+        /**
+         * Visits the coordinates of a pixel.
+         *
+         * @param x The x coordinate.
+         * @param y The y coordinate.
+         */
+        public void visit(int x, int y);
+    }
+}
@@ -0,0 +1,158 @@
+package ImageWork;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import javax.imageio.ImageIO;
+
+/**
+ * Streams a folder of segmented frames of a time lapse into a CellTable. Each
+ * frame is decoded, its cells are labeled, and the centroid, director,
+ * quality and area of each cell are found from its moments.
+ *
+ * Frames are processed in parallel, but no more than framesInFlight frames
+ * are ever decoded or waiting to be written at once, so the memory used does
+ * not grow with the length of the movie. Frames are written in order of file
+ * name.
+ *
+ * @author E. Dov Neimand
+ */
+public class FramePipeline {
+
+    private final File[] frames;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int framesInFlight = 2 * threads;
+    private int minCellPixels = CellPSegm.min_num_cell_pixels;
+
+    /**
+     * The constructor.
+     *
+     * @param folder A folder of segmented frames, where each cell has its own
+     * color and the background is 0. Files that aren't tiff or png images are
+     * ignored.
+     */
+    public FramePipeline(File folder) {
+        this(Arrays.stream(folder.listFiles())
+                .filter(file -> file.getName().toLowerCase().matches(".*\\.(tif|tiff|png)"))
+                .sorted()
+                .toArray(File[]::new));
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param frames The segmented frames, in order.
+     */
+    public FramePipeline(File... frames) {
+        this.frames = frames;
+    }
+
+    /**
+     * The number of frames.
+     *
+     * @return The number of frames.
+     */
+    public int numFrames() {
+        return frames.length;
+    }
+
+    /**
+     * Sets the number of threads frames are processed on.
+     *
+     * @param threads The number of threads.
+     * @return this
+     */
+    public FramePipeline setThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Sets the greatest number of frames that may be in memory at once.
+     *
+     * @param framesInFlight The greatest number of frames in memory at once.
+     * @return this
+     */
+    public FramePipeline setFramesInFlight(int framesInFlight) {
+        this.framesInFlight = framesInFlight;
+        return this;
+    }
+
+    /**
+     * Sets the size a cell must exceed to be kept.
+     *
+     * @param minCellPixels Cells with this many pixels or fewer are dropped.
+     * @return this
+     */
+    public FramePipeline setMinCellPixels(int minCellPixels) {
+        this.minCellPixels = minCellPixels;
+        return this;
+    }
+
+    /**
+     * The cells of a segmented frame.
+     *
+     * @param frame A segmented frame.
+     * @return The cells of the frame.
+     * @throws IOException If the frame can't be read.
+     */
+    private List<SnapCell> cells(File frame) throws IOException {
+        BufferedImage image = ImageIO.read(frame);
+        if (image == null) throw new IOException("No reader for " + frame);
+
+        ConnectedComponents components = new ConnectedComponents(image.getRaster());
+        return components.labels(label -> components.size(label) > minCellPixels)
+                .mapToObj(label -> new SnapCell(components, label))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Processes every frame and writes the cells to a table.
+     *
+     * @param table Where the cell table is to be saved.
+     */
+    public void run(File table) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<>(framesInFlight);
+
+        try (CellTable.Writer writer = new CellTable.Writer(table, frames.length)) {
+
+            for (File frame : frames) {
+                if (inFlight.size() == framesInFlight) writer.append(inFlight.poll().get());
+                inFlight.add(pool.submit(() -> CellTable.encode(cells(frame))));
+            }
+            while (!inFlight.isEmpty()) writer.append(inFlight.poll().get());
+
+        } catch (IOException | InterruptedException | ExecutionException ex) {
+            Logger.getLogger(FramePipeline.class.getName()).log(Level.SEVERE, null, ex);
+            throw new RuntimeException(ex);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public static void main(String[] args) {
+        File folder = new File(args.length > 0 ? args[0] : "../../VictorData/HBEC/s2(120-919)/segmented"),
+                table = new File(args.length > 1 ? args[1] : "images/output/s2.cells");
+
+        FramePipeline pipeline = new FramePipeline(folder);
+
+        long start = System.currentTimeMillis();
+        pipeline.run(table);
+        System.out.println(pipeline.numFrames() + " frames written to " + table
+                + " in " + (System.currentTimeMillis() - start) + " ms.");
+
+        CellTable cells = new CellTable(table);
+        System.out.println("The first frame has " + cells.numCells(0) + " cells.");
+    }
+}
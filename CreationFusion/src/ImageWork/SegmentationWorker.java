@@ -0,0 +1,356 @@
+package ImageWork;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A single long lived segmentation process that images are streamed to, so
+ * that the interpreter and the model are loaded once rather than once per
+ * image.
+ *
+ * Requests and replies are one line each, with tab separated fields:
+ * <pre>
+ * SEG  id  input  output      sent to the worker
+ * OK   id  output             the mask has been written
+ * ERR  id  message            the image could not be segmented
+ * QUIT                        sent to the worker when it's closed
+ * </pre>
+ * Any other line the worker prints is passed on to System.out.
+ *
+ * No more than maxPending images are sent ahead of the worker, and submit
+ * blocks until one of them is done. If the worker dies, it's restarted and
+ * every image it hadn't finished is sent again, up to maxRestarts times.
+ *
+ * @author E. Dov Neimand
+ */
+public final class SegmentationWorker implements AutoCloseable {
+
+    private final String[] command;
+    private final LinkedHashMap<Integer, Request> pending = new LinkedHashMap<>();
+    private final Object lock = new Object();
+    private final Slots slots = new Slots(4);
+    private int maxPending = 4, maxRestarts = 3, restarts = 0, nextId = 0;
+    private Process process;
+    private BufferedWriter toWorker;
+    private Thread reader;
+    private volatile boolean closed = false;
+
+    /**
+     * A semaphore whose number of permits can be changed while some are
+     * taken.
+     */
+    private static class Slots extends Semaphore {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The constructor.
+         *
+         * @param permits The number of permits.
+         */
+        public Slots(int permits) {
+            super(permits);
+        }
+
+        /**
+         * Changes the number of permits by the given amount.
+         *
+         * @param change The number of permits added, or removed if negative.
+         */
+        public void resize(int change) {
+            if (change > 0) release(change);
+            else reducePermits(-change);
+        }
+    }
+
+    /**
+     * An image waiting to be segmented.
+     */
+    private static class Request {
+
+        public final int id;
+        public final File input, output;
+        public final CompletableFuture<File> mask = new CompletableFuture<>();
+
+        /**
+         * The constructor.
+         *
+         * @param id The id of the request.
+         * @param input The image to be segmented.
+         * @param output Where the mask is to be written.
+         */
+        public Request(int id, File input, File output) {
+            this.id = id;
+            this.input = input;
+            this.output = output;
+        }
+
+        /**
+         * The line sent to the worker.
+         *
+         * @return The line sent to the worker.
+         */
+        public String line() {
+            return "SEG\t" + id + "\t" + input.getAbsolutePath() + "\t" + output.getAbsolutePath();
+        }
+    }
+
+    /**
+     * Starts the worker.
+     *
+     * @param python The path to python.
+     * @param workerScript The path to the worker script.
+     * @param args Additional arguments to the worker script.
+     */
+    public SegmentationWorker(String python, String workerScript, String... args) {
+        command = new String[2 + args.length];
+        command[0] = python;
+        command[1] = workerScript;
+        System.arraycopy(args, 0, command, 2, args.length);
+
+        synchronized (lock) {
+            start();
+        }
+    }
+
+    /**
+     * Sets the greatest number of images sent ahead of the worker. Images
+     * already sent are not recalled, but no more are sent until fewer than
+     * maxPending are unfinished.
+     *
+     * @param maxPending The greatest number of unfinished images.
+     * @return this
+     */
+    public SegmentationWorker setMaxPending(int maxPending) {
+        if (maxPending < 1) throw new IllegalArgumentException("maxPending must be positive.");
+        synchronized (lock) {
+            slots.resize(maxPending - this.maxPending);
+            this.maxPending = maxPending;
+        }
+        return this;
+    }
+
+    /**
+     * Sets the number of times the worker may be restarted.
+     *
+     * @param maxRestarts The number of times the worker may be restarted.
+     * @return this
+     */
+    public SegmentationWorker setMaxRestarts(int maxRestarts) {
+        this.maxRestarts = maxRestarts;
+        return this;
+    }
+
+    /**
+     * The number of times the worker has been restarted.
+     *
+     * @return The number of times the worker has been restarted.
+     */
+    public int getRestarts() {
+        return restarts;
+    }
+
+    /**
+     * Starts the worker process and the thread that reads its replies, and
+     * sends it every unfinished request. The caller must hold the lock.
+     */
+    private void start() {
+        try {
+            ProcessBuilder pb = new ProcessBuilder(command);
+            pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+            process = pb.start();
+            toWorker = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
+
+            Process started = process;
+            reader = new Thread(() -> read(started), "segmentation worker reader");
+            reader.setDaemon(true);
+            reader.start();
+
+            for (Request request : pending.values()) send(request);
+
+        } catch (IOException ex) {
+            Logger.getLogger(SegmentationWorker.class.getName()).log(Level.SEVERE, null, ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Sends a request to the worker. If the worker has died the request is
+     * left pending, to be sent again when the worker is restarted. The caller
+     * must hold the lock.
+     *
+     * @param request The request to be sent.
+     */
+    private void send(Request request) {
+        try {
+            toWorker.write(request.line());
+            toWorker.newLine();
+            toWorker.flush();
+        } catch (IOException ex) {
+            Logger.getLogger(SegmentationWorker.class.getName()).log(Level.FINE, "The worker is down.", ex);
+        }
+    }
+
+    /**
+     * Reads the replies of a worker process until it ends, and restarts the
+     * worker if it ended before it was closed. Once the worker has died more
+     * than maxRestarts times, the unfinished images fail and the worker is
+     * closed.
+     *
+     * @param worker The worker process.
+     */
+    private void read(Process worker) {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(worker.getInputStream()))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] reply = line.split("\t", 3);
+                if (reply.length == 3 && (reply[0].equals("OK") || reply[0].equals("ERR")))
+                    finish(Integer.parseInt(reply[1]), reply[0].equals("OK"), reply[2]);
+                else System.out.println(line);
+            }
+        } catch (IOException | NumberFormatException ex) {
+            Logger.getLogger(SegmentationWorker.class.getName()).log(Level.WARNING, null, ex);
+        }
+
+        synchronized (lock) {
+            if (closed) return;
+
+            if (restarts == maxRestarts) {
+                closed = true;
+                RuntimeException crash = new RuntimeException("The segmentation worker died " + (restarts + 1) + " times.");
+                for (Request request : pending.values()) {
+                    request.mask.completeExceptionally(crash);
+                    slots.release();
+                }
+                pending.clear();
+                return;
+            }
+
+            restarts++;
+            Logger.getLogger(SegmentationWorker.class.getName()).log(Level.WARNING,
+                    "The segmentation worker died, restarting with {0} images unfinished.", pending.size());
+            start();
+        }
+    }
+
+    /**
+     * Completes a request.
+     *
+     * @param id The id of the request.
+     * @param ok True if the mask was written.
+     * @param message The path to the mask, or an error message.
+     */
+    private void finish(int id, boolean ok, String message) {
+        Request request;
+        synchronized (lock) {
+            request = pending.remove(id);
+        }
+        if (request == null) return;
+
+        if (ok) request.mask.complete(new File(message));
+        else request.mask.completeExceptionally(new IOException("Unable to segment " + request.input + ": " + message));
+        slots.release();
+    }
+
+    /**
+     * Sends an image to the worker. Blocks while maxPending images are
+     * unfinished.
+     *
+     * @param input The image to be segmented.
+     * @param output Where the mask is to be written.
+     * @return The mask, once it's been written.
+     */
+    public CompletableFuture<File> submit(File input, File output) {
+        if (closed) throw new IllegalStateException("The segmentation worker is closed.");
+
+        slots.acquireUninterruptibly();
+        synchronized (lock) {
+            if (closed) {
+                slots.release();
+                throw new IllegalStateException("The segmentation worker is closed.");
+            }
+            Request request = new Request(nextId++, input, output);
+            pending.put(request.id, request);
+            send(request);
+            return request.mask;
+        }
+    }
+
+    /**
+     * Segments a single image and waits for the mask.
+     *
+     * @param input The image to be segmented.
+     * @param output Where the mask is to be written.
+     * @return The mask.
+     */
+    public File segment(File input, File output) {
+        return submit(input, output).join();
+    }
+
+    /**
+     * Segments images, streaming them to the worker, and waits for all the
+     * masks. Each mask is written to the output folder with the name of its
+     * image and a png extension.
+     *
+     * @param inputs The images to be segmented.
+     * @param outputFolder The folder the masks are written to.
+     * @return The masks, in the order of the images.
+     */
+    public List<File> segmentAll(List<File> inputs, File outputFolder) {
+        outputFolder.mkdirs();
+        List<CompletableFuture<File>> masks = new ArrayList<>(inputs.size());
+        for (File input : inputs)
+            masks.add(submit(input, new File(outputFolder, input.getName().replaceFirst("\\.[^.]*$", "") + ".png")));
+
+        List<File> done = new ArrayList<>(masks.size());
+        for (CompletableFuture<File> mask : masks) done.add(mask.join());
+        return done;
+    }
+
+    /**
+     * Asks the worker to quit and waits for it to end. Images still
+     * unfinished fail, and any submit waiting for a free slot throws.
+     */
+    @Override
+    public void close() {
+        Process worker;
+        synchronized (lock) {
+            closed = true;
+            worker = process;
+            try {
+                toWorker.write("QUIT");
+                toWorker.newLine();
+                toWorker.close();
+            } catch (IOException ex) {
+                Logger.getLogger(SegmentationWorker.class.getName()).log(Level.FINE, "The worker is down.", ex);
+            }
+        }
+
+        try {
+            worker.waitFor();
+            reader.join();
+        } catch (InterruptedException ex) {
+            Logger.getLogger(SegmentationWorker.class.getName()).log(Level.SEVERE, null, ex);
+            worker.destroy();
+        }
+
+        synchronized (lock) {
+            for (Request request : pending.values()) {
+                request.mask.completeExceptionally(new IllegalStateException("The segmentation worker was closed."));
+                slots.release();
+            }
+            pending.clear();
+        }
+    }
+}
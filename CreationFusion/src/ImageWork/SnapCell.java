@@ -7,62 +7,72 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.Raster;
-import java.awt.image.WritableRaster;
 import java.util.HashSet;
-import java.util.stream.DoubleStream;
-import org.apache.commons.math3.linear.Array2DRowRealMatrix;
-import org.apache.commons.math3.linear.BlockRealMatrix;
-import org.apache.commons.math3.linear.EigenDecomposition;
-import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.linear.RealVector;
+import java.util.Set;
 
 /**
- * A cell representing a set of coordinates in an image.
+ * A cell representing a set of coordinates in an image. The cell is described
+ * by the raw moments of its pixels, from which its mean, its director and the
+ * eigenvalues of its covariance matrix are found in closed form. The pixels
+ * themselves are only gathered if the mask is asked for.
  */
-public class SnapCell extends HashSet<Pixel> implements NematicFieldAnchor {
+public class SnapCell implements NematicFieldAnchor {
 
-//    public static final int[] zeroPixel;
     public final int color;
     public final Vec mean;
-    private final EigenDecomposition covarMatrEigan;
+    private final int size;
+    private final NematicDirector dir;
+    private final double bigEigenvalue, smallEigenvalue;
+    private final ConnectedComponents components;
+    private final int label;
 
     /**
      * Constructor for Cell.
      *
-     * @param toAdd A point in the cell
-     * @param color The unique identifier of the cell.
-     * @param raster To read and write to a buffered image.
+     * @param components The labeled components of a segmented image.
+     * @param label The label of the component that is this cell.
      */
-    public SnapCell(Pixel toAdd, int color, WritableRaster raster) {
-        this.color = color;
-
-        PossibleNeighborQueue potentials = new PossibleNeighborQueue(raster, toAdd);
-
-        while (!potentials.isEmpty()) {
-            toAdd = potentials.removeFirst();
-
-            add(toAdd);
-
-            toAdd.adjacent()
-                    .filter(neighbor -> neighbor.inside(raster.getWidth(), raster.getHeight()))
-                    .filter(neighbor -> color(raster, neighbor) == color)
-                    .forEach(neighbor -> potentials.add(neighbor));
-        }
-
-        this.mean = Vec.mean(this);
-
-        RealMatrix centeredPoints = new Array2DRowRealMatrix(stream() //TODO: this could be made faster with less new memory alocated!
-                .map(vec -> vec.minus(mean).toArray())
-                .toArray(double[][]::new)
-        );
+    public SnapCell(ConnectedComponents components, int label) {
+        this.components = components;
+        this.label = label;
+        this.color = components.color(label);
+        this.size = components.size(label);
+
+        double meanX = (double) components.sumX(label) / size,
+                meanY = (double) components.sumY(label) / size;
+        this.mean = new Vec(meanX, meanY);
+
+        double varX = (components.sumXX(label) - components.sumX(label) * meanX) / size,
+                covXY = (components.sumXY(label) - components.sumX(label) * meanY) / size,
+                varY = (components.sumYY(label) - components.sumY(label) * meanY) / size;
+
+        double halfTrace = (varX + varY) / 2,
+                radius = Math.hypot((varX - varY) / 2, covXY);
+
+        bigEigenvalue = halfTrace + radius;
+        smallEigenvalue = halfTrace - radius;
+        dir = new NematicDirector(Math.atan2(2 * covXY, varX - varY) / 2);
+    }
 
-        covarMatrEigan = new EigenDecomposition(
-                centeredPoints
-                        .transpose()
-                        .multiply(centeredPoints)
-                        .scalarMultiply(1.0 / size())
-        );
+    /**
+     * The number of pixels in the cell.
+     *
+     * @return The number of pixels in the cell.
+     */
+    public int size() {
+        return size;
+    }
 
+    /**
+     * The pixels in the cell. These are gathered from the labeled image each
+     * time this method is called.
+     *
+     * @return The pixels in the cell.
+     */
+    public Set<Pixel> mask() {
+        Set<Pixel> mask = new HashSet<>(size * 4 / 3 + 1);
+        components.forEachPixel(label, (x, y) -> mask.add(new Pixel(x, y)));
+        return mask;
     }
 
     /**
@@ -96,25 +106,22 @@ public class SnapCell extends HashSet<Pixel> implements NematicFieldAnchor {
         // Set pixel color to black
         g2d.setColor(Color.BLACK);
 
-        for (Pixel vec : this) {
-            if (vec.inside(width, height)) {
-                g2d.fillRect(vec.x(), vec.y(), 1, 1);
+        components.forEachPixel(label, (x, y) -> {
+            if (x < width && y < height) {
+                g2d.fillRect(x, y, 1, 1);
             } else {
-                System.err.println("Coordinate out of bounds: " + vec);
+                System.err.println("Coordinate out of bounds: (" + x + ", " + y + ")");
             }
-        }
+        });
 
         g2d.dispose();
 
         return cellImage;
     }
 
+    @Override
     public NematicDirector getDir() {
-        
-        return new Vec(
-                covarMatrEigan.getEigenvector(0).getEntry(0), 
-                covarMatrEigan.getEigenvector(0).getEntry(1)
-        ).nemDirector();
+        return dir;
     }
 
     @Override
@@ -124,10 +131,7 @@ public class SnapCell extends HashSet<Pixel> implements NematicFieldAnchor {
 
     @Override
     public double quality() {
-        if(covarMatrEigan.getRealEigenvalue(0) < covarMatrEigan.getRealEigenvalue(1))
-            throw new RuntimeException("first eigan value is not the biggest.");
-            
-        return covarMatrEigan.getRealEigenvalue(0)/covarMatrEigan.getRealEigenvalue(1);
+        return bigEigenvalue / smallEigenvalue;
     }
 
 }
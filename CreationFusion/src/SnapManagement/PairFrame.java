@@ -0,0 +1,182 @@
+package SnapManagement;
+
+import GeometricTools.Angle;
+import GeometricTools.Vec;
+import snapDefects.NegSnapDefect;
+import snapDefects.PosSnapDefect;
+
+/**
+ * The primitive values of a paired positive and negative snap defect at one
+ * frame. Unlike PairedSnDef, a single instance is reused for every frame it
+ * is handed out for, so a visitor must copy out anything it wants to keep.
+ *
+ * The angle methods give the same values as the corresponding methods in
+ * PairSnDef, in radians between 0 and 2pi.
+ *
+ * @author E. Dov Neimand
+ */
+public class PairFrame {
+
+    /**
+     * The IDs of the positive and negative defects.
+     */
+    public int posId, negId;
+
+    /**
+     * The frame number.
+     */
+    public int time;
+
+    /**
+     * The amount of time from the event, birth or death.
+     */
+    public int timeFromEvent;
+
+    /**
+     * The ages of the positive and negative defects.
+     */
+    public int posAge, negAge;
+
+    /**
+     * The locations of the positive and negative defects.
+     */
+    public double posX, posY, negX, negY;
+
+    /**
+     * The velocities of the positive and negative defects. Double.NaN if
+     * unknown.
+     */
+    public double posVx, posVy, negVx, negVy;
+
+    /**
+     * The tail angle of the positive defect in radians.
+     */
+    public double posTail;
+
+    /**
+     * The three tail angles of the negative defect in radians.
+     */
+    public final double[] negTails = new double[3];
+
+    /**
+     * True if the positive tail points counterclockwise to the negative
+     * defect most of the time, false otherwise.
+     */
+    public boolean fuseUp;
+
+    /**
+     * True if this is a pair of twins, false if this is a spouse pair.
+     */
+    public boolean birth;
+
+    /**
+     * Loads the values of the two snap defects into this frame.
+     *
+     * @param pos The positive snap defect.
+     * @param neg The negative snap defect.
+     * @param posAge The age of the positive defect.
+     * @param negAge The age of the negative defect.
+     * @param fuseUp Is the positive defect fuse up.
+     * @param timeFromEvent The time from the birth or death event.
+     * @param birth True for twins, false for spouses.
+     * @return this.
+     */
+    PairFrame set(PosSnapDefect pos, NegSnapDefect neg, int posAge, int negAge, boolean fuseUp, int timeFromEvent, boolean birth) {
+        posId = pos.getId();
+        negId = neg.getId();
+        time = pos.getTime();
+        this.timeFromEvent = timeFromEvent;
+        this.posAge = posAge;
+        this.negAge = negAge;
+        posX = pos.loc.getX();
+        posY = pos.loc.getY();
+        negX = neg.loc.getX();
+        negY = neg.loc.getY();
+        posTail = pos.tailAngle().rad();
+        for (int i = 0; i < 3; i++) negTails[i] = neg.tailAngle()[i].rad();
+        Vec posV = pos.getVelocity(), negV = neg.getVelocity();
+        posVx = posV == null ? Double.NaN : posV.getX();
+        posVy = posV == null ? Double.NaN : posV.getY();
+        negVx = negV == null ? Double.NaN : negV.getX();
+        negVy = negV == null ? Double.NaN : negV.getY();
+        this.fuseUp = fuseUp;
+        this.birth = birth;
+        return this;
+    }
+
+    /**
+     * The distance between the two defects.
+     *
+     * @return The distance between the two defects.
+     */
+    public double dist() {
+        double dx = negX - posX, dy = negY - posY;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * The angle of the vector from the positive defect to the negative defect.
+     *
+     * @return The angle of the vector from the positive defect to the negative
+     * defect, in radians.
+     */
+    public double mpAngle() {
+        return Angle.place(Math.atan2(negY - posY, negX - posX), 2 * Math.PI);
+    }
+
+    /**
+     * The angle between the positive tail and the negative defect.
+     *
+     * @return The angle between the positive tail and the negative defect, in
+     * radians.
+     */
+    public double anglePRel() {
+        return Angle.place(posTail - mpAngle(), 2 * Math.PI);
+    }
+
+    /**
+     * The angle between the positive tail and the negative defect.
+     *
+     * @return The angle between the positive tail and the negative defect, in
+     * degrees.
+     */
+    public double anglePRelDeg() {
+        return 360 * anglePRel() / (2 * Math.PI);
+    }
+
+    /**
+     * The average of the negative tail angles relative to the positive tail,
+     * mod (2/3)pi.
+     *
+     * @return The average of the tail angles relative to one another mod
+     * (2/3)pi.
+     */
+    public double mpPhase() {
+        double sum = 0;
+        for (double negTail : negTails) sum += Angle.place(negTail - posTail, 2 * Math.PI);
+        return (sum / 3) % (2 * Math.PI / 3);
+    }
+
+    /**
+     * Do both defects have a velocity?
+     *
+     * @return True if both defects have finite velocities, false otherwise.
+     */
+    public boolean hasVelocity() {
+        return Double.isFinite(posVx) && Double.isFinite(posVy)
+                && Double.isFinite(negVx) && Double.isFinite(negVy);
+    }
+
+    /**
+     * The velocity of the positive defect relative to the negative defect,
+     * projected onto the direction from the negative defect to the positive
+     * defect.
+     *
+     * @return How fast the positive defect is moving away from the negative
+     * defect.
+     */
+    public double separationSpeed() {
+        double ang = Math.atan2(posY - negY, posX - negX);
+        return (posVx - negVx) * Math.cos(ang) + (posVy - negVy) * Math.sin(ang);
+    }
+}
@@ -0,0 +1,19 @@
+package SnapManagement;
+
+/**
+ * Visits the frames of a pair of defects without creating a PairedSnDef for
+ * each one.
+ *
+ * @author E. Dov Neimand
+ */
+@FunctionalInterface
+public interface PairFrameVisitor {
+
+    /**
+     * Called once for each frame in which both defects of a pair are present.
+     *
+     * @param frame The values of the pair at the frame. The same instance is
+     * reused for the next frame, so it should not be kept.
+     */
+    public void visit(PairFrame frame);
+}
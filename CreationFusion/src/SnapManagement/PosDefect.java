@@ -110,10 +110,40 @@ public class PosDefect extends Defect {
                 birth
         );
     }
-    
-    
 
-    
+    /**
+     * Visits each frame in which this defect and its pair are both present,
+     * in order of time. This covers the same frames as defectPairs(birth), but
+     * without creating a PairedSnDef for each frame.
+     *
+     * @param birth True for twin, false for spouse.
+     * @param frame The frame to be loaded with values and handed to the
+     * visitor.
+     * @param visitor Visits each frame.
+     */
+    public void forEachPairFrame(boolean birth, PairFrame frame, PairFrameVisitor visitor) {
+        if (!hasPair(birth)) return;
+
+        NegDefect pair = getPair(birth);
+        int birthTime = getBirth().getTime();
+
+        for (int i = 0; i < path.size(); i++) {
+            int time = birthTime + i;
+            PosSnapDefect snap = (PosSnapDefect) path.get(i);
+            if (snap == null || !pair.aliveAt(time)) continue;
+
+            visitor.visit(frame.set(
+                    snap,
+                    pair.snapFromFrame(time),
+                    age(),
+                    pair.age(),
+                    isFuseUp(birth),
+                    timeFromEvent(time, birth),
+                    birth
+            ));
+        }
+    }
+
     /**
      * The average of the anlgePRel
      *
@@ -138,6 +168,17 @@ public class PosDefect extends Defect {
         fuseUpSpouse = avgAnglePRel(DefectManager.DEATH, timeLimitFromEvent).rad() < Math.PI;
     }
 
+    /**
+     * Sets whether this defect is fuse up without recomputing it.
+     *
+     * @param birth True for the twin, false for the spouse.
+     * @param fuseUp True if it's fuse up, false if it's fuse down.
+     */
+    public void setFuseUp(boolean birth, boolean fuseUp) {
+        if (birth) fuseUpTwin = fuseUp;
+        else fuseUpSpouse = fuseUp;
+    }
+
     /**
      * Is this defect on average fuse up.
      * @param birth True if it's fuse up with regard to the twin, false for spouse.
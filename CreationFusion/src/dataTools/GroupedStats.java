@@ -0,0 +1,280 @@
+package dataTools;
+
+import GeometricTools.Vec;
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.Collector;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+/**
+ * The count, mean and standard deviation of y for each value of x, gathered
+ * one point at a time without keeping the points.
+ *
+ * x is binned to a whole number of bin widths, and each bin keeps its count,
+ * mean and sum of squared deviations from the mean, updated with Welford's
+ * method. Two of these can be merged, so they can be filled in parallel. The
+ * bins are kept in an open addressing hash table of primitives.
+ *
+ * @author E. Dov Neimand
+ */
+public class GroupedStats {
+
+    private final double binWidth;
+    private int size = 0;
+    private boolean[] used;
+    private int[] keys;
+    private long[] count;
+    private double[] mean, m2;
+
+    /**
+     * The constructor.
+     *
+     * @param binWidth The width of the bins x is grouped into. Use 1 to group
+     * whole numbers.
+     */
+    public GroupedStats(double binWidth) {
+        this.binWidth = binWidth;
+        allocate(16);
+    }
+
+    /**
+     * Makes empty tables.
+     *
+     * @param capacity The number of slots, a power of 2.
+     */
+    private void allocate(int capacity) {
+        used = new boolean[capacity];
+        keys = new int[capacity];
+        count = new long[capacity];
+        mean = new double[capacity];
+        m2 = new double[capacity];
+    }
+
+    /**
+     * The slot of a bin, empty if the bin isn't there yet.
+     *
+     * @param key The bin.
+     * @return The slot of the bin.
+     */
+    private int slot(int key) {
+        int hash = key * 0x9E3779B9, mask = keys.length - 1, i = (hash ^ hash >>> 16) & mask;
+        while (used[i] && keys[i] != key) i = (i + 1) & mask;
+        return i;
+    }
+
+    /**
+     * The slot of a bin, adding the bin if it isn't there.
+     *
+     * @param key The bin.
+     * @return The slot of the bin.
+     */
+    private int slotFor(int key) {
+        int i = slot(key);
+        if (used[i]) return i;
+
+        if (2 * (size + 1) > keys.length) {
+            boolean[] oldUsed = used;
+            int[] oldKeys = keys;
+            long[] oldCount = count;
+            double[] oldMean = mean, oldM2 = m2;
+            allocate(2 * keys.length);
+            for (int j = 0; j < oldKeys.length; j++)
+                if (oldUsed[j]) {
+                    int k = slot(oldKeys[j]);
+                    used[k] = true;
+                    keys[k] = oldKeys[j];
+                    count[k] = oldCount[j];
+                    mean[k] = oldMean[j];
+                    m2[k] = oldM2[j];
+                }
+            i = slot(key);
+        }
+
+        used[i] = true;
+        keys[i] = key;
+        size++;
+        return i;
+    }
+
+    /**
+     * The bin an x value falls in.
+     *
+     * @param x The x value.
+     * @return The bin.
+     */
+    public int bin(double x) {
+        return (int) Math.round(x / binWidth);
+    }
+
+    /**
+     * The x value at the center of a bin.
+     *
+     * @param key The bin.
+     * @return The x value at its center.
+     */
+    public double x(int key) {
+        return key * binWidth;
+    }
+
+    /**
+     * Adds a point.
+     *
+     * @param x The x value.
+     * @param y The y value.
+     * @return this
+     */
+    public GroupedStats add(double x, double y) {
+        int i = slotFor(bin(x));
+        count[i]++;
+        double delta = y - mean[i];
+        mean[i] += delta / count[i];
+        m2[i] += delta * (y - mean[i]);
+        return this;
+    }
+
+    /**
+     * Adds a point.
+     *
+     * @param vec The point.
+     */
+    public void add(Vec vec) {
+        add(vec.getX(), vec.getY());
+    }
+
+    /**
+     * Adds the bins of another to this one.
+     *
+     * @param other Grouped with the same bin width.
+     * @return this
+     */
+    public GroupedStats merge(GroupedStats other) {
+        for (int j = 0; j < other.keys.length; j++) {
+            if (!other.used[j]) continue;
+            int i = slotFor(other.keys[j]);
+            long n = count[i] + other.count[j];
+            double delta = other.mean[j] - mean[i];
+            m2[i] += other.m2[j] + delta * delta * count[i] * other.count[j] / n;
+            mean[i] += delta * other.count[j] / n;
+            count[i] = n;
+        }
+        return this;
+    }
+
+    /**
+     * The number of bins.
+     *
+     * @return The number of bins.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The bins, in increasing order.
+     *
+     * @return The bins, in increasing order.
+     */
+    public int[] bins() {
+        return IntStream.range(0, keys.length).filter(i -> used[i]).map(i -> keys[i]).sorted().toArray();
+    }
+
+    /**
+     * The number of points in a bin.
+     *
+     * @param key The bin.
+     * @return The number of points in the bin, 0 if it's empty.
+     */
+    public long count(int key) {
+        int i = slot(key);
+        return used[i] ? count[i] : 0;
+    }
+
+    /**
+     * The mean y of a bin.
+     *
+     * @param key The bin.
+     * @return The mean y of the bin, NaN if it's empty.
+     */
+    public double mean(int key) {
+        int i = slot(key);
+        return used[i] ? mean[i] : Double.NaN;
+    }
+
+    /**
+     * The population standard deviation of y in a bin, as StdDev computes it.
+     *
+     * @param key The bin.
+     * @return The standard deviation of y in the bin, NaN if it's empty.
+     */
+    public double stdDev(int key) {
+        int i = slot(key);
+        return used[i] ? Math.sqrt(m2[i] / count[i]) : Double.NaN;
+    }
+
+    /**
+     * A collector that groups points, in parallel if the stream is parallel.
+     *
+     * @param binWidth The width of the bins x is grouped into.
+     * @return A collector that groups points.
+     */
+    public static Collector<Vec, GroupedStats, GroupedStats> collector(double binWidth) {
+        return Collector.of(
+                () -> new GroupedStats(binWidth),
+                GroupedStats::add,
+                GroupedStats::merge,
+                Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH
+        );
+    }
+
+    /**
+     * Groups indexed points in parallel.
+     *
+     * @param binWidth The width of the bins x is grouped into.
+     * @param n The number of points.
+     * @param x The x value of each point.
+     * @param y The y value of each point.
+     * @return The grouped points.
+     */
+    public static GroupedStats of(double binWidth, int n, IntToDoubleFunction x, IntToDoubleFunction y) {
+        return IntStream.range(0, n).parallel().collect(
+                () -> new GroupedStats(binWidth),
+                (stats, i) -> stats.add(x.applyAsDouble(i), y.applyAsDouble(i)),
+                GroupedStats::merge
+        );
+    }
+
+    /**
+     * Groups points given as two arrays, in parallel.
+     *
+     * @param binWidth The width of the bins x is grouped into.
+     * @param x The x values.
+     * @param y The y values, as many as x values.
+     * @return The grouped points.
+     */
+    public static GroupedStats of(double binWidth, double[] x, double[] y) {
+        if (x.length != y.length)
+            throw new IllegalArgumentException("There are " + x.length + " x values and " + y.length + " y values.");
+        return of(binWidth, x.length, i -> x[i], i -> y[i]);
+    }
+
+    /**
+     * Groups points given as two streams, in parallel.
+     *
+     * @param binWidth The width of the bins x is grouped into.
+     * @param x The x values.
+     * @param y The y values, as many as x values.
+     * @return The grouped points.
+     */
+    public static GroupedStats of(double binWidth, DoubleStream x, DoubleStream y) {
+        return of(binWidth, x.toArray(), y.toArray());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        Arrays.stream(bins()).forEach(key -> sb.append(x(key)).append(": n = ").append(count(key))
+                .append(", mean = ").append(mean(key)).append(", sd = ").append(stdDev(key)).append("\n"));
+        return sb.toString();
+    }
+}
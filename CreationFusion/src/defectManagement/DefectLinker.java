@@ -0,0 +1,395 @@
+package defectManagement;
+
+import ReadWrite.ReadManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import snapDefects.SnapDefect;
+
+/**
+ * Links snap defects across frames by giving snap defects of the same defect
+ * the same ID. Frames are proffered one at a time, in order, and only the
+ * ends of the recent tracks are kept in memory, so a movie of any length can
+ * be linked as it's read or detected.
+ *
+ * Each snap defect is linked to the end of a track of the same charge that is
+ * no more than maxDisplacement away and was last seen no more than maxGap
+ * frames ago. The ends of the tracks are kept in a spatial hash with cells the
+ * size of maxDisplacement, so only the 3 by 3 cells around a snap defect are
+ * searched. Links are chosen greedily, nearest first, or, if useOptimal is
+ * set, so that the sum of the squared distances is least, with an unlinked
+ * snap defect costing maxDisplacement squared.
+ *
+ * IDs are given out in order from 0 for each charge, so they index a
+ * DefectSet without waste.
+ *
+ * @author E. Dov Neimand
+ */
+public class DefectLinker {
+
+    private final double maxDisplacement;
+    private int maxGap = 0;
+    private boolean optimal = false;
+    private final Tracks pos = new Tracks(), neg = new Tracks();
+
+    /**
+     * The constructor.
+     *
+     * @param maxDisplacement The furthest a defect may move between the
+     * frames it's seen in.
+     */
+    public DefectLinker(double maxDisplacement) {
+        this.maxDisplacement = maxDisplacement;
+    }
+
+    /**
+     * Sets the number of frames a defect may go unseen and still be linked.
+     *
+     * @param maxGap The number of frames a defect may go unseen.
+     * @return this
+     */
+    public DefectLinker setMaxGap(int maxGap) {
+        this.maxGap = maxGap;
+        return this;
+    }
+
+    /**
+     * Chooses links with least total squared distance instead of greedily.
+     * This is slower, but better when defects are crowded.
+     *
+     * @param optimal True for least cost links, false for greedy links.
+     * @return this
+     */
+    public DefectLinker useOptimal(boolean optimal) {
+        this.optimal = optimal;
+        return this;
+    }
+
+    /**
+     * The number of IDs given out so far.
+     *
+     * @param charge The charge of the defects.
+     * @return The number of IDs given to defects of the charge.
+     */
+    public int numTracks(boolean charge) {
+        return tracks(charge).nextId;
+    }
+
+    /**
+     * The tracks of a charge.
+     *
+     * @param charge The charge of the tracks.
+     * @return The tracks of the charge.
+     */
+    private Tracks tracks(boolean charge) {
+        return charge ? pos : neg;
+    }
+
+    /**
+     * Sets the IDs of the snap defects of the next frame. All the snap defects
+     * must have the same time, and it must be later than the time of the
+     * previous frame.
+     *
+     * @param <T> The type of snap defect.
+     * @param frame The snap defects of the frame.
+     * @return The frame, with IDs set.
+     */
+    public <T extends SnapDefect> List<T> link(List<T> frame) {
+        if (frame.isEmpty()) return frame;
+        int time = frame.get(0).getTime();
+
+        for (boolean charge : new boolean[]{DefectManager.POS, DefectManager.NEG})
+            tracks(charge).link(frame.stream()
+                    .filter(snap -> snap.getCharge() == charge)
+                    .toArray(SnapDefect[]::new), time);
+
+        return frame;
+    }
+
+    /**
+     * Links every snap defect in a file, ignoring any IDs in it. The file is
+     * read one frame at a time, and each frame is handed on once it's linked,
+     * so only one frame and the ends of the recent tracks are in memory. The
+     * rows of the file must be in order of time.
+     *
+     * @param readManager The file.
+     * @param linked Receives each frame, with IDs set, in order of time.
+     * @return The number of frames linked.
+     * @throws IllegalArgumentException If the rows are not in order of time.
+     */
+    public int linkAll(ReadManager readManager, Consumer<List<SnapDefect>> linked) {
+        int frames = 0;
+        List<SnapDefect> frame = new ArrayList<>();
+
+        try (Stream<SnapDefect> snaps = readManager.snapDefects()) {
+            Iterator<SnapDefect> iter = snaps.iterator();
+            while (iter.hasNext()) {
+                SnapDefect snap = iter.next();
+                if (!frame.isEmpty() && snap.getTime() != frame.get(0).getTime()) {
+                    if (snap.getTime() < frame.get(0).getTime())
+                        throw new IllegalArgumentException("The rows are not in order of time: "
+                                + snap.getTime() + " follows " + frame.get(0).getTime() + ".");
+                    linked.accept(link(frame));
+                    frames++;
+                    frame = new ArrayList<>();
+                }
+                frame.add(snap);
+            }
+        }
+
+        if (!frame.isEmpty()) {
+            linked.accept(link(frame));
+            frames++;
+        }
+        return frames;
+    }
+
+    /**
+     * The ends of the tracks of one charge.
+     */
+    private class Tracks {
+
+        private int nextId = 0;
+        private List<End> ends = new ArrayList<>();
+
+        /**
+         * The last place a track was seen.
+         */
+        private class End {
+
+            public final int id;
+            public final double x, y;
+            public final int time;
+
+            /**
+             * The constructor.
+             *
+             * @param id The ID of the track.
+             * @param snap The last snap defect of the track.
+             */
+            public End(int id, SnapDefect snap) {
+                this.id = id;
+                this.x = snap.loc.getX();
+                this.y = snap.loc.getY();
+                this.time = snap.getTime();
+            }
+        }
+
+        /**
+         * The key of the cell of the spatial hash a point is in.
+         *
+         * @param x The x value.
+         * @param y The y value.
+         * @return The key of the cell.
+         */
+        private long key(double x, double y) {
+            return key((int) Math.floor(x / maxDisplacement), (int) Math.floor(y / maxDisplacement));
+        }
+
+        /**
+         * The key of a cell of the spatial hash.
+         *
+         * @param col The column of the cell.
+         * @param row The row of the cell.
+         * @return The key of the cell.
+         */
+        private long key(int col, int row) {
+            return ((long) col << 32) | (row & 0xffffffffL);
+        }
+
+        /**
+         * Links the snap defects of one frame to the ends of the tracks, and
+         * starts new tracks for those that aren't linked.
+         *
+         * @param frame The snap defects of this charge in the frame.
+         * @param time The time of the frame.
+         */
+        public void link(SnapDefect[] frame, int time) {
+            ends.removeIf(end -> time - end.time > maxGap + 1);
+
+            Map<Long, List<Integer>> hash = new HashMap<>(ends.size() * 2);
+            for (int i = 0; i < ends.size(); i++)
+                hash.computeIfAbsent(key(ends.get(i).x, ends.get(i).y), k -> new ArrayList<>(2)).add(i);
+
+            List<double[]> candidates = new ArrayList<>();
+            double maxDistSq = maxDisplacement * maxDisplacement;
+            for (int s = 0; s < frame.length; s++) {
+                double x = frame[s].loc.getX(), y = frame[s].loc.getY();
+                int col = (int) Math.floor(x / maxDisplacement), row = (int) Math.floor(y / maxDisplacement);
+                for (int dc = -1; dc <= 1; dc++)
+                    for (int dr = -1; dr <= 1; dr++) {
+                        List<Integer> cell = hash.get(key(col + dc, row + dr));
+                        if (cell == null) continue;
+                        for (int e : cell) {
+                            double dx = ends.get(e).x - x, dy = ends.get(e).y - y, distSq = dx * dx + dy * dy;
+                            if (distSq <= maxDistSq) candidates.add(new double[]{distSq, s, e});
+                        }
+                    }
+            }
+
+            int[] endOf = optimal ? optimalLinks(candidates, frame.length) : greedyLinks(candidates, frame.length);
+
+            List<End> next = new ArrayList<>(ends.size() + frame.length);
+            boolean[] continued = new boolean[ends.size()];
+            for (int s = 0; s < frame.length; s++) {
+                int id;
+                if (endOf[s] >= 0) {
+                    id = ends.get(endOf[s]).id;
+                    continued[endOf[s]] = true;
+                } else id = nextId++;
+                frame[s].setId(id);
+                next.add(new End(id, frame[s]));
+            }
+            for (int e = 0; e < ends.size(); e++) if (!continued[e]) next.add(ends.get(e));
+            ends = next;
+        }
+
+        /**
+         * Links nearest first.
+         *
+         * @param candidates Each possible link as its squared distance, snap
+         * index and end index.
+         * @param numSnaps The number of snap defects in the frame.
+         * @return The index of the end each snap defect is linked to, or -1.
+         */
+        private int[] greedyLinks(List<double[]> candidates, int numSnaps) {
+            candidates.sort((a, b) -> Double.compare(a[0], b[0]));
+            int[] endOf = new int[numSnaps];
+            Arrays.fill(endOf, -1);
+            boolean[] taken = new boolean[ends.size()];
+            for (double[] c : candidates) {
+                int s = (int) c[1], e = (int) c[2];
+                if (endOf[s] < 0 && !taken[e]) {
+                    endOf[s] = e;
+                    taken[e] = true;
+                }
+            }
+            return endOf;
+        }
+
+        /**
+         * Links with least total cost. The candidates are split into groups of
+         * snap defects and ends that compete with each other, and each group
+         * is solved with the Hungarian algorithm.
+         *
+         * @param candidates Each possible link as its squared distance, snap
+         * index and end index.
+         * @param numSnaps The number of snap defects in the frame.
+         * @return The index of the end each snap defect is linked to, or -1.
+         */
+        private int[] optimalLinks(List<double[]> candidates, int numSnaps) {
+            int[] endOf = new int[numSnaps];
+            Arrays.fill(endOf, -1);
+
+            int[] parent = new int[numSnaps + ends.size()];
+            Arrays.setAll(parent, i -> i);
+            for (double[] c : candidates) union(parent, (int) c[1], numSnaps + (int) c[2]);
+
+            Map<Integer, List<double[]>> groups = candidates.stream()
+                    .collect(Collectors.groupingBy(c -> find(parent, (int) c[1])));
+
+            for (List<double[]> group : groups.values()) {
+                int[] snaps = group.stream().mapToInt(c -> (int) c[1]).distinct().toArray(),
+                        groupEnds = group.stream().mapToInt(c -> (int) c[2]).distinct().toArray();
+                Map<Integer, Integer> snapIndex = new HashMap<>(), endIndex = new HashMap<>();
+                for (int i = 0; i < snaps.length; i++) snapIndex.put(snaps[i], i);
+                for (int j = 0; j < groupEnds.length; j++) endIndex.put(groupEnds[j], j);
+
+                double noLink = maxDisplacement * maxDisplacement;
+                double[][] cost = new double[snaps.length][groupEnds.length + snaps.length];
+                for (double[] row : cost) Arrays.fill(row, Double.POSITIVE_INFINITY);
+                for (int i = 0; i < snaps.length; i++) cost[i][groupEnds.length + i] = noLink;
+                for (double[] c : group) cost[snapIndex.get((int) c[1])][endIndex.get((int) c[2])] = c[0];
+
+                int[] assigned = hungarian(cost);
+                for (int i = 0; i < snaps.length; i++)
+                    if (assigned[i] < groupEnds.length) endOf[snaps[i]] = groupEnds[assigned[i]];
+            }
+
+            return endOf;
+        }
+    }
+
+    /**
+     * Joins two sets.
+     *
+     * @param parent The union find forest.
+     * @param a An element.
+     * @param b An element.
+     */
+    private static void union(int[] parent, int a, int b) {
+        parent[find(parent, a)] = find(parent, b);
+    }
+
+    /**
+     * The root of an element, halving the path along the way.
+     *
+     * @param parent The union find forest.
+     * @param a An element.
+     * @return The root of the element.
+     */
+    private static int find(int[] parent, int a) {
+        while (parent[a] != a) a = parent[a] = parent[parent[a]];
+        return a;
+    }
+
+    /**
+     * The assignment of rows to distinct columns with least total cost, by the
+     * Hungarian algorithm with potentials. There must be at least as many
+     * columns as rows, and each row must have a finite cost somewhere.
+     *
+     * @param cost The cost of assigning each row to each column.
+     * @return The column assigned to each row.
+     */
+    static int[] hungarian(double[][] cost) {
+        int n = cost.length, m = cost[0].length;
+        double[] u = new double[n + 1], v = new double[m + 1];
+        int[] rowOf = new int[m + 1], way = new int[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            rowOf[0] = i;
+            int col0 = 0;
+            double[] minv = new double[m + 1];
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            boolean[] used = new boolean[m + 1];
+            do {
+                used[col0] = true;
+                int row0 = rowOf[col0], col1 = 0;
+                double delta = Double.POSITIVE_INFINITY;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) continue;
+                    double cur = cost[row0 - 1][j - 1] - u[row0] - v[j];
+                    if (cur < minv[j]) {
+                        minv[j] = cur;
+                        way[j] = col0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        col1 = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++)
+                    if (used[j]) {
+                        u[rowOf[j]] += delta;
+                        v[j] -= delta;
+                    } else minv[j] -= delta;
+                col0 = col1;
+            } while (rowOf[col0] != 0);
+            do {
+                int col1 = way[col0];
+                rowOf[col0] = rowOf[col1];
+                col0 = col1;
+            } while (col0 != 0);
+        }
+
+        int[] colOf = new int[n];
+        for (int j = 1; j <= m; j++) if (rowOf[j] != 0) colOf[rowOf[j] - 1] = j - 1;
+        return colOf;
+    }
+}
@@ -13,10 +13,15 @@ import java.io.File;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.function.IntToDoubleFunction;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -58,6 +63,20 @@ public class DefectManager {
 
     }
 
+    /**
+     * A defect manager over defects that have already been loaded, paired and
+     * had their eligibility and velocities set.
+     *
+     * @param posDefects The positive defects.
+     * @param negDefects The negative defects.
+     * @param numFrames The number of frames.
+     */
+    DefectManager(PosDefectSet posDefects, NegDefectSet negDefects, int numFrames) {
+        this.posDefects = posDefects;
+        this.negDefects = negDefects;
+        this.numFrames = numFrames;
+    }
+
     /**
      * For copy construction.
      */
@@ -85,7 +104,46 @@ public class DefectManager {
         negDefects = new NegDefectSet(mfv.maxNegID + 1);
         this.numFrames = mfv.frameCount + 1;
 
-        readManager.snapDefects().parallel()
+        build(readManager.snapDefects(), window, ball, timeToEdge);
+    }
+
+    /**
+     * Constructs a DefectManager from snap defects that are already in
+     * memory, for example from DefectDetector and DefectLinker, without a
+     * round trip through a file. Snap defects without an ID are ignored.
+     *
+     * @param snaps The snap defects.
+     * @param window A window, outside of which no defects are tracked.
+     * @param ball defects must have their creation or annihilation events
+     * closer than this threshold to be considered a pair.
+     * @param timeToEdge The time an event must be from the beginning or end of
+     * time.
+     */
+    public DefectManager(Collection<? extends SnapDefect> snaps, Rectangle window, ProximityMetric ball, int timeToEdge) {
+
+        posDefects = new PosDefectSet(snaps.stream().filter(snap -> snap.isTracked() && snap.getCharge())
+                .mapToInt(SnapDefect::getId).max().orElse(0) + 1);
+        negDefects = new NegDefectSet(snaps.stream().filter(snap -> snap.isTracked() && !snap.getCharge())
+                .mapToInt(SnapDefect::getId).max().orElse(0) + 1);
+        this.numFrames = snaps.stream().mapToInt(SnapDefect::getTime).max().orElse(0) + 1;
+
+        build(snaps.stream(), window, ball, timeToEdge);
+    }
+
+    /**
+     * Adds the tracked snap defects in the window, and sets the velocities,
+     * eligibility, pairs and fuse up of the defects.
+     *
+     * @param snaps The snap defects.
+     * @param window A window, outside of which no defects are tracked.
+     * @param ball defects must have their creation or annihilation events
+     * closer than this threshold to be considered a pair.
+     * @param timeToEdge The time an event must be from the beginning or end of
+     * time.
+     */
+    private void build(Stream<? extends SnapDefect> snaps, Rectangle window, ProximityMetric ball, int timeToEdge) {
+
+        snaps.parallel()
                 .filter(snap -> snap.isTracked())
                 .filter(snap -> window.contains(snap.loc))
                 .forEach(snap -> defects(snap.getCharge()).add(snap));
@@ -152,6 +210,25 @@ public class DefectManager {
         return Stream.concat(posSnaps(), negSnaps());
     }
 
+    /**
+     * The snap defects of each frame, gathered in a single pass so that a
+     * frame's snap defects can be looked up without filtering all of them.
+     *
+     * @return For each time, the snap defects at that time.
+     */
+    public SnapDefect[][] snapsByTime() {
+        int[] counts = new int[numFrames];
+        snaps().forEach(snap -> counts[snap.getTime()]++);
+
+        SnapDefect[][] byTime = new SnapDefect[counts.length][];
+        Arrays.setAll(byTime, t -> new SnapDefect[counts[t]]);
+
+        int[] filled = new int[counts.length];
+        snaps().forEach(snap -> byTime[snap.getTime()][filled[snap.getTime()]++] = snap);
+
+        return byTime;
+    }
+
     /**
      * Gets all the frames from the file.
      *
@@ -469,6 +546,64 @@ public class DefectManager {
                 .filter(pair -> pair.workingPair());
     }
 
+    /**
+     * Visits every frame of every pair, one positive defect after another.
+     * Unlike pairs(isBirth), no PairedSnDef is created for each frame.
+     *
+     * @param isBirth true for creation pairs, false for annihilation pairs.
+     * @param visitor Visits each frame of each pair. The frame handed to it is
+     * reused.
+     */
+    public void forEachPairFrame(boolean isBirth, PairFrameVisitor visitor) {
+        PairFrame frame = new PairFrame();
+        pairedPos(isBirth).forEach(pos -> pos.forEachPairFrame(isBirth, frame, visitor));
+    }
+
+    /**
+     * Visits every frame of every pair in parallel. Each thread gets its own
+     * accumulator and its own reused frame, and the accumulators are combined
+     * at the end.
+     *
+     * @param <A> The type of the accumulator.
+     * @param isBirth true for creation pairs, false for annihilation pairs.
+     * @param accumulator Creates a new, empty, accumulator.
+     * @param visitor Adds a frame to an accumulator.
+     * @param combiner Combines two accumulators.
+     * @return The combination of all the accumulators.
+     */
+    public <A> A forEachPairFrame(boolean isBirth, Supplier<A> accumulator, BiConsumer<A, PairFrame> visitor, BinaryOperator<A> combiner) {
+
+        return pairedPos(isBirth).parallel().collect(Collector.of(
+                () -> new PairFrameAccumulator<>(accumulator.get()),
+                (acc, pos) -> pos.forEachPairFrame(isBirth, acc.frame, frame -> visitor.accept(acc.value, frame)),
+                (a, b) -> {
+                    a.value = combiner.apply(a.value, b.value);
+                    return a;
+                },
+                acc -> acc.value
+        ));
+    }
+
+    /**
+     * A per thread accumulator together with the frame that thread reuses.
+     *
+     * @param <A> The type of the accumulator.
+     */
+    private static class PairFrameAccumulator<A> {
+
+        public A value;
+        public final PairFrame frame = new PairFrame();
+
+        /**
+         * The constructor.
+         *
+         * @param value The empty accumulator.
+         */
+        public PairFrameAccumulator(A value) {
+            this.value = value;
+        }
+    }
+
     /**
      * All the negative defects.
      *
@@ -737,6 +872,31 @@ public class DefectManager {
         }
     }
 
+    /**
+     * A defect manager for the proffered file or folder of files. The fully
+     * built defect manager is saved to a cache file beside the source, and
+     * later calls with the same input files and parameters load the cache
+     * instead of rebuilding.
+     *
+     * @param source A data file or a folder containing data files.
+     * @param window A window, outside of which no defects are tracked.
+     * @param ball A definition of proximity.
+     * @param timeToEdge Proximity to the end and beginning of time.
+     * @return The defect manager.
+     */
+    public static DefectManager cached(File source, Rectangle window, ProximityMetric ball, int timeToEdge) {
+        return new DefectManagerCache(source, window, ball, timeToEdge).get();
+    }
+
+    /**
+     * The number of frames.
+     *
+     * @return The number of frames.
+     */
+    public int getNumFrames() {
+        return numFrames;
+    }
+
     /**
      * A stream of setFrames.
      *
@@ -767,12 +927,18 @@ public class DefectManager {
      * @return Returns a bunch of data points, with x values the distance
      * between the paired defects and y values f(pair)
      */
-    public List<Vec> pairsAtDistance(Function<PairedSnDef, Double> f, boolean isBirth, double maxDist) {
-        return pairedPos(isBirth)
-                .flatMap(posDef -> posDef.defectPairs(isBirth))
-                .filter(pair -> pair.dist() < maxDist)
-                .map(pair -> new Vec(pair.dist(), f.apply(pair)))
-                .collect(Collectors.toList());
+    public List<Vec> pairsAtDistance(ToDoubleFunction<PairFrame> f, boolean isBirth, double maxDist) {
+        return forEachPairFrame(isBirth,
+                ArrayList<Vec>::new,
+                (list, frame) -> {
+                    double dist = frame.dist();
+                    if (dist < maxDist) list.add(new Vec(dist, f.applyAsDouble(frame)));
+                },
+                (a, b) -> {
+                    a.addAll(b);
+                    return a;
+                }
+        );
     }
 
     /**
@@ -0,0 +1,336 @@
+package defectManagement;
+
+import GeometricTools.ProximityMetric;
+import GeometricTools.Rectangle;
+import GeometricTools.Vec;
+import ReadWrite.ReadManager;
+import SnapManagement.Defect;
+import SnapManagement.PosDefect;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import snapDefects.NegSnapDefect;
+import snapDefects.PosSnapDefect;
+import snapDefects.SnapDefect;
+
+/**
+ * Saves a fully built DefectManager to a binary file beside its source data,
+ * and loads it back the next time the same data is requested with the same
+ * parameters.
+ *
+ * The file starts with a magic number, a format version, and a key. The key
+ * is a SHA-256 hash of the bytes of every input file together with the
+ * window, proximity metric and time to edge. If any of these change, or the
+ * format version changes, the key no longer matches and the defect manager is
+ * rebuilt and the cache rewritten.
+ *
+ * After the header come the number of frames, and then the positive and
+ * negative defects, each written at its index in the defect set with its
+ * eligibility, fuse up, pair and trajectory. The cache is memory mapped when
+ * it's read.
+ *
+ * @author E. Dov Neimand
+ */
+public class DefectManagerCache {
+
+    private static final int MAGIC = 0x444D4341, VERSION = 2;
+    private static final int KEY_LENGTH = 32, NO_PAIR = -1;
+
+    private final File source, cacheFile;
+    private final Rectangle window;
+    private final ProximityMetric ball;
+    private final int timeToEdge;
+
+    /**
+     * The constructor.
+     *
+     * @param source A data file or a folder containing data files.
+     * @param window A window, outside of which no defects are tracked.
+     * @param ball A definition of proximity.
+     * @param timeToEdge Proximity to the end and beginning of time.
+     */
+    public DefectManagerCache(File source, Rectangle window, ProximityMetric ball, int timeToEdge) {
+        this.source = source;
+        this.window = window;
+        this.ball = ball;
+        this.timeToEdge = timeToEdge;
+        this.cacheFile = new File(source.getAbsoluteFile().getParentFile(), source.getName() + ".dmcache");
+    }
+
+    /**
+     * The file the cache is stored in.
+     *
+     * @return The file the cache is stored in.
+     */
+    public File getCacheFile() {
+        return cacheFile;
+    }
+
+    /**
+     * Loads the defect manager from the cache if the cache is up to date,
+     * otherwise builds it from the source and saves it to the cache.
+     *
+     * @return The defect manager.
+     */
+    public DefectManager get() {
+        byte[] key = key();
+
+        DefectManager dm = load(key);
+        if (dm != null) return dm;
+
+        dm = source.isDirectory()
+                ? new DefectManager(source, window, ball, timeToEdge)
+                : new DefectManager(ReadManager.defaultFileFormat(source), window, ball, timeToEdge);
+
+        try {
+            save(dm, key);
+        } catch (IOException ex) {
+            Logger.getLogger(DefectManagerCache.class.getName()).log(Level.WARNING, "Unable to write " + cacheFile, ex);
+        }
+
+        return dm;
+    }
+
+    /**
+     * The input files in the order the defect manager reads them.
+     *
+     * @return The input files.
+     */
+    private List<File> inputFiles() {
+        return source.isDirectory() ? Arrays.asList(source.listFiles()) : List.of(source);
+    }
+
+    /**
+     * A hash of the input files and the parameters.
+     *
+     * @return A hash of the input files and the parameters.
+     */
+    private byte[] key() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer params = ByteBuffer.allocate(8 * Double.BYTES + 3 * Integer.BYTES);
+            params.putInt(VERSION)
+                    .putDouble(window.getX()).putDouble(window.getY())
+                    .putDouble(window.width()).putDouble(window.height())
+                    .putDouble(window.getNearEdge())
+                    .putDouble(ball.rSpace).putInt(ball.rTime)
+                    .putInt(timeToEdge);
+            digest.update(params.array(), 0, params.position());
+
+            byte[] buffer = new byte[1 << 16];
+            for (File file : inputFiles()) {
+                digest.update(file.getName().getBytes());
+                try (InputStream in = Files.newInputStream(file.toPath())) {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) digest.update(buffer, 0, read);
+                }
+            }
+            return digest.digest();
+
+        } catch (NoSuchAlgorithmException | IOException ex) {
+            Logger.getLogger(DefectManagerCache.class.getName()).log(Level.SEVERE, null, ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Saves the defect manager to the cache file. The file is written beside
+     * the cache and then moved into place so that a partially written cache
+     * is never read.
+     *
+     * @param dm The defect manager to be saved.
+     * @param key The hash of the input files and parameters.
+     * @throws IOException If the cache can't be written.
+     */
+    private void save(DefectManager dm, byte[] key) throws IOException {
+        File temp = new File(cacheFile.getPath() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.write(key);
+            out.writeInt(dm.getNumFrames());
+            writeDefects(out, dm.defects(DefectManager.POS));
+            writeDefects(out, dm.defects(DefectManager.NEG));
+        }
+
+        Files.move(temp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes the defects of one charge.
+     *
+     * @param out The stream to write to.
+     * @param defects The defects of one charge.
+     * @throws IOException If there's trouble writing.
+     */
+    private static void writeDefects(DataOutputStream out, DefectSet<?> defects) throws IOException {
+        Defect[] array = defects.array();
+        out.writeInt(array.length);
+        out.writeInt(defects.size());
+
+        for (int i = 0; i < array.length; i++) {
+            Defect def = array[i];
+            if (def == null) continue;
+
+            out.writeInt(i);
+            for (boolean event : new boolean[]{DefectManager.BIRTH, DefectManager.DEATH}) {
+                out.writeBoolean(def.isEligable(event));
+                out.writeInt(def.hasPair(event) ? def.getPair(event).getId() : NO_PAIR);
+                out.writeBoolean(def instanceof PosDefect && ((PosDefect) def).isFuseUp(event));
+            }
+
+            List<? extends SnapDefect> path = def.getLifeCourse();
+            out.writeInt(path.size());
+            for (SnapDefect snap : path) {
+                out.writeBoolean(snap != null);
+                if (snap != null) writeSnap(out, snap);
+            }
+        }
+    }
+
+    /**
+     * Writes a single snap defect.
+     *
+     * @param out The stream to write to.
+     * @param snap The snap defect to be written.
+     * @throws IOException If there's trouble writing.
+     */
+    private static void writeSnap(DataOutputStream out, SnapDefect snap) throws IOException {
+        out.writeDouble(snap.loc.getX());
+        out.writeDouble(snap.loc.getY());
+        out.writeInt(snap.getTime());
+        out.writeInt(snap.getId());
+        out.writeInt(snap.getExperimentNumber());
+
+        if (snap.getCharge()) out.writeDouble(((PosSnapDefect) snap).tailAngle().rad());
+        else for (int i = 0; i < 3; i++)
+                out.writeDouble(((NegSnapDefect) snap).tailAngle()[i].rad());
+
+        Vec v = snap.getVelocity();
+        out.writeDouble(v == null ? Double.NaN : v.getX());
+        out.writeDouble(v == null ? Double.NaN : v.getY());
+    }
+
+    /**
+     * Loads the defect manager from the cache.
+     *
+     * @param key The hash of the current input files and parameters.
+     * @return The cached defect manager, or null if there is no cache or the
+     * cache is out of date.
+     */
+    private DefectManager load(byte[] key) {
+        if (!cacheFile.isFile()) return null;
+
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (in.remaining() < 2 * Integer.BYTES + KEY_LENGTH
+                    || in.getInt() != MAGIC || in.getInt() != VERSION)
+                return null;
+
+            byte[] cachedKey = new byte[KEY_LENGTH];
+            in.get(cachedKey);
+            if (!MessageDigest.isEqual(key, cachedKey)) return null;
+
+            int numFrames = in.getInt();
+
+            PosDefectSet posDefects = new PosDefectSet(in.getInt());
+            int[][] posPairs = readDefects(in, posDefects);
+            NegDefectSet negDefects = new NegDefectSet(in.getInt());
+            readDefects(in, negDefects);
+
+            for (int i = 0; i < posPairs.length; i++) {
+                PosDefect pos = posDefects.get(posPairs[i][0]);
+                if (posPairs[i][1] != NO_PAIR) pos.setPair(negDefects.get(posPairs[i][1]), DefectManager.BIRTH);
+                if (posPairs[i][2] != NO_PAIR) pos.setPair(negDefects.get(posPairs[i][2]), DefectManager.DEATH);
+            }
+
+            return new DefectManager(posDefects, negDefects, numFrames);
+
+        } catch (IOException | RuntimeException ex) {
+            Logger.getLogger(DefectManagerCache.class.getName()).log(Level.WARNING, "Unable to read " + cacheFile + ", rebuilding.", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Reads the defects of one charge into the proffered set.
+     *
+     * @param in The cache.
+     * @param defects An empty set with the cached array length.
+     * @return For each defect read, its index, the index of its twin and the
+     * index of its spouse.
+     */
+    @SuppressWarnings("unchecked") // Defect.charged makes defects of the set's charge.
+    private static <T extends Defect> int[][] readDefects(ByteBuffer in, DefectSet<T> defects) {
+        int[][] pairs = new int[in.getInt()][3];
+
+        for (int[] pair : pairs) {
+            pair[0] = in.getInt();
+
+            boolean[] eligible = new boolean[2], fuseUp = new boolean[2];
+            for (int event = 0; event < 2; event++) {
+                eligible[event] = in.get() != 0;
+                pair[event + 1] = in.getInt();
+                fuseUp[event] = in.get() != 0;
+            }
+
+            Defect def = null;
+            int pathSize = in.getInt();
+            for (int i = 0; i < pathSize; i++) {
+                if (in.get() == 0) continue;
+                SnapDefect snap = readSnap(in, defects.charge());
+                if (def == null) def = Defect.charged(snap);
+                else def.addSnap(snap);
+            }
+
+            def.setEligable(DefectManager.BIRTH, eligible[0]);
+            def.setEligable(DefectManager.DEATH, eligible[1]);
+            if (def instanceof PosDefect) {
+                ((PosDefect) def).setFuseUp(DefectManager.BIRTH, fuseUp[0]);
+                ((PosDefect) def).setFuseUp(DefectManager.DEATH, fuseUp[1]);
+            }
+
+            defects.add((T) def);
+        }
+
+        return pairs;
+    }
+
+    /**
+     * Reads a single snap defect.
+     *
+     * @param in The cache.
+     * @param charge The charge of the snap defect.
+     * @return The snap defect.
+     */
+    private static SnapDefect readSnap(ByteBuffer in, boolean charge) {
+        double x = in.getDouble(), y = in.getDouble();
+        int t = in.getInt(), id = in.getInt(), experimentNumber = in.getInt();
+
+        SnapDefect snap = charge
+                ? new PosSnapDefect(x, y, t, id, in.getDouble())
+                : new NegSnapDefect(x, y, t, id, in.getDouble(), in.getDouble(), in.getDouble());
+
+        double vx = in.getDouble(), vy = in.getDouble();
+        if (!Double.isNaN(vx) || !Double.isNaN(vy)) snap.setVelocity(new Vec(vx, vy));
+
+        return snap.setExperimentNumber(experimentNumber);
+    }
+}
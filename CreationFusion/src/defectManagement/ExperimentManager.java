@@ -0,0 +1,324 @@
+package defectManagement;
+
+import GeometricTools.ProximityMetric;
+import GeometricTools.Rectangle;
+import GeometricTools.Vec;
+import ReadWrite.ReadManager;
+import SnapManagement.Defect;
+import SnapManagement.NegDefect;
+import SnapManagement.PosDefect;
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Manages defects from several experiments. Unlike DefectManager.mergeIn,
+ * each experiment keeps its own DefectManager with its own IDs and its own
+ * number of frames, and every snap defect is labeled with the number of its
+ * experiment. Pairing happens within each experiment, and the experiments are
+ * built and analyzed in parallel.
+ *
+ * Statistics are given as a Breakdown, with the value pooled over all the
+ * experiments and the value for each experiment.
+ *
+ * @author E. Dov Neimand
+ */
+public class ExperimentManager {
+
+    private final DefectManager[] experiments;
+    private String name = "";
+
+    /**
+     * Manages the proffered defect managers, one per experiment. The
+     * experiment number of each snap defect is set to the index of its
+     * defect manager.
+     *
+     * @param experiments The defect managers, one per experiment.
+     */
+    public ExperimentManager(DefectManager... experiments) {
+        this.experiments = experiments;
+        IntStream.range(0, experiments.length).parallel().forEach(i
+                -> experiments[i].snaps().forEach(snap -> snap.setExperimentNumber(i))
+        );
+    }
+
+    /**
+     * Loads each of the proffered files as its own experiment. Folders are
+     * replaced with the files inside them.
+     *
+     * @param window A window, outside of which no defects are tracked.
+     * @param ball A definition of proximity.
+     * @param timeToEdge Proximity to the end and beginning of time.
+     * @param sources Data files, or folders containing data files.
+     */
+    public ExperimentManager(Rectangle window, ProximityMetric ball, int timeToEdge, File... sources) {
+        this(load(window, ball, timeToEdge, sources));
+    }
+
+    /**
+     * Loads each file as its own defect manager, in parallel.
+     *
+     * @param window A window, outside of which no defects are tracked.
+     * @param ball A definition of proximity.
+     * @param timeToEdge Proximity to the end and beginning of time.
+     * @param sources Data files, or folders containing data files.
+     * @return A defect manager for each file.
+     */
+    private static DefectManager[] load(Rectangle window, ProximityMetric ball, int timeToEdge, File... sources) {
+        File[] files = Arrays.stream(sources)
+                .flatMap(source -> source.isDirectory() ? Arrays.stream(source.listFiles()) : Stream.of(source))
+                .toArray(File[]::new);
+
+        return Arrays.stream(files).parallel()
+                .map(file -> new DefectManager(
+                        ReadManager.defaultFileFormat(file),
+                        window,
+                        ball,
+                        timeToEdge
+                ).setName(file.getName()))
+                .toArray(DefectManager[]::new);
+    }
+
+    /**
+     * The number of experiments.
+     *
+     * @return The number of experiments.
+     */
+    public int numExperiments() {
+        return experiments.length;
+    }
+
+    /**
+     * The defect manager of a single experiment.
+     *
+     * @param experimentNumber The number of the experiment.
+     * @return The defect manager of the experiment.
+     */
+    public DefectManager experiment(int experimentNumber) {
+        return experiments[experimentNumber];
+    }
+
+    /**
+     * The defect managers of the experiments, in order of experiment number.
+     *
+     * @return The defect managers of the experiments.
+     */
+    public Stream<DefectManager> experiments() {
+        return Arrays.stream(experiments);
+    }
+
+    /**
+     * The positive defects of all the experiments. Note, IDs are only unique
+     * within an experiment.
+     *
+     * @return The positive defects of all the experiments.
+     */
+    public Stream<PosDefect> positives() {
+        return experiments().flatMap(DefectManager::positives);
+    }
+
+    /**
+     * The negative defects of all the experiments. Note, IDs are only unique
+     * within an experiment.
+     *
+     * @return The negative defects of all the experiments.
+     */
+    public Stream<NegDefect> negatives() {
+        return experiments().flatMap(DefectManager::negatives);
+    }
+
+    /**
+     * All the defects of all the experiments.
+     *
+     * @return All the defects of all the experiments.
+     */
+    public Stream<Defect> all() {
+        return experiments().flatMap(DefectManager::all);
+    }
+
+    /**
+     * The total number of defects.
+     *
+     * @return The total number of defects.
+     */
+    public int size() {
+        return experiments().mapToInt(DefectManager::size).sum();
+    }
+
+    /**
+     * Applies a function to each experiment in parallel.
+     *
+     * @param <T> The type returned by the function.
+     * @param f The function to be applied to each experiment.
+     * @return The results, in order of experiment number.
+     */
+    public <T> List<T> perExperiment(Function<DefectManager, T> f) {
+        return experiments().parallel().map(f).collect(Collectors.toList());
+    }
+
+    /**
+     * A list of values as a function of time for each experiment, each over
+     * its own frames.
+     *
+     * @param f Given an experiment, a function of time.
+     * @return For each experiment, a list of values as a function of time.
+     */
+    public List<List<Vec>> ofTime(Function<DefectManager, IntToDoubleFunction> f) {
+        return perExperiment(dm -> dm.ofTime(f.apply(dm)));
+    }
+
+    /**
+     * A statistic pooled over all the experiments and for each experiment.
+     */
+    public static class Breakdown {
+
+        /**
+         * The value over the defects of all the experiments together.
+         */
+        public final double pooled;
+
+        /**
+         * The value for each experiment, in order of experiment number.
+         */
+        public final double[] byExperiment;
+
+        /**
+         * The constructor.
+         *
+         * @param pooled The value over all the experiments together.
+         * @param byExperiment The value for each experiment.
+         */
+        public Breakdown(double pooled, double[] byExperiment) {
+            this.pooled = pooled;
+            this.byExperiment = byExperiment;
+        }
+
+        @Override
+        public String toString() {
+            return pooled + " " + Arrays.toString(byExperiment);
+        }
+    }
+
+    /**
+     * The ratio of two counts, pooled and for each experiment.
+     *
+     * @param numerator Counts something in an experiment.
+     * @param denominator Counts something in an experiment.
+     * @return The ratio of the two counts.
+     */
+    private Breakdown ratio(ToLongFunction<DefectManager> numerator, ToLongFunction<DefectManager> denominator) {
+        long[][] counts = experiments().parallel()
+                .map(dm -> new long[]{numerator.applyAsLong(dm), denominator.applyAsLong(dm)})
+                .toArray(long[][]::new);
+
+        long num = 0, den = 0;
+        double[] byExperiment = new double[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            num += counts[i][0];
+            den += counts[i][1];
+            byExperiment[i] = (double) counts[i][0] / counts[i][1];
+        }
+
+        return new Breakdown((double) num / den, byExperiment);
+    }
+
+    /**
+     * The number of positive defects eligible for both a twin and a spouse.
+     *
+     * @param dm An experiment.
+     * @return The number of positive defects eligible for a twin and a spouse.
+     */
+    private static long eligibleForBoth(DefectManager dm) {
+        return dm.positives()
+                .filter(pos -> pos.isEligable(DefectManager.BIRTH) && pos.isEligable(DefectManager.DEATH))
+                .count();
+    }
+
+    /**
+     * The percent of positive defects whose fusion partner is their creation
+     * partner. See DefectManager.spouseIsTwin.
+     *
+     * @return The percent of positive defects whose fusion partner is their
+     * creation partner.
+     */
+    public Breakdown spouseIsTwin() {
+        return ratio(
+                dm -> dm.positives().filter(Defect::spouseIsTwin).count(),
+                ExperimentManager::eligibleForBoth
+        );
+    }
+
+    /**
+     * The percent of positive defects that have a spouse and a twin.
+     *
+     * @return The percent of positive defects that have a spouse and a twin.
+     */
+    public Breakdown hasSpouseAndTwin() {
+        return ratio(
+                dm -> dm.positives().filter(pos -> pos.hasSpouse() && pos.hasTwin()).count(),
+                ExperimentManager::eligibleForBoth
+        );
+    }
+
+    /**
+     * The percent of positive defects that have a spouse.
+     *
+     * @return The percent of positive defects that have a spouse.
+     */
+    public Breakdown hasSpouse() {
+        return ratio(
+                dm -> dm.positives().filter(Defect::hasSpouse).count(),
+                dm -> dm.positives().filter(pos -> pos.isEligable(DefectManager.DEATH)).count()
+        );
+    }
+
+    /**
+     * The percent of positive defects that have a twin.
+     *
+     * @return The percent of positive defects that have a twin.
+     */
+    public Breakdown hasTwin() {
+        return ratio(
+                dm -> dm.positives().filter(Defect::hasTwin).count(),
+                dm -> dm.positives().filter(pos -> pos.isEligable(DefectManager.BIRTH)).count()
+        );
+    }
+
+    /**
+     * The positive to negative defect ratio over all the frames.
+     *
+     * @return The positive to negative defect ratio.
+     */
+    public Breakdown posToNegRatio() {
+        return ratio(
+                dm -> dm.positives().mapToLong(pos -> pos.age() + 1).sum(),
+                dm -> dm.negatives().mapToLong(neg -> neg.age() + 1).sum()
+        );
+    }
+
+    /**
+     * Gets the name of this experiment manager.
+     *
+     * @return The name of this experiment manager.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the name of this experiment manager.
+     *
+     * @param name The name of this experiment manager.
+     * @return this
+     */
+    public ExperimentManager setName(String name) {
+        this.name = name;
+        return this;
+    }
+}
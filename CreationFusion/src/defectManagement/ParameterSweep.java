@@ -0,0 +1,332 @@
+package defectManagement;
+
+import GeometricTools.ProximityMetric;
+import GeometricTools.Rectangle;
+import SnapManagement.Defect;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import snapDefects.SpaceTemp;
+
+/**
+ * Pairs the same defects over and over again for a grid of pairing
+ * parameters. The trajectories are loaded once, and only the births and deaths
+ * of each defect are kept in an immutable snapshot. Each parameter point then
+ * gets its own eligibility and pairing arrays, so the points can be evaluated
+ * in parallel without touching the defects themselves.
+ *
+ * The pairing follows DefectManager.pairDefects exactly, so a point gives the
+ * same values a DefectManager built with the same parameters would give.
+ *
+ * @author E. Dov Neimand
+ */
+public class ParameterSweep {
+
+    private final SpaceTemp[][] posEvents, negEvents;
+    private final int[][] negsByDay, dayStart;
+    private final int numFrames;
+    private final Rectangle window;
+
+    /**
+     * Takes a snapshot of the births and deaths of the defects in the defect
+     * manager. The defect manager is not changed.
+     *
+     * @param dm The loaded defects. Their trajectories have already been
+     * clipped to the window.
+     * @param window The borders of the region the defects were loaded from.
+     * Only its distance from the edge changes over the sweep.
+     */
+    public ParameterSweep(DefectManager dm, Rectangle window) {
+        this.window = window;
+        numFrames = dm.getNumFrames();
+        posEvents = events(dm.positives().toArray(Defect[]::new));
+        negEvents = events(dm.negatives().toArray(Defect[]::new));
+
+        negsByDay = new int[2][];
+        dayStart = new int[2][];
+        for (int event = 0; event < 2; event++) {
+            int[] count = new int[numFrames + 1];
+            for (SpaceTemp st : negEvents[event]) count[st.getTime() + 1]++;
+            for (int t = 0; t < numFrames; t++) count[t + 1] += count[t];
+            dayStart[event] = Arrays.copyOf(count, count.length);
+
+            negsByDay[event] = new int[negEvents[event].length];
+            for (int i = 0; i < negEvents[event].length; i++)
+                negsByDay[event][count[negEvents[event][i].getTime()]++] = i;
+        }
+    }
+
+    /**
+     * The birth and death locations of the defects.
+     *
+     * @param defects The defects.
+     * @return The births at index 0 and the deaths at index 1.
+     */
+    private static SpaceTemp[][] events(Defect[] defects) {
+        SpaceTemp[][] events = new SpaceTemp[2][defects.length];
+        for (int i = 0; i < defects.length; i++) {
+            events[index(DefectManager.BIRTH)][i] = defects[i].getBirth().loc;
+            events[index(DefectManager.DEATH)][i] = defects[i].getDeath().loc;
+        }
+        return events;
+    }
+
+    /**
+     * The index of an event in the snapshot arrays.
+     *
+     * @param isBirth True for birth, false for death.
+     * @return The index of the event.
+     */
+    private static int index(boolean isBirth) {
+        return isBirth ? 0 : 1;
+    }
+
+    /**
+     * The statistics of the pairs found with one set of parameters.
+     */
+    public static class Point {
+
+        public final ProximityMetric ball;
+        public final double nearEdge;
+        public final int timeToEdge;
+        public final double spouseIsTwin, hasSpouse, hasTwin;
+        public final int numTwins, numSpouses;
+
+        /**
+         * The constructor.
+         *
+         * @param ball A definition of closeness.
+         * @param nearEdge The distance from the edge of the window.
+         * @param timeToEdge The time from the beginning and end of time.
+         * @param spouseIsTwin The percent of positive defects whose spouse is
+         * their twin.
+         * @param hasSpouse The percent of positive defects that have a spouse.
+         * @param hasTwin The percent of positive defects that have a twin.
+         * @param numTwins The number of creation pairs.
+         * @param numSpouses The number of annihilation pairs.
+         */
+        public Point(ProximityMetric ball, double nearEdge, int timeToEdge, double spouseIsTwin, double hasSpouse, double hasTwin, int numTwins, int numSpouses) {
+            this.ball = ball;
+            this.nearEdge = nearEdge;
+            this.timeToEdge = timeToEdge;
+            this.spouseIsTwin = spouseIsTwin;
+            this.hasSpouse = hasSpouse;
+            this.hasTwin = hasTwin;
+            this.numTwins = numTwins;
+            this.numSpouses = numSpouses;
+        }
+
+        /**
+         * The names of the columns written by toString.
+         */
+        public static final String HEADER = "rSpace,rTime,nearEdge,timeToEdge,spouseIsTwin,hasSpouse,hasTwin,numTwins,numSpouses";
+
+        @Override
+        public String toString() {
+            return ball.rSpace + "," + ball.rTime + "," + nearEdge + "," + timeToEdge + ","
+                    + spouseIsTwin + "," + hasSpouse + "," + hasTwin + ","
+                    + numTwins + "," + numSpouses;
+        }
+    }
+
+    /**
+     * A set of pairing parameters to be evaluated.
+     */
+    private static class Parameters {
+
+        public final ProximityMetric ball;
+        public final double nearEdge;
+        public final int timeToEdge;
+
+        /**
+         * The constructor.
+         *
+         * @param ball A definition of closeness.
+         * @param nearEdge The distance from the edge of the window.
+         * @param timeToEdge The time from the beginning and end of time.
+         */
+        public Parameters(ProximityMetric ball, double nearEdge, int timeToEdge) {
+            this.ball = ball;
+            this.nearEdge = nearEdge;
+            this.timeToEdge = timeToEdge;
+        }
+    }
+
+    /**
+     * The pairing state of a single parameter point.
+     */
+    private class Pairing {
+
+        private final boolean[][] posEligible, negEligible;
+        private final int[][] pairOfPos;
+
+        /**
+         * Finds the eligible defects and pairs them.
+         *
+         * @param ball A definition of closeness.
+         * @param window The window with the desired distance from the edge.
+         * @param timeToEdge The time from the beginning and end of time.
+         */
+        public Pairing(ProximityMetric ball, Rectangle window, int timeToEdge) {
+            posEligible = new boolean[2][];
+            negEligible = new boolean[2][];
+            pairOfPos = new int[2][];
+
+            for (boolean isBirth : new boolean[]{DefectManager.BIRTH, DefectManager.DEATH}) {
+                int event = index(isBirth);
+                posEligible[event] = eligible(posEvents[event], window, timeToEdge);
+                negEligible[event] = eligible(negEvents[event], window, timeToEdge);
+                pairOfPos[event] = pair(ball, event);
+            }
+        }
+
+        /**
+         * Which events are far enough from the edges. See
+         * DefectManager.nearEdge.
+         *
+         * @param events The events.
+         * @param window The window.
+         * @param timeToEdge The time from the beginning and end of time.
+         * @return True at each index whose event is not near an edge.
+         */
+        private boolean[] eligible(SpaceTemp[] events, Rectangle window, int timeToEdge) {
+            boolean[] eligible = new boolean[events.length];
+            for (int i = 0; i < events.length; i++)
+                eligible[i] = !(window.nearEdge(events[i])
+                        || events[i].getTime() < timeToEdge
+                        || events[i].getTime() > numFrames - timeToEdge);
+            return eligible;
+        }
+
+        /**
+         * Pairs each eligible positive defect with the nearest eligible
+         * unpaired negative defect, in the same order as
+         * DefectManager.pairDefects.
+         *
+         * @param ball A definition of closeness.
+         * @param event The index of the event.
+         * @return The index of the negative paired to each positive, or -1.
+         */
+        private int[] pair(ProximityMetric ball, int event) {
+            int[] pairs = new int[posEvents[event].length];
+            boolean[] taken = new boolean[negEvents[event].length];
+            Arrays.fill(pairs, -1);
+
+            for (int pos = 0; pos < pairs.length; pos++) {
+                if (!posEligible[event][pos]) continue;
+
+                SpaceTemp lonely = posEvents[event][pos];
+                int centTime = lonely.getTime();
+                int closest = -1;
+                double closestDist = Double.POSITIVE_INFINITY;
+
+                for (int day = Math.max(centTime - ball.rTime, 0); day < Math.min(centTime + ball.rTime + 1, numFrames); day++)
+                    for (int j = dayStart[event][day]; j < dayStart[event][day + 1]; j++) {
+                        int neg = negsByDay[event][j];
+                        if (taken[neg] || !negEligible[event][neg]
+                                || !ball.near(negEvents[event][neg], lonely))
+                            continue;
+                        double dist = negEvents[event][neg].dist(lonely);
+                        if (dist < closestDist) {
+                            closest = neg;
+                            closestDist = dist;
+                        }
+                    }
+
+                if (closest != -1) {
+                    taken[closest] = true;
+                    pairs[pos] = closest;
+                }
+            }
+            return pairs;
+        }
+
+        /**
+         * The statistics of this pairing.
+         *
+         * @param ball A definition of closeness.
+         * @param nearEdge The distance from the edge of the window.
+         * @param timeToEdge The time from the beginning and end of time.
+         * @return The statistics of this pairing.
+         */
+        public Point point(ProximityMetric ball, double nearEdge, int timeToEdge) {
+            int birth = index(DefectManager.BIRTH), death = index(DefectManager.DEATH);
+            int twinIsSpouse = 0, twins = 0, spouses = 0,
+                    eligibleBoth = 0, eligibleBirth = 0, eligibleDeath = 0;
+
+            for (int pos = 0; pos < pairOfPos[birth].length; pos++) {
+                if (pairOfPos[birth][pos] == pairOfPos[death][pos]) twinIsSpouse++;
+                if (pairOfPos[birth][pos] != -1) twins++;
+                if (pairOfPos[death][pos] != -1) spouses++;
+                if (posEligible[birth][pos]) eligibleBirth++;
+                if (posEligible[death][pos]) eligibleDeath++;
+                if (posEligible[birth][pos] && posEligible[death][pos]) eligibleBoth++;
+            }
+
+            return new Point(ball, nearEdge, timeToEdge,
+                    (double) twinIsSpouse / eligibleBoth,
+                    (double) spouses / eligibleDeath,
+                    (double) twins / eligibleBirth,
+                    twins, spouses);
+        }
+    }
+
+    /**
+     * Pairs the defects with a single set of parameters.
+     *
+     * @param ball A definition of closeness.
+     * @param nearEdge The distance from the edge of the window.
+     * @param timeToEdge The time from the beginning and end of time.
+     * @return The statistics of the pairs.
+     */
+    public Point evaluate(ProximityMetric ball, double nearEdge, int timeToEdge) {
+        return new Pairing(ball, window.withNearEdge(nearEdge), timeToEdge)
+                .point(ball, nearEdge, timeToEdge);
+    }
+
+    /**
+     * Pairs the defects for every combination of the proffered parameters, in
+     * parallel.
+     *
+     * @param balls Definitions of closeness.
+     * @param nearEdges Distances from the edge of the window.
+     * @param timesToEdge Times from the beginning and end of time.
+     * @return The statistics of the pairs at each combination, in the order
+     * balls, then nearEdges, then timesToEdge.
+     */
+    public List<Point> sweep(List<ProximityMetric> balls, double[] nearEdges, int[] timesToEdge) {
+        List<Parameters> grid = new ArrayList<>(balls.size() * nearEdges.length * timesToEdge.length);
+        for (ProximityMetric ball : balls)
+            for (double nearEdge : nearEdges)
+                for (int timeToEdge : timesToEdge)
+                    grid.add(new Parameters(ball, nearEdge, timeToEdge));
+
+        return grid.parallelStream()
+                .map(params -> evaluate(params.ball, params.nearEdge, params.timeToEdge))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Writes the statistics to a comma separated file, one line per parameter
+     * point.
+     *
+     * @param points The statistics from sweep.
+     * @param writeTo The file to write to.
+     * @throws IOException If there's trouble writing the file.
+     */
+    public static void writeTable(List<Point> points, File writeTo) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(writeTo))) {
+            writer.write(Point.HEADER);
+            writer.newLine();
+            for (Point point : points) {
+                writer.write(point.toString());
+                writer.newLine();
+            }
+        }
+    }
+}
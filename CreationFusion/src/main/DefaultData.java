@@ -4,6 +4,8 @@ import GeometricTools.Rectangle;
 import GeometricTools.ProximityMetric;
 import ReadWrite.ReadManager;
 import defectManagement.DefectManager;
+import defectManagement.ExperimentManager;
+import defectManagement.ParameterSweep;
 import java.io.File;
 
 /**
@@ -18,20 +20,35 @@ public class DefaultData {
 
     public static DefectManager cells_1_10_11_12() {
 
-        return new DefectManager("plusMinusTMs//1_10_11_12", cellWindow, cellProximity, cellProximity.rTime * 2).setName("cells_1_10_11_12");
+        return DefectManager.cached(new File("plusMinusTMs//1_10_11_12"), cellWindow, cellProximity, cellProximity.rTime * 2).setName("cells_1_10_11_12");
     }
 
     public static DefectManager cells_14_15_19() {
-        return new DefectManager("plusMinusTMs//14_15_19", cellWindow, cellProximity, cellProximity.rTime * 2).setName("cells_14_15_19");
+        return DefectManager.cached(new File("plusMinusTMs//14_15_19"), cellWindow, cellProximity, cellProximity.rTime * 2).setName("cells_14_15_19");
     }
     
     public static DefectManager cells_HBEC_s2() {
-        return new DefectManager("plusMinusTMs//HBEC", cellWindow, cellProximity, cellProximity.rTime * 2).setName("HBEC");
+        return DefectManager.cached(new File("plusMinusTMs//HBEC"), cellWindow, cellProximity, cellProximity.rTime * 2).setName("HBEC");
     }
     
     public static DefectManager allCells_1_10_11_12_14_15_19() {
         return cells_1_10_11_12().mergeIn(cells_14_15_19()).setName("Cells");
     }
+
+    /**
+     * The cell data sets, with each file kept as its own experiment.
+     *
+     * @return The cell data sets, one experiment per file.
+     */
+    public static ExperimentManager cellExperiments_1_10_11_12_14_15_19() {
+        return new ExperimentManager(
+                cellWindow,
+                cellProximity,
+                cellProximity.rTime * 2,
+                new File("plusMinusTMs//1_10_11_12"),
+                new File("plusMinusTMs//14_15_19")
+        ).setName("Cells");
+    }
     
 
     /**
@@ -64,6 +81,17 @@ public class DefaultData {
         return bacteria(2, 12, 30, 2);
     }
     
+    /**
+     * The bacteria data set, loaded once, ready to be paired with many
+     * different pairing parameters.
+     *
+     * @return A sweep over the bacteria data set.
+     */
+    public static ParameterSweep bacteriaSweep() {
+        final Rectangle defaultBacteriaDimensions = new Rectangle(900, 0, 900, 900, 30);
+        return new ParameterSweep(bacteria(), defaultBacteriaDimensions);
+    }
+
     /**
      * A sample data set.
      * @return A sample data set.
@@ -0,0 +1,218 @@
+package nematics;
+
+import GeometricTools.Angle;
+import ImageWork.CellTable;
+import ImageWork.ConnectedComponents;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+import java.util.stream.IntStream;
+import snapDefects.NegSnapDefect;
+import snapDefects.PosSnapDefect;
+import snapDefects.SnapDefect;
+
+/**
+ * Finds the +1/2 and -1/2 defects of a director field sampled on a grid.
+ *
+ * The winding of the director around each square of four neighboring grid
+ * points is computed in parallel. Neighboring squares with the same nonzero
+ * charge are joined into a single defect at their center. The tail angles of
+ * each defect are found from the director on a ring of grid points around it:
+ * for a defect of charge k the director there is close to k phi + theta0,
+ * where phi is the angle from the defect, and the tails point where the
+ * director is parallel to the ring's radius.
+ *
+ * The defects found have no ID. DefectLinker links them across frames.
+ *
+ * @author E. Dov Neimand
+ */
+public class DefectDetector {
+
+    private final float[] angles;
+    private final int cols, rows;
+    private final double spacing;
+    private int ringRadius = 2;
+
+    private static final float PI = (float) Math.PI, HALF_PI = PI / 2;
+
+    /**
+     * The constructor.
+     *
+     * @param angles The angle of the director, in radians, at each grid point,
+     * row by row.
+     * @param cols The number of grid points in a row.
+     * @param rows The number of rows.
+     * @param spacing The distance between neighboring grid points.
+     */
+    public DefectDetector(float[] angles, int cols, int rows, double spacing) {
+        this.angles = angles;
+        this.cols = cols;
+        this.rows = rows;
+        this.spacing = spacing;
+    }
+
+    /**
+     * Samples a director field on a grid, a row at a time in parallel.
+     *
+     * @param field The angle of the director at each point, for example
+     * SnapDirectorField::angle.
+     * @param width The width of the region.
+     * @param height The height of the region.
+     * @param spacing The distance between neighboring grid points.
+     */
+    public DefectDetector(DoubleBinaryOperator field, int width, int height, double spacing) {
+        this(new float[((int) (width / spacing) + 1) * ((int) (height / spacing) + 1)],
+                (int) (width / spacing) + 1, (int) (height / spacing) + 1, spacing);
+
+        IntStream.range(0, rows).parallel().forEach(row -> {
+            for (int col = 0; col < cols; col++)
+                angles[row * cols + col] = (float) field.applyAsDouble(col * spacing, row * spacing);
+        });
+    }
+
+    /**
+     * A detector for one frame of a cell table. The director field is built
+     * from the cells of the frame with a cutoff.
+     *
+     * @param cells The cell table.
+     * @param frame The index of the frame.
+     * @param qualityThreshold Cells with a lower quality are ignored.
+     * @param cutoff See SnapDirectorField.useCutoff.
+     * @param width The width of the frame.
+     * @param height The height of the frame.
+     * @param spacing The distance between neighboring grid points.
+     * @return A detector for the frame.
+     */
+    public static DefectDetector fromCellTable(CellTable cells, int frame, double qualityThreshold, double cutoff, int width, int height, double spacing) {
+        SnapDirectorField field = new SnapDirectorField(cells.anchors(frame), qualityThreshold).useCutoff(cutoff);
+        return new DefectDetector(field::angle, width, height, spacing);
+    }
+
+    /**
+     * Sets the radius of the ring of grid points used to find the tail
+     * angles.
+     *
+     * @param ringRadius The radius of the ring, in grid points.
+     * @return this
+     */
+    public DefectDetector setRingRadius(int ringRadius) {
+        this.ringRadius = ringRadius;
+        return this;
+    }
+
+    /**
+     * The nematic difference between two angles.
+     *
+     * @param from The first angle, between 0 and pi.
+     * @param to The second angle, between 0 and pi.
+     * @return The difference, between -pi/2 and pi/2.
+     */
+    private static float nematicDif(float from, float to) {
+        float dif = to - from;
+        if (dif > HALF_PI) return dif - PI;
+        if (dif < -HALF_PI) return dif + PI;
+        return dif;
+    }
+
+    /**
+     * The charge of each square of four neighboring grid points. A square
+     * whose director winds by pi counterclockwise is 1, by -pi is 2, and
+     * otherwise 0.
+     *
+     * @return The charge of each square, row by row.
+     */
+    private int[] windings() {
+        int[] charge = new int[(cols - 1) * (rows - 1)];
+
+        IntStream.range(0, rows - 1).parallel().forEach(row -> {
+            int top = row * cols, bottom = top + cols;
+            for (int col = 0; col < cols - 1; col++) {
+                float winding = nematicDif(angles[top + col], angles[top + col + 1])
+                        + nematicDif(angles[top + col + 1], angles[bottom + col + 1])
+                        + nematicDif(angles[bottom + col + 1], angles[bottom + col])
+                        + nematicDif(angles[bottom + col], angles[top + col]);
+
+                if (winding > Math.PI / 2) charge[row * (cols - 1) + col] = 1;
+                else if (winding < -Math.PI / 2) charge[row * (cols - 1) + col] = 2;
+            }
+        });
+
+        return charge;
+    }
+
+    /**
+     * The defects in the field.
+     *
+     * @param t The time, or frame number, given to the defects.
+     * @return The defects, without IDs.
+     */
+    public List<SnapDefect> detect(int t) {
+        ConnectedComponents clusters = new ConnectedComponents(windings(), cols - 1, rows - 1);
+
+        List<SnapDefect> defects = new ArrayList<>(clusters.numComponents());
+        for (int label = 1; label <= clusters.numComponents(); label++) {
+            double col = (double) clusters.sumX(label) / clusters.size(label) + 0.5,
+                    row = (double) clusters.sumY(label) / clusters.size(label) + 0.5;
+            boolean charge = clusters.color(label) == 1;
+
+            double theta0 = theta0(col, row, charge ? 0.5 : -0.5);
+
+            defects.add(charge
+                    ? new PosSnapDefect(col * spacing, row * spacing, t, SnapDefect.NO_ID, Angle.place(theta0, 2 * Math.PI))
+                    : new NegSnapDefect(col * spacing, row * spacing, t, SnapDefect.NO_ID,
+                            Angle.place(theta0 / 3, 2 * Math.PI),
+                            Angle.place((theta0 + 2 * Math.PI) / 3, 2 * Math.PI),
+                            Angle.place((theta0 + 4 * Math.PI) / 3, 2 * Math.PI)));
+        }
+
+        return defects;
+    }
+
+    /**
+     * Twice the phase of the director around a defect. On a ring around the
+     * defect, 2 theta is close to 2 k phi + theta0, so theta0 is the angle of
+     * the sum over the ring of the Q tensor, exp(2 i theta), rotated by
+     * -2 k phi.
+     *
+     * @param col The column of the defect.
+     * @param row The row of the defect.
+     * @param k The charge of the defect.
+     * @return theta0.
+     */
+    private double theta0(double col, double row, double k) {
+        int centerCol = (int) Math.round(col), centerRow = (int) Math.round(row);
+        double sumCos = 0, sumSin = 0;
+
+        for (int r = centerRow - ringRadius; r <= centerRow + ringRadius; r++) {
+            if (r < 0 || r >= rows) continue;
+            for (int c = centerCol - ringRadius; c <= centerCol + ringRadius; c++) {
+                if (c < 0 || c >= cols) continue;
+                if (Math.max(Math.abs(r - centerRow), Math.abs(c - centerCol)) != ringRadius) continue;
+
+                double phase = 2 * angles[r * cols + c] - 2 * k * Math.atan2(r - row, c - col);
+                sumCos += Math.cos(phase);
+                sumSin += Math.sin(phase);
+            }
+        }
+
+        return Math.atan2(sumSin, sumCos);
+    }
+
+    /**
+     * The number of grid points in a row.
+     *
+     * @return The number of grid points in a row.
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * The number of rows of grid points.
+     *
+     * @return The number of rows.
+     */
+    public int getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,115 @@
+package nematics;
+
+import GeometricTools.Angle;
+import GeometricTools.NematicDirector;
+import GeometricTools.Vec;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Compares the speed and accuracy of the ways SnapDirectorField can be
+ * evaluated on a synthetic field of anchors. Accuracy is measured against the
+ * exact sum over every anchor.
+ *
+ * @author E. Dov Neimand
+ */
+public class DirectorFieldBenchmark {
+
+    /**
+     * Anchors scattered at random over a square, with directors that vary
+     * smoothly plus some noise, roughly like a cell monolayer.
+     *
+     * @param numAnchors The number of anchors.
+     * @param size The width and height of the square.
+     * @param rand The source of randomness.
+     * @return The anchors.
+     */
+    private static Set<NematicFieldAnchor> anchors(int numAnchors, int size, Random rand) {
+        Set<NematicFieldAnchor> anchors = new HashSet<>(numAnchors * 2);
+        for (int i = 0; i < numAnchors; i++) {
+            double x = rand.nextDouble() * size, y = rand.nextDouble() * size;
+            double theta = Math.sin(x / 300) + Math.cos(y / 200) + 0.2 * rand.nextGaussian();
+            anchors.add(new FixedAnchor(new Vec(x, y), new NematicDirector(theta), Double.POSITIVE_INFINITY));
+        }
+        return anchors;
+    }
+
+    /**
+     * Evaluates the field at each query point.
+     *
+     * @param field The field.
+     * @param qx The x values of the query points.
+     * @param qy The y values of the query points.
+     * @return The angle at each query point.
+     */
+    private static double[] evaluate(DoubleBinaryOperator field, double[] qx, double[] qy) {
+        double[] angles = new double[qx.length];
+        for (int i = 0; i < qx.length; i++) angles[i] = field.applyAsDouble(qx[i], qy[i]);
+        return angles;
+    }
+
+    /**
+     * Times the field and prints its throughput and its error against the
+     * exact angles.
+     *
+     * @param name The name of the evaluation mode.
+     * @param field The field.
+     * @param qx The x values of the query points.
+     * @param qy The y values of the query points.
+     * @param exact The exact angles at the query points.
+     */
+    private static void report(String name, DoubleBinaryOperator field, double[] qx, double[] qy, double[] exact) {
+        evaluate(field, qx, qy);
+
+        long start = System.nanoTime();
+        double[] angles = evaluate(field, qx, qy);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        double maxErr = 0, sumErr = 0;
+        for (int i = 0; i < angles.length; i++) {
+            double err = Angle.modDif(angles[i], exact[i], Math.PI);
+            maxErr = Math.max(maxErr, err);
+            sumErr += err;
+        }
+
+        System.out.printf("%-22s %12.0f queries/s   mean error %.2e deg   max error %.2e deg%n",
+                name, qx.length / seconds,
+                Math.toDegrees(sumErr / angles.length), Math.toDegrees(maxErr));
+    }
+
+    public static void main(String[] args) {
+        int size = 2050, numAnchors = 3000, numQueries = 20_000;
+        Random rand = new Random(1);
+
+        Set<NematicFieldAnchor> anchors = anchors(numAnchors, size, rand);
+        SnapDirectorField sdf = new SnapDirectorField(anchors, 0);
+
+        double[] qx = new double[numQueries], qy = new double[numQueries];
+        for (int i = 0; i < numQueries; i++) {
+            qx[i] = rand.nextDouble() * size;
+            qy[i] = rand.nextDouble() * size;
+        }
+
+        double[] exact = evaluate(sdf::exactAngle, qx, qy);
+
+        report("exact", sdf::exactAngle, qx, qy, exact);
+        report("Angle.average", (x, y) -> Angle.average(anchors.stream()
+                .map(anchor -> anchor.getDir().weightedAngle(1 / Math.pow(new Vec(x, y).dist(anchor.loc()), 3)))
+        ).nematic().rad(), qx, qy, exact);
+        report("apply(Vec)", (x, y) -> sdf.useExact().apply(new Vec(x, y)).rad(), qx, qy, exact);
+
+        for (double cutoff : new double[]{25, 50, 100}) {
+            sdf.useCutoff(cutoff);
+            report("cutoff " + cutoff, sdf::angle, qx, qy, exact);
+        }
+
+        for (double spacing : new double[]{4, 8}) {
+            long start = System.nanoTime();
+            sdf.useGrid(spacing, size, size);
+            System.out.printf("grid %.0f built in %.2f s%n", spacing, (System.nanoTime() - start) / 1e9);
+            report("grid " + spacing, sdf::angle, qx, qy, exact);
+        }
+    }
+}
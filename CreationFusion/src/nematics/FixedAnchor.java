@@ -0,0 +1,45 @@
+package nematics;
+
+import GeometricTools.NematicDirector;
+import GeometricTools.Vec;
+
+/**
+ * An anchor at a fixed place with a fixed director and quality, for anchors
+ * that are read or made up rather than measured from an image.
+ *
+ * @author E. Dov Neimand
+ */
+public class FixedAnchor implements NematicFieldAnchor {
+
+    private final Vec loc;
+    private final NematicDirector dir;
+    private final double quality;
+
+    /**
+     * The constructor.
+     *
+     * @param loc The location of the anchor.
+     * @param dir The director of the anchor.
+     * @param quality The quality of the anchor.
+     */
+    public FixedAnchor(Vec loc, NematicDirector dir, double quality) {
+        this.loc = loc;
+        this.dir = dir;
+        this.quality = quality;
+    }
+
+    @Override
+    public NematicDirector getDir() {
+        return dir;
+    }
+
+    @Override
+    public Vec loc() {
+        return loc;
+    }
+
+    @Override
+    public double quality() {
+        return quality;
+    }
+}
@@ -3,7 +3,6 @@ package nematics;
 import Charts.Histogram;
 import GeometricTools.Angle;
 import GeometricTools.NematicDirector;
-import GeometricTools.Rectangle;
 import GeometricTools.Vec;
 import ImageWork.CellPSegm;
 import ImageWork.Pixel;
@@ -13,8 +12,11 @@ import java.awt.image.BufferedImage;
 import java.awt.image.Raster;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Set;
+import java.util.function.DoubleBinaryOperator;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 import javax.imageio.ImageIO;
 
 /**
@@ -24,6 +26,8 @@ import javax.imageio.ImageIO;
 public class SnapDirectorField implements Function<Vec, NematicDirector> {
 
     private Set<? extends NematicFieldAnchor> anchors;
+    private final double[] anchorX, anchorY, anchorCos, anchorSin;
+    private DoubleBinaryOperator field = this::exactAngle;
 
     /**
      * The constructor.
@@ -36,84 +40,350 @@ public class SnapDirectorField implements Function<Vec, NematicDirector> {
         this.anchors = anchors;
 
         anchors.removeIf(cell -> cell.quality() < qualityThreshold);
+
+        NematicFieldAnchor[] array = anchors.toArray(NematicFieldAnchor[]::new);
+        anchorX = new double[array.length];
+        anchorY = new double[array.length];
+        anchorCos = new double[array.length];
+        anchorSin = new double[array.length];
+        for (int i = 0; i < array.length; i++) {
+            anchorX[i] = array[i].loc().getX();
+            anchorY[i] = array[i].loc().getY();
+            anchorCos[i] = array[i].getDir().cos();
+            anchorSin[i] = array[i].getDir().sin();
+        }
     }
 
     /**
-     * Draws a nematic streamline.
+     * The weight of an anchor at the given square distance.
      *
-     * @param g2d Draws the streamline
+     * @param distSq The square of the distance to the anchor.
+     * @return One over the cube of the distance.
      */
-    private void drawNematicStreamLine(Graphics2D g2d, Vec x, double h, Rectangle window) {
-
-        NematicDirector nem = apply(x);
-        Vec a = nem.vec().mult(h).plus(x), b = nem.vec().mult(-h).plus(x);
-        drawStreamLine(g2d, x, a, h, window);
-        drawStreamLine(g2d, x, b, h, window);
+    private static double weight(double distSq) {
+        return 1 / (distSq * Math.sqrt(distSq));
     }
 
     /**
-     * Draws a stream line in one direction.
+     * The director at the given point, computed from every anchor. Each
+     * anchor's direction is weighted by one over the cube of its distance from
+     * the point.
      *
-     * @param g2d The drawing tool.
-     * @param p0 A point before the starting point.
-     * @param p1 The starting point.
-     * @param h The step size.
-     * @param window The window dimensions.
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return The angle of the director in radians, between 0 and pi.
      */
-    private void drawStreamLine(Graphics2D g2d, Vec p0, Vec p1, double h, Rectangle window) {
-        while (window.contains(p1)) {
-            Vec p2 = nextStreamLinePoint(p0, p1, h);
-            if (!p1.samePixel(p2)) g2d.drawLine(p1.x(), p1.y(), p2.x(), p2.y());
-            p0 = p1;
-            p1 = p2;
+    public double exactAngle(double x, double y) {
+        double sumCos = 0, sumSin = 0;
+        for (int i = 0; i < anchorX.length; i++) {
+            double dx = anchorX[i] - x, dy = anchorY[i] - y,
+                    w = weight(dx * dx + dy * dy);
+            sumCos += w * anchorCos[i];
+            sumSin += w * anchorSin[i];
         }
+        return Angle.place(Math.atan2(sumSin, sumCos), Math.PI);
+    }
 
+    /**
+     * The angle of the director at the given point, computed the way most
+     * recently chosen with useExact, useCutoff, or useGrid.
+     *
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return The angle of the director in radians, between 0 and pi.
+     */
+    public double angle(double x, double y) {
+        return field.applyAsDouble(x, y);
+    }
+
+    /**
+     * Computes the field from every anchor. This is the default.
+     *
+     * @return this
+     */
+    public SnapDirectorField useExact() {
+        field = this::exactAngle;
+        return this;
+    }
+
+    /**
+     * Computes the field exactly from the anchors near the query point, and
+     * treats groups of anchors further away as a single anchor at their
+     * center.
+     *
+     * @param cutoff Anchors in the buckets within this distance of the query
+     * point are computed exactly. It's also the size of the buckets.
+     * @return this
+     */
+    public SnapDirectorField useCutoff(double cutoff) {
+        field = new CutoffField(cutoff)::angle;
+        return this;
     }
 
     /**
-     * The next point on the stream line
+     * Precomputes the field on a grid and interpolates it bilinearly.
      *
-     * @param prev The previous point on the streamline.
-     * @param current The current point on the streamline.
+     * @param spacing The distance between grid points.
+     * @param width The width of the region covered by the grid.
+     * @param height The height of the region covered by the grid.
+     * @return this
      */
-    private Vec nextStreamLinePoint(Vec prev, Vec current, double h) {
-        Vec dir = apply(current).vec();
-        Vec next = dir.mult(h).plus(current);
-        if (next.dist(prev) < current.dist(prev)) next = dir.mult(-h).plus(current);
-        return next;
+    public SnapDirectorField useGrid(double spacing, int width, int height) {
+        field = new GridField(spacing, width, height)::angle;
+        return this;
+    }
+
+    /**
+     * The field computed with a cutoff. The anchors are sorted into square
+     * buckets the size of the cutoff, and the buckets into coarse buckets
+     * COARSE buckets across. Anchors in the 3 by 3 buckets around the query
+     * point are summed exactly. Other buckets in the 3 by 3 coarse buckets
+     * around the query point, and every coarse bucket further away, contribute
+     * the sum of their anchors' directions weighted by the distance to their
+     * center of mass.
+     */
+    private class CutoffField {
+
+        private static final int COARSE = 4;
+
+        private final double cell, minX, minY;
+        private final int cols, coarseCols;
+        private final int[] anchorStart, anchorOrder, fineStart, fineOrder, coarseOccupied;
+        private final double[] fineX, fineY, fineCos, fineSin, coarseX, coarseY, coarseCos, coarseSin;
+
+        /**
+         * Sorts the anchors into buckets.
+         *
+         * @param cell The size of a bucket.
+         */
+        public CutoffField(double cell) {
+            this.cell = cell;
+            minX = Arrays.stream(anchorX).min().orElse(0);
+            minY = Arrays.stream(anchorY).min().orElse(0);
+            cols = (int) ((Arrays.stream(anchorX).max().orElse(0) - minX) / cell) + 1;
+            int rows = (int) ((Arrays.stream(anchorY).max().orElse(0) - minY) / cell) + 1;
+            coarseCols = (cols + COARSE - 1) / COARSE;
+            int coarseRows = (rows + COARSE - 1) / COARSE;
+
+            int[] bucketOf = new int[anchorX.length];
+            for (int i = 0; i < anchorX.length; i++)
+                bucketOf[i] = (int) ((anchorY[i] - minY) / cell) * cols + (int) ((anchorX[i] - minX) / cell);
+            anchorStart = new int[cols * rows + 1];
+            anchorOrder = countingSort(bucketOf, anchorStart);
+
+            fineX = new double[cols * rows];
+            fineY = new double[cols * rows];
+            fineCos = new double[cols * rows];
+            fineSin = new double[cols * rows];
+            coarseX = new double[coarseCols * coarseRows];
+            coarseY = new double[coarseCols * coarseRows];
+            coarseCos = new double[coarseCols * coarseRows];
+            coarseSin = new double[coarseCols * coarseRows];
+            int[] coarseCount = new int[coarseCols * coarseRows];
+
+            int[] occupiedFine = IntStream.range(0, cols * rows)
+                    .filter(b -> anchorStart[b + 1] > anchorStart[b]).toArray();
+            int[] coarseOf = new int[occupiedFine.length];
+
+            for (int k = 0; k < occupiedFine.length; k++) {
+                int b = occupiedFine[k], count = anchorStart[b + 1] - anchorStart[b];
+                for (int j = anchorStart[b]; j < anchorStart[b + 1]; j++) {
+                    int i = anchorOrder[j];
+                    fineX[b] += anchorX[i];
+                    fineY[b] += anchorY[i];
+                    fineCos[b] += anchorCos[i];
+                    fineSin[b] += anchorSin[i];
+                }
+                int c = coarseOf[k] = (b / cols / COARSE) * coarseCols + (b % cols) / COARSE;
+                coarseX[c] += fineX[b];
+                coarseY[c] += fineY[b];
+                coarseCos[c] += fineCos[b];
+                coarseSin[c] += fineSin[b];
+                coarseCount[c] += count;
+                fineX[b] /= count;
+                fineY[b] /= count;
+            }
+
+            fineStart = new int[coarseCols * coarseRows + 1];
+            fineOrder = countingSort(coarseOf, fineStart);
+            for (int j = 0; j < fineOrder.length; j++) fineOrder[j] = occupiedFine[fineOrder[j]];
+
+            coarseOccupied = IntStream.range(0, coarseCount.length).filter(c -> coarseCount[c] > 0).toArray();
+            for (int c : coarseOccupied) {
+                coarseX[c] /= coarseCount[c];
+                coarseY[c] /= coarseCount[c];
+            }
+        }
+
+        /**
+         * Sorts indices by the bucket they belong to.
+         *
+         * @param bucketOf The bucket of each index.
+         * @param start Filled with where each bucket starts in the returned
+         * array. Its length is one more than the number of buckets.
+         * @return The indices, sorted by bucket.
+         */
+        private int[] countingSort(int[] bucketOf, int[] start) {
+            for (int b : bucketOf) start[b + 1]++;
+            for (int b = 0; b + 1 < start.length; b++) start[b + 1] += start[b];
+            int[] fill = Arrays.copyOf(start, start.length), order = new int[bucketOf.length];
+            for (int i = 0; i < bucketOf.length; i++) order[fill[bucketOf[i]]++] = i;
+            return order;
+        }
+
+        /**
+         * The angle of the director at the given point.
+         *
+         * @param x The x coordinate.
+         * @param y The y coordinate.
+         * @return The angle of the director in radians, between 0 and pi.
+         */
+        public double angle(double x, double y) {
+            int col = (int) Math.floor((x - minX) / cell), row = (int) Math.floor((y - minY) / cell),
+                    coarseCol = Math.floorDiv(col, COARSE), coarseRow = Math.floorDiv(row, COARSE);
+            double sumCos = 0, sumSin = 0;
+
+            for (int c : coarseOccupied) {
+                if (Math.abs(c % coarseCols - coarseCol) > 1 || Math.abs(c / coarseCols - coarseRow) > 1) {
+                    double dx = coarseX[c] - x, dy = coarseY[c] - y, w = weight(dx * dx + dy * dy);
+                    sumCos += w * coarseCos[c];
+                    sumSin += w * coarseSin[c];
+                    continue;
+                }
+
+                for (int k = fineStart[c]; k < fineStart[c + 1]; k++) {
+                    int b = fineOrder[k];
+                    if (Math.abs(b % cols - col) > 1 || Math.abs(b / cols - row) > 1) {
+                        double dx = fineX[b] - x, dy = fineY[b] - y, w = weight(dx * dx + dy * dy);
+                        sumCos += w * fineCos[b];
+                        sumSin += w * fineSin[b];
+                        continue;
+                    }
+
+                    for (int j = anchorStart[b]; j < anchorStart[b + 1]; j++) {
+                        int i = anchorOrder[j];
+                        double dx = anchorX[i] - x, dy = anchorY[i] - y, w = weight(dx * dx + dy * dy);
+                        sumCos += w * anchorCos[i];
+                        sumSin += w * anchorSin[i];
+                    }
+                }
+            }
+            return Angle.place(Math.atan2(sumSin, sumCos), Math.PI);
+        }
+    }
+
+    /**
+     * The field precomputed on a grid. Each grid point stores the unit vector
+     * of the exact field there, and queries interpolate those components
+     * bilinearly before taking the angle.
+     */
+    private class GridField {
+
+        private final double spacing;
+        private final int cols, rows;
+        private final double[] gridCos, gridSin;
+
+        /**
+         * Computes the exact field at each grid point, a row at a time in
+         * parallel.
+         *
+         * @param spacing The distance between grid points.
+         * @param width The width of the region covered by the grid.
+         * @param height The height of the region covered by the grid.
+         */
+        public GridField(double spacing, int width, int height) {
+            this.spacing = spacing;
+            cols = (int) Math.ceil(width / spacing) + 1;
+            rows = (int) Math.ceil(height / spacing) + 1;
+            gridCos = new double[cols * rows];
+            gridSin = new double[cols * rows];
+
+            IntStream.range(0, rows).parallel().forEach(row -> {
+                for (int col = 0; col < cols; col++) {
+                    double ang = exactAngle(col * spacing, row * spacing);
+                    gridCos[row * cols + col] = Math.cos(ang);
+                    gridSin[row * cols + col] = Math.sin(ang);
+                }
+            });
+        }
+
+        /**
+         * The angle of the director at the given point. Points outside the
+         * grid take the value at the nearest edge.
+         *
+         * @param x The x coordinate.
+         * @param y The y coordinate.
+         * @return The angle of the director in radians, between 0 and pi.
+         */
+        public double angle(double x, double y) {
+            double gx = Math.max(0, Math.min(x / spacing, cols - 1)),
+                    gy = Math.max(0, Math.min(y / spacing, rows - 1));
+            int col = Math.min((int) gx, cols - 2), row = Math.min((int) gy, rows - 2);
+            if (cols == 1) col = 0;
+            if (rows == 1) row = 0;
+            double fx = gx - col, fy = gy - row;
+
+            double cos = interpolate(gridCos, col, row, fx, fy),
+                    sin = interpolate(gridSin, col, row, fx, fy);
+            return Angle.place(Math.atan2(sin, cos), Math.PI);
+        }
+
+        /**
+         * Bilinear interpolation between four grid points.
+         *
+         * @param grid The values at the grid points.
+         * @param col The column of the lower left grid point.
+         * @param row The row of the lower left grid point.
+         * @param fx How far along the column the point is, between 0 and 1.
+         * @param fy How far along the row the point is, between 0 and 1.
+         * @return The interpolated value.
+         */
+        private double interpolate(double[] grid, int col, int row, double fx, double fy) {
+            int i = row * cols + col;
+            int right = col + 1 < cols ? 1 : 0, down = row + 1 < rows ? cols : 0;
+            return (1 - fy) * ((1 - fx) * grid[i] + fx * grid[i + right])
+                    + fy * ((1 - fx) * grid[i + down] + fx * grid[i + down + right]);
+        }
     }
 
     @Override
     public NematicDirector apply(Vec t) {
-
-        return Angle.average(//TODO: Should the impact of a cell depend on its size?
-                anchors.stream()
-                        .map(anchor -> anchor.getDir().weightedAngle(1 / Math.pow(t.dist(anchor.loc()), 3)))
-        ).nematic();
+        return new NematicDirector(angle(t.getX(), t.getY()));//TODO: Should the impact of a cell depend on its size?
     }
 
     /**
-     * An image of the streamlines.
+     * An image of the streamlines through 30 seeds across the middle of the
+     * image.
      *
+     * @param width The width of the image.
+     * @param height The height of the image.
+     * @param h The step size.
      * @return An image of the streamlines.
      */
     public BufferedImage streamLineImage(int width, int height, double h) {
-        BufferedImage nai = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g2d = nai.createGraphics();
-        g2d.setColor(Color.green);
-
         int numLines = 30;
-        for(double i = 0; i < numLines; i++)
-            drawNematicStreamLine(
-                    g2d, 
-                    new Vec(width*(i/numLines), height / 2), 
-                    1, 
-                    new Rectangle(width, height)
-            );
+        double[] seedX = new double[numLines], seedY = new double[numLines];
+        for (int i = 0; i < numLines; i++) {
+            seedX[i] = width * ((double) i / numLines);
+            seedY[i] = height / 2;
+        }
 
-        g2d.dispose();
-        return nai;
+        StreamlineEngine engine = new StreamlineEngine(this::angle, width, height).setStep(h);
+        return engine.rasterize(engine.traceAll(seedX, seedY), Color.green);
+    }
 
+    /**
+     * An image of evenly spaced streamlines.
+     *
+     * @param width The width of the image.
+     * @param height The height of the image.
+     * @param h The step size.
+     * @param separation The distance between neighboring streamlines.
+     * @return An image of the streamlines.
+     */
+    public BufferedImage evenlySpacedStreamLineImage(int width, int height, double h, double separation) {
+        StreamlineEngine engine = new StreamlineEngine(this::angle, width, height).setStep(h);
+        return engine.rasterize(engine.evenlySpaced(separation, (int) Math.ceil(separation / h)), Color.green);
     }
 
     /**
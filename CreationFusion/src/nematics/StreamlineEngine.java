@@ -0,0 +1,427 @@
+package nematics;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Traces streamlines through a nematic field. A nematic director has no head,
+ * so at each step the direction is flipped if needed to agree with the
+ * previous step.
+ *
+ * Streamlines are traced in parallel and stored as arrays of floats,
+ * alternating x and y. For evenly spaced streamlines, candidate lines are
+ * traced from a grid of seeds a batch at a time in parallel, and are then
+ * accepted in order, each cut short where it comes too close to a line already
+ * accepted.
+ *
+ * @author E. Dov Neimand
+ */
+public class StreamlineEngine {
+
+    private final DoubleBinaryOperator field;
+    private final int width, height;
+    private double step = 1;
+    private boolean rk4 = true;
+    private int maxSteps;
+
+    /**
+     * The number of seeds traced in parallel before they are accepted.
+     */
+    private static final int BATCH = 64;
+
+    /**
+     * The constructor.
+     *
+     * @param field The angle of the director, in radians, at each point.
+     * @param width The width of the region streamlines are traced in.
+     * @param height The height of the region streamlines are traced in.
+     */
+    public StreamlineEngine(DoubleBinaryOperator field, int width, int height) {
+        this.field = field;
+        this.width = width;
+        this.height = height;
+        maxSteps = 4 * (width + height);
+    }
+
+    /**
+     * Sets the distance of each step.
+     *
+     * @param step The distance of each step.
+     * @return this
+     */
+    public StreamlineEngine setStep(double step) {
+        this.step = step;
+        maxSteps = (int) Math.ceil(4 * (width + height) / step);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of steps taken in each direction from a seed.
+     *
+     * @param maxSteps The maximum number of steps in each direction.
+     * @return this
+     */
+    public StreamlineEngine setMaxSteps(int maxSteps) {
+        this.maxSteps = maxSteps;
+        return this;
+    }
+
+    /**
+     * Integrate with the midpoint method.
+     *
+     * @return this
+     */
+    public StreamlineEngine useRK2() {
+        rk4 = false;
+        return this;
+    }
+
+    /**
+     * Integrate with the classic fourth order Runge Kutta method. This is the
+     * default.
+     *
+     * @return this
+     */
+    public StreamlineEngine useRK4() {
+        rk4 = true;
+        return this;
+    }
+
+    /**
+     * Is the point inside the region.
+     *
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return True if the point is inside the region.
+     */
+    private boolean inside(double x, double y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /**
+     * The unit director at a point, flipped to agree with a reference
+     * direction.
+     *
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @param refX The x component of the reference direction.
+     * @param refY The y component of the reference direction.
+     * @param dir Filled with the direction.
+     * @return False if the field is undefined at the point.
+     */
+    private boolean direction(double x, double y, double refX, double refY, double[] dir) {
+        double angle = field.applyAsDouble(x, y);
+        if (!Double.isFinite(angle)) return false;
+        double dx = Math.cos(angle), dy = Math.sin(angle);
+        if (dx * refX + dy * refY < 0) {
+            dx = -dx;
+            dy = -dy;
+        }
+        dir[0] = dx;
+        dir[1] = dy;
+        return true;
+    }
+
+    /**
+     * Traces a streamline in one direction from a point.
+     *
+     * @param x The x coordinate of the seed.
+     * @param y The y coordinate of the seed.
+     * @param refX The x component of the initial direction.
+     * @param refY The y component of the initial direction.
+     * @param occupied The streamline stops before it comes near a marked
+     * cell. May be null.
+     * @return The points of the streamline after the seed, alternating x and
+     * y. The streamline stops if it leaves the region, the field is undefined,
+     * it closes on itself, or it takes maxSteps steps.
+     */
+    private float[] traceHalf(double x, double y, double refX, double refY, Occupancy occupied) {
+        double seedX = x, seedY = y;
+        float[] points = new float[64];
+        int size = 0;
+        double[] k1 = new double[2], k2 = new double[2], k3 = new double[2], k4 = new double[2];
+
+        for (int i = 0; i < maxSteps; i++) {
+            if (!direction(x, y, refX, refY, k1)) break;
+
+            double nextX, nextY;
+            if (rk4) {
+                if (!direction(x + step / 2 * k1[0], y + step / 2 * k1[1], k1[0], k1[1], k2)
+                        || !direction(x + step / 2 * k2[0], y + step / 2 * k2[1], k1[0], k1[1], k3)
+                        || !direction(x + step * k3[0], y + step * k3[1], k1[0], k1[1], k4))
+                    break;
+                nextX = x + step / 6 * (k1[0] + 2 * k2[0] + 2 * k3[0] + k4[0]);
+                nextY = y + step / 6 * (k1[1] + 2 * k2[1] + 2 * k3[1] + k4[1]);
+            } else {
+                if (!direction(x + step / 2 * k1[0], y + step / 2 * k1[1], k1[0], k1[1], k2))
+                    break;
+                nextX = x + step * k2[0];
+                nextY = y + step * k2[1];
+            }
+
+            if (!inside(nextX, nextY)
+                    || occupied != null && occupied.near(nextX, nextY)
+                    || i > 2 && Math.hypot(nextX - seedX, nextY - seedY) < step)
+                break;
+
+            refX = nextX - x;
+            refY = nextY - y;
+            x = nextX;
+            y = nextY;
+
+            if (size + 2 > points.length) points = Arrays.copyOf(points, points.length * 2);
+            points[size++] = (float) x;
+            points[size++] = (float) y;
+        }
+
+        return Arrays.copyOf(points, size);
+    }
+
+    /**
+     * A streamline through the seed, traced in both directions.
+     *
+     * @param x The x coordinate of the seed.
+     * @param y The y coordinate of the seed.
+     * @return The streamline through the seed.
+     */
+    public Streamline trace(double x, double y) {
+        return trace(x, y, null);
+    }
+
+    /**
+     * A streamline through the seed, traced in both directions.
+     *
+     * @param x The x coordinate of the seed.
+     * @param y The y coordinate of the seed.
+     * @param occupied The streamline stops before it comes near a marked
+     * cell. May be null.
+     * @return The streamline through the seed.
+     */
+    private Streamline trace(double x, double y, Occupancy occupied) {
+        double angle = field.applyAsDouble(x, y);
+        if (!inside(x, y) || !Double.isFinite(angle))
+            return new Streamline(new float[]{(float) x, (float) y}, 0);
+
+        float[] forward = traceHalf(x, y, Math.cos(angle), Math.sin(angle), occupied),
+                backward = traceHalf(x, y, -Math.cos(angle), -Math.sin(angle), occupied);
+
+        float[] points = new float[backward.length + 2 + forward.length];
+        for (int i = 0; i < backward.length; i += 2) {
+            points[backward.length - 2 - i] = backward[i];
+            points[backward.length - 1 - i] = backward[i + 1];
+        }
+        points[backward.length] = (float) x;
+        points[backward.length + 1] = (float) y;
+        System.arraycopy(forward, 0, points, backward.length + 2, forward.length);
+
+        return new Streamline(points, backward.length / 2);
+    }
+
+    /**
+     * A streamline stored as an array of floats, alternating x and y.
+     */
+    public static class Streamline {
+
+        /**
+         * The points of the streamline, alternating x and y.
+         */
+        public final float[] points;
+
+        /**
+         * The index of the seed point, counted in points rather than floats.
+         */
+        public final int seed;
+
+        /**
+         * The constructor.
+         *
+         * @param points The points, alternating x and y.
+         * @param seed The index of the seed point.
+         */
+        public Streamline(float[] points, int seed) {
+            this.points = points;
+            this.seed = seed;
+        }
+
+        /**
+         * The number of points.
+         *
+         * @return The number of points.
+         */
+        public int size() {
+            return points.length / 2;
+        }
+    }
+
+    /**
+     * Traces a streamline through each seed, in parallel.
+     *
+     * @param seedX The x coordinates of the seeds.
+     * @param seedY The y coordinates of the seeds.
+     * @return A streamline for each seed, in the same order.
+     */
+    public List<Streamline> traceAll(double[] seedX, double[] seedY) {
+        return IntStream.range(0, seedX.length).parallel()
+                .mapToObj(i -> trace(seedX[i], seedY[i]))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Evenly spaced streamlines. Seeds are laid on a grid the given separation
+     * apart and taken BATCH at a time. Each batch is traced in parallel, every
+     * line stopping where it comes within about half the separation of a line
+     * accepted in an earlier batch. The batch is then accepted in order, each
+     * line cut back on both sides of its seed to where it comes too close to a
+     * line already accepted. Lines whose seed is already too close, or that
+     * are left shorter than minPoints, are dropped. The result does not depend
+     * on the number of threads.
+     *
+     * @param separation The distance between neighboring streamlines.
+     * @param minPoints The minimum number of points in a streamline.
+     * @return The accepted streamlines.
+     */
+    public List<Streamline> evenlySpaced(double separation, int minPoints) {
+        int seedCols = (int) Math.ceil(width / separation), seedRows = (int) Math.ceil(height / separation);
+        double[] seedX = new double[seedCols * seedRows], seedY = new double[seedCols * seedRows];
+        for (int row = 0; row < seedRows; row++)
+            for (int col = 0; col < seedCols; col++) {
+                seedX[row * seedCols + col] = (col + 0.5) * separation;
+                seedY[row * seedCols + col] = (row + 0.5) * separation;
+            }
+
+        Occupancy occupied = new Occupancy(separation / 2);
+        List<Streamline> accepted = new ArrayList<>();
+
+        for (int from = 0; from < seedX.length; from += BATCH) {
+            List<Streamline> candidates = IntStream.range(from, Math.min(from + BATCH, seedX.length))
+                    .filter(i -> !occupied.near(seedX[i], seedY[i]))
+                    .parallel()
+                    .mapToObj(i -> trace(seedX[i], seedY[i], occupied))
+                    .collect(Collectors.toList());
+
+            for (Streamline candidate : candidates) {
+                float[] p = candidate.points;
+                if (occupied.near(p[2 * candidate.seed], p[2 * candidate.seed + 1])) continue;
+
+                int first = candidate.seed, last = candidate.seed;
+                while (first > 0 && !occupied.near(p[2 * (first - 1)], p[2 * first - 1])) first--;
+                while (last < candidate.size() - 1 && !occupied.near(p[2 * (last + 1)], p[2 * last + 3])) last++;
+
+                if (last - first + 1 < minPoints) continue;
+
+                Streamline kept = new Streamline(Arrays.copyOfRange(p, 2 * first, 2 * last + 2), candidate.seed - first);
+                for (int i = 0; i < kept.size(); i++) occupied.mark(kept.points[2 * i], kept.points[2 * i + 1]);
+                accepted.add(kept);
+            }
+        }
+
+        return accepted;
+    }
+
+    /**
+     * Marks the parts of the region that streamlines pass through.
+     */
+    private class Occupancy {
+
+        private final double cell;
+        private final int cols, rows;
+        private final boolean[] marked;
+
+        /**
+         * The constructor.
+         *
+         * @param cell The size of each cell. A point is near a streamline if a
+         * cell of the streamline touches the point's cell.
+         */
+        public Occupancy(double cell) {
+            this.cell = cell;
+            cols = (int) Math.ceil(width / cell) + 1;
+            rows = (int) Math.ceil(height / cell) + 1;
+            marked = new boolean[cols * rows];
+        }
+
+        /**
+         * Marks the cell of a point.
+         *
+         * @param x The x coordinate.
+         * @param y The y coordinate.
+         */
+        public void mark(double x, double y) {
+            marked[(int) (y / cell) * cols + (int) (x / cell)] = true;
+        }
+
+        /**
+         * Is a marked cell adjacent to the point's cell.
+         *
+         * @param x The x coordinate.
+         * @param y The y coordinate.
+         * @return True if a marked cell touches the point's cell.
+         */
+        public boolean near(double x, double y) {
+            int col = (int) (x / cell), row = (int) (y / cell);
+            for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++)
+                for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++)
+                    if (marked[r * cols + c]) return true;
+            return false;
+        }
+    }
+
+    /**
+     * Draws the streamlines in one pass, straight into the pixels of a new
+     * image.
+     *
+     * @param streamlines The streamlines.
+     * @param color The color of the streamlines.
+     * @return A transparent image with the streamlines drawn on it.
+     */
+    public BufferedImage rasterize(List<Streamline> streamlines, Color color) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int argb = color.getRGB();
+
+        for (Streamline line : streamlines)
+            for (int i = 0; i + 1 < line.size(); i++)
+                drawSegment(pixels, argb,
+                        Math.round(line.points[2 * i]), Math.round(line.points[2 * i + 1]),
+                        Math.round(line.points[2 * i + 2]), Math.round(line.points[2 * i + 3]));
+
+        return image;
+    }
+
+    /**
+     * Draws a line segment with Bresenham's algorithm.
+     *
+     * @param pixels The pixels of the image, row by row.
+     * @param argb The color.
+     * @param x0 The x coordinate of the start.
+     * @param y0 The y coordinate of the start.
+     * @param x1 The x coordinate of the end.
+     * @param y1 The y coordinate of the end.
+     */
+    private void drawSegment(int[] pixels, int argb, int x0, int y0, int x1, int y1) {
+        int dx = Math.abs(x1 - x0), dy = -Math.abs(y1 - y0),
+                sx = x0 < x1 ? 1 : -1, sy = y0 < y1 ? 1 : -1,
+                err = dx + dy;
+
+        while (true) {
+            if (x0 >= 0 && y0 >= 0 && x0 < width && y0 < height) pixels[y0 * width + x0] = argb;
+            if (x0 == x1 && y0 == y1) return;
+            int e2 = 2 * err;
+            if (e2 >= dy) {
+                err += dy;
+                x0 += sx;
+            }
+            if (e2 <= dx) {
+                err += dx;
+                y0 += sy;
+            }
+        }
+    }
+}
@@ -119,6 +119,16 @@ public abstract class SnapDefect implements hasChargeID {
         return dxdt;
     }
 
+    /**
+     * Sets the velocity directly, for example from a cache of a previously
+     * computed velocity.
+     *
+     * @param dxdt Displacement divided by time.
+     */
+    public void setVelocity(Vec dxdt) {
+        this.dxdt = dxdt;
+    }
+
     @Override
     public String toString() {
         return loc.toString() + ", charge = " + (getCharge() ? "pos" : "neg") + ", id = " + getId() + "\n";
@@ -174,6 +184,15 @@ public abstract class SnapDefect implements hasChargeID {
         this.experimentNumber = experimentNumber;
         return this;
     }    
+
+    /**
+     * The experiment number, or -1 if none has been set.
+     *
+     * @return The experiment number.
+     */
+    public int getExperimentNumber() {
+        return experimentNumber;
+    }
     
     /**
      * The image that matches this snap defect.
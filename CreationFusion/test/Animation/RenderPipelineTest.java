@@ -0,0 +1,71 @@
+package Animation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the RenderPipeline.
+ *
+ * @author E. Dov Neimand
+ */
+public class RenderPipelineTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * A frame that can't be composed is skipped, and every other frame is
+     * still written.
+     *
+     * @throws IOException If the temporary folder can't be made.
+     */
+    @Test
+    public void testFailedCompose() throws IOException {
+        File out = folder.newFolder();
+        RenderPipeline pipeline = new RenderPipeline(2, 4);
+        for (int i = 0; i < 10; i++) {
+            int t = i;
+            pipeline.submit(new File(out, t + ".png"), () -> {
+                if (t == 3) throw new IllegalStateException("frame " + t);
+                return new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB);
+            });
+        }
+        pipeline.close();
+
+        for (int i = 0; i < 10; i++)
+            assertEquals("frame " + i, i != 3, new File(out, i + ".png").exists());
+        assertEquals(9, pipeline.framesWritten());
+        assertEquals(1, pipeline.framesFailed());
+    }
+
+    /**
+     * A frame that can't be written is skipped, and every other frame is still
+     * written.
+     *
+     * @throws IOException If the temporary folder can't be made.
+     */
+    @Test
+    public void testFailedWrite() throws IOException {
+        File out = folder.newFolder();
+        File missing = new File(out, "missing");
+        RenderPipeline pipeline = new RenderPipeline(2, 4);
+        for (int i = 0; i < 5; i++)
+            pipeline.submit(new File(i == 1 ? missing : out, i + ".png"),
+                    () -> new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB));
+        pipeline.close();
+
+        assertFalse(new File(missing, "1.png").exists());
+        for (int i : new int[]{0, 2, 3, 4})
+            assertTrue(new File(out, i + ".png").exists());
+        assertEquals(4, pipeline.framesWritten());
+        assertEquals(1, pipeline.framesFailed());
+    }
+}
@@ -0,0 +1,172 @@
+package ImageWork;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the SegmentationWorker, run against Vision/copy_worker.py, which
+ * copies each image to its mask path.
+ *
+ * @author E. Dov Neimand
+ */
+public class SegmentationWorkerTest {
+
+    private static final String PYTHON = "python3",
+            COPY_WORKER = "../Vision/copy_worker.py";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Makes an image with distinct contents.
+     *
+     * @param i The index of the image.
+     * @return The image.
+     * @throws IOException If the image can't be written.
+     */
+    private File image(int i) throws IOException {
+        File image = folder.newFile(i + ".tif");
+        Files.write(image.toPath(), ("image " + i).getBytes());
+        return image;
+    }
+
+    /**
+     * Starts a thread that submits an image.
+     *
+     * @param worker The worker the image is submitted to.
+     * @param input The image.
+     * @param thrown Set to whatever the submit throws.
+     * @return The thread.
+     */
+    private Thread submitter(SegmentationWorker worker, File input, AtomicReference<Throwable> thrown) {
+        Thread thread = new Thread(() -> {
+            try {
+                worker.submit(input, new File(input.getPath() + ".png"));
+            } catch (RuntimeException ex) {
+                thrown.set(ex);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Each mask is written and has the contents of its image.
+     *
+     * @throws IOException If the temporary folder can't be used.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<File> images = new ArrayList<>();
+        for (int i = 0; i < 10; i++) images.add(image(i));
+        File out = folder.newFolder();
+
+        try (SegmentationWorker worker = new SegmentationWorker(PYTHON, COPY_WORKER).setMaxPending(3)) {
+            List<File> masks = worker.segmentAll(images, out);
+            assertEquals(images.size(), masks.size());
+            for (int i = 0; i < images.size(); i++) {
+                assertEquals(new File(out, i + ".png").getAbsolutePath(), masks.get(i).getAbsolutePath());
+                assertArrayEquals(Files.readAllBytes(images.get(i).toPath()), Files.readAllBytes(masks.get(i).toPath()));
+            }
+            assertEquals(0, worker.getRestarts());
+        }
+    }
+
+    /**
+     * Submit blocks while maxPending images are unfinished, and goes on once
+     * there's room.
+     *
+     * @throws IOException If the temporary folder can't be used.
+     * @throws InterruptedException If the test is interrupted.
+     */
+    @Test
+    public void testBackpressure() throws IOException, InterruptedException {
+        SegmentationWorker worker = new SegmentationWorker(PYTHON, COPY_WORKER, "--drop-after", "0").setMaxPending(1);
+        File first = image(0);
+        CompletableFuture<File> unanswered = worker.submit(first, new File(first.getPath() + ".png"));
+
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread blocked = submitter(worker, image(1), thrown);
+        blocked.join(300);
+        assertTrue(blocked.isAlive());
+
+        worker.setMaxPending(2);
+        blocked.join(5000);
+        assertFalse(blocked.isAlive());
+        assertEquals(null, thrown.get());
+        assertFalse(unanswered.isDone());
+
+        worker.close();
+    }
+
+    /**
+     * When the worker dies it's restarted and the images it hadn't finished
+     * are sent again.
+     *
+     * @throws IOException If the temporary folder can't be used.
+     */
+    @Test
+    public void testRestart() throws IOException {
+        List<File> images = new ArrayList<>();
+        for (int i = 0; i < 4; i++) images.add(image(i));
+        File out = folder.newFolder();
+
+        try (SegmentationWorker worker = new SegmentationWorker(PYTHON, COPY_WORKER, "--crash-after", "2").setMaxPending(2)) {
+            List<File> masks = worker.segmentAll(images, out);
+            for (int i = 0; i < images.size(); i++)
+                assertArrayEquals(Files.readAllBytes(images.get(i).toPath()), Files.readAllBytes(masks.get(i).toPath()));
+            assertEquals(1, worker.getRestarts());
+        }
+    }
+
+    /**
+     * Closing the worker fails the unfinished images and releases any submit
+     * waiting for a free slot.
+     *
+     * @throws IOException If the temporary folder can't be used.
+     * @throws InterruptedException If the test is interrupted.
+     */
+    @Test
+    public void testCloseWithPending() throws IOException, InterruptedException {
+        SegmentationWorker worker = new SegmentationWorker(PYTHON, COPY_WORKER, "--drop-after", "0").setMaxPending(2);
+        List<CompletableFuture<File>> unanswered = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            File input = image(i);
+            unanswered.add(worker.submit(input, new File(input.getPath() + ".png")));
+        }
+
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread blocked = submitter(worker, image(2), thrown);
+        blocked.join(300);
+        assertTrue(blocked.isAlive());
+
+        worker.close();
+        blocked.join(5000);
+        assertFalse(blocked.isAlive());
+        assertTrue(thrown.get() instanceof IllegalStateException);
+
+        for (CompletableFuture<File> mask : unanswered) {
+            try {
+                mask.join();
+                fail("An unfinished image was not failed.");
+            } catch (CompletionException ex) {
+                assertTrue(ex.getCause() instanceof IllegalStateException);
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+"""Segments images with cellpose, loading the model once.
+
+Reads requests from stdin and answers on stdout, one tab separated line each:
+    SEG  id  input  output   ->   OK  id  output   or   ERR  id  message
+and exits on QUIT.  Everything else it prints goes to stderr.
+"""
+import sys
+
+from cellpose import io, models
+
+
+def main():
+    model_type = sys.argv[1] if len(sys.argv) > 1 else "cyto"
+    model = models.Cellpose(model_type=model_type)
+    print("cellpose model %s loaded" % model_type, file=sys.stderr, flush=True)
+
+    for line in sys.stdin:
+        fields = line.rstrip("\n").split("\t")
+        if fields[0] == "QUIT":
+            break
+        if fields[0] != "SEG" or len(fields) != 4:
+            continue
+        _, request_id, image, mask = fields
+        try:
+            masks = model.eval(io.imread(image), diameter=None, channels=[0, 0])[0]
+            io.imsave(mask, masks.astype("uint16"))
+            print("OK\t%s\t%s" % (request_id, mask), flush=True)
+        except Exception as e:
+            print("ERR\t%s\t%s" % (request_id, str(e).replace("\n", " ")), flush=True)
+
+
+if __name__ == "__main__":
+    main()
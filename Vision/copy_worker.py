@@ -0,0 +1,36 @@
+"""A stand-in for cellpose_worker.py that copies each image to its mask path.
+
+It speaks the same protocol as cellpose_worker.py, so SegmentationWorker can be
+exercised without cellpose.  With --crash-after n it exits after n images, to
+exercise restarts.  With --drop-after n it stops replying after n images, so
+that requests stay unfinished.
+"""
+import shutil
+import sys
+
+
+def main():
+    crash_after = int(sys.argv[sys.argv.index("--crash-after") + 1]) if "--crash-after" in sys.argv else -1
+    drop_after = int(sys.argv[sys.argv.index("--drop-after") + 1]) if "--drop-after" in sys.argv else -1
+    done = 0
+    for line in sys.stdin:
+        fields = line.rstrip("\n").split("\t")
+        if fields[0] == "QUIT":
+            break
+        if fields[0] != "SEG" or len(fields) != 4:
+            continue
+        _, request_id, image, mask = fields
+        if done == crash_after:
+            sys.exit(1)
+        if done == drop_after:
+            continue
+        try:
+            shutil.copyfile(image, mask)
+            print("OK\t%s\t%s" % (request_id, mask), flush=True)
+        except OSError as e:
+            print("ERR\t%s\t%s" % (request_id, e), flush=True)
+        done += 1
+
+
+if __name__ == "__main__":
+    main()
@@ -45,16 +45,23 @@
  * ------------- JFREECHART 1.0.x ---------------------------------------------
  * 01-Dec-2006 : Implemented PublicCloneable and fixed clone() method (DG);
  * 02-Jul-2013 : Use ParamChecks (DG);
+ * 19-Oct-2026 : Added a grid index for getEntity(double, double) and a
+ *               minimum entity size (EDN);
  *
  */
 
 package org.jfree.chart.entity;
 
+import java.awt.Shape;
+import java.awt.geom.Rectangle2D;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import org.jfree.chart.util.ParamChecks;
 
 import org.jfree.util.ObjectUtilities;
@@ -62,6 +69,16 @@ import org.jfree.util.PublicCloneable;
 
 /**
  * A standard implementation of the {@link EntityCollection} interface.
+ * <p>
+ * The entities are indexed as they are added, by the square cells of a grid
+ * their bounds overlap, so that {@link #getEntity(double, double)} only
+ * looks at the entities near the point.  Entities that overlap more than
+ * {@link #MAX_CELLS_PER_ENTITY} cells, such as the entity for the whole
+ * plot, are kept apart and always looked at.
+ * <p>
+ * Entities smaller than the minimum entity size in both width and height
+ * are too small to point at, and are not added.  Renderers that check
+ * {@link #isTooSmall(Shape)} don't create them at all.
  */
 public class StandardEntityCollection implements EntityCollection,
         Cloneable, PublicCloneable, Serializable {
@@ -69,14 +86,87 @@ public class StandardEntityCollection implements EntityCollection,
     /** For serialization. */
     private static final long serialVersionUID = 5384773031184897047L;
 
+    /** The width and height of the cells of the index, in Java2D units. */
+    public static final double CELL_SIZE = 16.0;
+
+    /**
+     * The most cells an entity is indexed by; larger entities are looked at
+     * for every point.
+     */
+    public static final int MAX_CELLS_PER_ENTITY = 64;
+
     /** Storage for the entities. */
     private List entities;
 
+    /**
+     * The width and height below which an entity is too small to add
+     * (defaults to 0.0, so that all entities are added).
+     */
+    private double minimumEntitySize;
+
+    /**
+     * The indices of the entities that overlap each cell, by cell, or
+     * <code>null</code> if the index must be rebuilt, as after
+     * deserialization.
+     */
+    private transient Map cells;
+
+    /** The indices of the entities that overlap too many cells. */
+    private transient IndexList large;
+
     /**
      * Constructs a new entity collection (initially empty).
      */
     public StandardEntityCollection() {
         this.entities = new java.util.ArrayList();
+        this.cells = new HashMap();
+        this.large = new IndexList();
+    }
+
+    /**
+     * Returns the width and height below which an entity is too small to
+     * add.
+     *
+     * @return The minimum entity size, in Java2D units.
+     *
+     * @see #setMinimumEntitySize(double)
+     * @since 1.0.20
+     */
+    public double getMinimumEntitySize() {
+        return this.minimumEntitySize;
+    }
+
+    /**
+     * Sets the width and height below which an entity is too small to add.
+     * Entities already in the collection are kept.
+     *
+     * @param size  the minimum entity size, in Java2D units.
+     *
+     * @see #getMinimumEntitySize()
+     * @since 1.0.20
+     */
+    public void setMinimumEntitySize(double size) {
+        this.minimumEntitySize = size;
+    }
+
+    /**
+     * Returns <code>true</code> if an entity with the given area is
+     * narrower and shorter than the minimum entity size, so that it would
+     * not be added.
+     *
+     * @param area  the area (<code>null</code> not permitted).
+     *
+     * @return A boolean.
+     *
+     * @since 1.0.20
+     */
+    public boolean isTooSmall(Shape area) {
+        if (this.minimumEntitySize <= 0.0) {
+            return false;
+        }
+        Rectangle2D bounds = area.getBounds2D();
+        return bounds.getWidth() < this.minimumEntitySize
+                && bounds.getHeight() < this.minimumEntitySize;
     }
 
     /**
@@ -109,6 +199,8 @@ public class StandardEntityCollection implements EntityCollection,
     @Override
     public void clear() {
         this.entities.clear();
+        this.cells = new HashMap();
+        this.large = new IndexList();
     }
 
     /**
@@ -119,7 +211,13 @@ public class StandardEntityCollection implements EntityCollection,
     @Override
     public void add(ChartEntity entity) {
         ParamChecks.nullNotPermitted(entity, "entity");
+        if (isTooSmall(entity.getArea())) {
+            return;
+        }
         this.entities.add(entity);
+        if (this.cells != null) {
+            index(this.entities.size() - 1);
+        }
     }
 
     /**
@@ -130,7 +228,66 @@ public class StandardEntityCollection implements EntityCollection,
      */
     @Override
     public void addAll(EntityCollection collection) {
+        int start = this.entities.size();
         this.entities.addAll(collection.getEntities());
+        if (this.cells != null) {
+            for (int i = start; i < this.entities.size(); i++) {
+                index(i);
+            }
+        }
+    }
+
+    /**
+     * Adds an entity to the index, by the cells its bounds overlap.
+     *
+     * @param i  the index of the entity in the list.
+     */
+    private void index(int i) {
+        ChartEntity entity = (ChartEntity) this.entities.get(i);
+        Rectangle2D bounds = entity.getArea().getBounds2D();
+        double x0 = Math.floor(bounds.getMinX() / CELL_SIZE);
+        double y0 = Math.floor(bounds.getMinY() / CELL_SIZE);
+        double x1 = Math.floor(bounds.getMaxX() / CELL_SIZE);
+        double y1 = Math.floor(bounds.getMaxY() / CELL_SIZE);
+        double count = (x1 - x0 + 1) * (y1 - y0 + 1);
+        if (!(count <= MAX_CELLS_PER_ENTITY)) {  // too large, or NaN
+            this.large.add(i);
+            return;
+        }
+        for (int cx = (int) x0; cx <= (int) x1; cx++) {
+            for (int cy = (int) y0; cy <= (int) y1; cy++) {
+                Long key = new Long(key(cx, cy));
+                IndexList list = (IndexList) this.cells.get(key);
+                if (list == null) {
+                    list = new IndexList();
+                    this.cells.put(key, list);
+                }
+                list.add(i);
+            }
+        }
+    }
+
+    /**
+     * Indexes all the entities anew.
+     */
+    private void buildIndex() {
+        this.cells = new HashMap();
+        this.large = new IndexList();
+        for (int i = 0; i < this.entities.size(); i++) {
+            index(i);
+        }
+    }
+
+    /**
+     * Returns the key of a cell.
+     *
+     * @param cx  the column of the cell.
+     * @param cy  the row of the cell.
+     *
+     * @return The key.
+     */
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
     }
 
     /**
@@ -144,9 +301,21 @@ public class StandardEntityCollection implements EntityCollection,
      */
     @Override
     public ChartEntity getEntity(double x, double y) {
-        int entityCount = this.entities.size();
-        for (int i = entityCount - 1; i >= 0; i--) {
-            ChartEntity entity = (ChartEntity) this.entities.get(i);
+        if (this.cells == null) {
+            buildIndex();
+        }
+        IndexList near = (IndexList) this.cells.get(new Long(key(
+                (int) Math.floor(x / CELL_SIZE),
+                (int) Math.floor(y / CELL_SIZE))));
+        int[] a = near == null ? new int[0] : near.indices;
+        int i = near == null ? -1 : near.size - 1;
+        int[] b = this.large.indices;
+        int j = this.large.size - 1;
+
+        // look from the last entity added back, as a scan of the list does
+        while (i >= 0 || j >= 0) {
+            int next = j < 0 || (i >= 0 && a[i] > b[j]) ? a[i--] : b[j--];
+            ChartEntity entity = (ChartEntity) this.entities.get(next);
             if (entity.getArea().contains(x, y)) {
                 return entity;
             }
@@ -171,7 +340,23 @@ public class StandardEntityCollection implements EntityCollection,
      */
     @Override
     public Iterator iterator() {
-        return this.entities.iterator();
+        final Iterator iterator = this.entities.iterator();
+        return new Iterator() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+            @Override
+            public Object next() {
+                return iterator.next();
+            }
+            @Override
+            public void remove() {
+                iterator.remove();
+                StandardEntityCollection.this.cells = null;
+                StandardEntityCollection.this.large = null;
+            }
+        };
     }
 
     /**
@@ -188,6 +373,9 @@ public class StandardEntityCollection implements EntityCollection,
         }
         if (obj instanceof StandardEntityCollection) {
             StandardEntityCollection that = (StandardEntityCollection) obj;
+            if (this.minimumEntitySize != that.minimumEntitySize) {
+                return false;
+            }
             return ObjectUtilities.equal(this.entities, that.entities);
         }
         return false;
@@ -204,6 +392,8 @@ public class StandardEntityCollection implements EntityCollection,
     public Object clone() throws CloneNotSupportedException {
         StandardEntityCollection clone
                 = (StandardEntityCollection) super.clone();
+        clone.cells = null;
+        clone.large = null;
         clone.entities = new java.util.ArrayList(this.entities.size());
         for (int i = 0; i < this.entities.size(); i++) {
             ChartEntity entity = (ChartEntity) this.entities.get(i);
@@ -212,4 +402,29 @@ public class StandardEntityCollection implements EntityCollection,
         return clone;
     }
 
+    /**
+     * A growable list of entity indices.
+     */
+    private static class IndexList {
+
+        /** The indices. */
+        int[] indices = new int[4];
+
+        /** The number of indices. */
+        int size;
+
+        /**
+         * Appends an index.
+         *
+         * @param i  the index.
+         */
+        void add(int i) {
+            if (this.size == this.indices.length) {
+                this.indices = Arrays.copyOf(this.indices, 2 * this.size);
+            }
+            this.indices[this.size++] = i;
+        }
+
+    }
+
 }
@@ -122,6 +122,8 @@
  * 11-Jan-2014 : Fix error in fillDomainGridBand method (DG);
  * 07-Apr-2014 : Don't use ObjectList anymore (DG);
  * 29-Jul-2014 : Add rendering hint to normalise domain and range lines (DG);
+ * 19-Oct-2026 : Skip entities too small for a StandardEntityCollection
+ *               (EDN);
  * 
  */
 
@@ -155,6 +157,7 @@ import org.jfree.chart.annotations.Annotation;
 import org.jfree.chart.annotations.XYAnnotation;
 import org.jfree.chart.axis.ValueAxis;
 import org.jfree.chart.entity.EntityCollection;
+import org.jfree.chart.entity.StandardEntityCollection;
 import org.jfree.chart.entity.XYItemEntity;
 import org.jfree.chart.event.AnnotationChangeEvent;
 import org.jfree.chart.event.AnnotationChangeListener;
@@ -1735,7 +1738,9 @@ public abstract class AbstractXYItemRenderer extends AbstractRenderer
     }
 
     /**
-     * Adds an entity to the collection.
+     * Adds an entity to the collection.  No entity is created if the
+     * collection is a {@link StandardEntityCollection} that finds the area
+     * too small.
      *
      * @param entities  the entity collection being populated.
      * @param area  the entity area (if <code>null</code> a default will be
@@ -1765,6 +1770,10 @@ public abstract class AbstractXYItemRenderer extends AbstractRenderer
                 hotspot = new Ellipse2D.Double(entityY - r, entityX - r, w, w);
             }
         }
+        if (entities instanceof StandardEntityCollection
+                && ((StandardEntityCollection) entities).isTooSmall(hotspot)) {
+            return;
+        }
         String tip = null;
         XYToolTipGenerator generator = getToolTipGenerator(series, item);
         if (generator != null) {
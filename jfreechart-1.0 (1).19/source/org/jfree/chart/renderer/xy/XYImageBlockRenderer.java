@@ -0,0 +1,427 @@
+/* ===========================================================
+ * JFreeChart : a free chart library for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2000-2014, by Object Refinery Limited and Contributors.
+ *
+ * Project Info:  http://www.jfree.org/jfreechart/index.html
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.]
+ *
+ * -------------------------
+ * XYImageBlockRenderer.java
+ * -------------------------
+ * (C) Copyright 2026, by Object Refinery Limited and Contributors.
+ *
+ * Original Author:  E. Dov Neimand;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ * 19-Oct-2026 : Version 1 (EDN);
+ *
+ */
+
+package org.jfree.chart.renderer.xy;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Serializable;
+
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.event.RendererChangeEvent;
+import org.jfree.chart.plot.CrosshairState;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.PlotRenderingInfo;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.PaintScale;
+import org.jfree.data.xy.XYDataset;
+import org.jfree.data.xy.XYZDataset;
+import org.jfree.ui.RectangleAnchor;
+import org.jfree.ui.RectangleEdge;
+import org.jfree.util.PublicCloneable;
+
+/**
+ * A block renderer that draws each series lying on a regular grid as a
+ * single image, with one pixel per block, instead of filling a rectangle for
+ * every item.  The image is scaled to the axes each time the chart is drawn,
+ * so it follows panning and zooming, and is clipped to the data area.
+ * <p>
+ * A series lies on a regular grid if every x-value is the smallest x-value
+ * plus a whole number of block widths, and likewise for the y-values with
+ * the block height.  Items with a <code>NaN</code> x- or y-value are skipped.
+ * Series that do not lie on a grid, that cover too little of their grid, or
+ * whose paint scale returns something other than a <code>Color</code>, are
+ * drawn one block at a time as by {@link XYBlockRenderer}.
+ * <p>
+ * The bounds of the paint scale are split into {@link #getLookupSize()}
+ * equal steps, and a z-value in a step whose ends have the same colour is
+ * given that colour from a lookup table, made once each time the chart is
+ * drawn, without asking the paint scale.  Other z-values are coloured by the
+ * paint scale, so the colours are those drawn by {@link XYBlockRenderer}
+ * for a scale that is constant between the places its colour changes, such
+ * as a {@link org.jfree.chart.renderer.LookupPaintScale}.  No entity is added
+ * for the items of a series drawn as an image.
+ *
+ * @since 1.0.20
+ */
+public class XYImageBlockRenderer extends XYBlockRenderer
+        implements XYItemRenderer, Cloneable, PublicCloneable, Serializable {
+
+    /** For serialization. */
+    private static final long serialVersionUID = 3915742480146853021L;
+
+    /**
+     * The most blocks of the grid a series is drawn as an image for, as a
+     * multiple of its number of items.
+     */
+    private static final int MAX_GRID_PER_ITEM = 4;
+
+    /** The number of colours in the lookup table (defaults to 256). */
+    private int lookupSize = 256;
+
+    /**
+     * The state of the renderer while a chart is being drawn.
+     */
+    public static class State extends XYItemRendererState {
+
+        /** The series last drawn, -1 before any is drawn. */
+        private int series = -1;
+
+        /** Was the series last drawn drawn as an image? */
+        private boolean image;
+
+        /** The colour lookup table, made when first needed. */
+        private int[] lookup;
+
+        /** The steps of the lookup table whose ends differ in colour. */
+        private boolean[] mixed;
+
+        /**
+         * Creates a new state.
+         *
+         * @param info  the plot rendering info.
+         */
+        public State(PlotRenderingInfo info) {
+            super(info);
+        }
+
+    }
+
+    /**
+     * Creates a new <code>XYImageBlockRenderer</code> instance with default
+     * attributes.
+     */
+    public XYImageBlockRenderer() {
+        super();
+    }
+
+    /**
+     * Returns the number of colours in the lookup table the z-values are
+     * coloured from.
+     *
+     * @return The number of colours.
+     *
+     * @see #setLookupSize(int)
+     */
+    public int getLookupSize() {
+        return this.lookupSize;
+    }
+
+    /**
+     * Sets the number of colours in the lookup table the z-values are
+     * coloured from and sends a {@link RendererChangeEvent} to all registered
+     * listeners.  Use more colours for a paint scale with finer steps.
+     *
+     * @param size  the number of colours (must be &gt; 0).
+     *
+     * @see #getLookupSize()
+     */
+    public void setLookupSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException(
+                    "The 'size' argument must be > 0");
+        }
+        this.lookupSize = size;
+        fireChangeEvent();
+    }
+
+    /**
+     * Initialises the renderer, returning a state that remembers which
+     * series have been drawn as images.
+     *
+     * @param g2  the graphics device.
+     * @param dataArea  the data area.
+     * @param plot  the plot.
+     * @param dataset  the dataset.
+     * @param info  the plot rendering info.
+     *
+     * @return The renderer state.
+     */
+    @Override
+    public XYItemRendererState initialise(Graphics2D g2, Rectangle2D dataArea,
+            XYPlot plot, XYDataset dataset, PlotRenderingInfo info) {
+        return new State(info);
+    }
+
+    /**
+     * Draws the item.  On the first item drawn from a series, the whole
+     * series is drawn as an image if it lies on a regular grid; the items of
+     * such a series are otherwise ignored.  Items of other series are drawn
+     * as blocks.
+     *
+     * @param g2  the graphics device.
+     * @param state  the state.
+     * @param dataArea  the data area.
+     * @param info  the plot rendering info.
+     * @param plot  the plot.
+     * @param domainAxis  the x-axis.
+     * @param rangeAxis  the y-axis.
+     * @param dataset  the dataset.
+     * @param series  the series index.
+     * @param item  the item index.
+     * @param crosshairState  the crosshair state.
+     * @param pass  the pass index.
+     */
+    @Override
+    public void drawItem(Graphics2D g2, XYItemRendererState state,
+            Rectangle2D dataArea, PlotRenderingInfo info, XYPlot plot,
+            ValueAxis domainAxis, ValueAxis rangeAxis, XYDataset dataset,
+            int series, int item, CrosshairState crosshairState, int pass) {
+
+        if (!(state instanceof State)) {
+            super.drawItem(g2, state, dataArea, info, plot, domainAxis,
+                    rangeAxis, dataset, series, item, crosshairState, pass);
+            return;
+        }
+        State s = (State) state;
+        if (s.series != series) {
+            s.series = series;
+            s.image = drawSeriesImage(g2, s, dataArea, plot, domainAxis,
+                    rangeAxis, dataset, series);
+        }
+        if (!s.image) {
+            super.drawItem(g2, state, dataArea, info, plot, domainAxis,
+                    rangeAxis, dataset, series, item, crosshairState, pass);
+        }
+    }
+
+    /**
+     * Draws a series as a single image, if it lies on a regular grid.
+     *
+     * @param g2  the graphics device.
+     * @param state  the state.
+     * @param dataArea  the data area.
+     * @param plot  the plot.
+     * @param domainAxis  the x-axis.
+     * @param rangeAxis  the y-axis.
+     * @param dataset  the dataset.
+     * @param series  the series index.
+     *
+     * @return <code>true</code> if the series was drawn, and
+     *         <code>false</code> if it must be drawn one block at a time.
+     */
+    private boolean drawSeriesImage(Graphics2D g2, State state,
+            Rectangle2D dataArea, XYPlot plot, ValueAxis domainAxis,
+            ValueAxis rangeAxis, XYDataset dataset, int series) {
+
+        int itemCount = dataset.getItemCount(series);
+        double xMin = Double.POSITIVE_INFINITY;
+        double yMin = Double.POSITIVE_INFINITY;
+        double xMax = Double.NEGATIVE_INFINITY;
+        double yMax = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < itemCount; i++) {
+            double x = dataset.getXValue(series, i);
+            double y = dataset.getYValue(series, i);
+            if (Double.isNaN(x) || Double.isNaN(y)) {
+                continue;
+            }
+            xMin = Math.min(xMin, x);
+            xMax = Math.max(xMax, x);
+            yMin = Math.min(yMin, y);
+            yMax = Math.max(yMax, y);
+        }
+        if (xMin > xMax) {
+            return true;  // nothing to draw
+        }
+        if (Double.isInfinite(xMin) || Double.isInfinite(xMax)
+                || Double.isInfinite(yMin) || Double.isInfinite(yMax)) {
+            return false;
+        }
+
+        double w = getBlockWidth();
+        double h = getBlockHeight();
+        long columns = Math.round((xMax - xMin) / w) + 1;
+        long rows = Math.round((yMax - yMin) / h) + 1;
+        if (columns * rows > (long) MAX_GRID_PER_ITEM * itemCount
+                && columns * rows > 1024) {
+            return false;
+        }
+
+        PaintScale scale = getPaintScale();
+        if (state.lookup == null && !createLookup(state, scale)) {
+            return false;
+        }
+        double lower = scale.getLowerBound();
+        double upper = scale.getUpperBound();
+        double perColour = this.lookupSize / (upper - lower);
+
+        // the image is drawn in its own orientation, then turned by the
+        // transform: its columns are x and its rows y, top row first
+        int nx = (int) columns;
+        int ny = (int) rows;
+        BufferedImage image = new BufferedImage(nx, ny,
+                BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer())
+                .getData();
+        XYZDataset xyz = dataset instanceof XYZDataset
+                ? (XYZDataset) dataset : null;
+        for (int i = 0; i < itemCount; i++) {
+            double x = dataset.getXValue(series, i);
+            double y = dataset.getYValue(series, i);
+            if (Double.isNaN(x) || Double.isNaN(y)) {
+                continue;
+            }
+            double fx = (x - xMin) / w;
+            double fy = (y - yMin) / h;
+            long col = Math.round(fx);
+            long row = Math.round(fy);
+            if (Math.abs(fx - col) > 1e-6 || Math.abs(fy - row) > 1e-6) {
+                return false;
+            }
+            double z = xyz == null ? 0.0 : xyz.getZValue(series, i);
+            int c = -1;
+            if (z >= lower && z <= upper) {
+                c = Math.min((int) ((z - lower) * perColour),
+                        this.lookupSize - 1);
+            }
+            int argb;
+            if (c >= 0 && !state.mixed[c]) {
+                argb = state.lookup[c];
+            }
+            else {
+                Paint p = scale.getPaint(z);
+                if (!(p instanceof Color)) {
+                    return false;
+                }
+                argb = ((Color) p).getRGB();
+            }
+            pixels[(ny - 1 - (int) row) * nx + (int) col] = argb;
+        }
+
+        Point2D anchor = RectangleAnchor.coordinates(
+                new Rectangle2D.Double(0.0, 0.0, w, h), getBlockAnchor());
+        double x0 = xMin - anchor.getX();
+        double y0 = yMin - (h - anchor.getY());
+        RectangleEdge xEdge = plot.getDomainAxisEdge();
+        RectangleEdge yEdge = plot.getRangeAxisEdge();
+        double left = domainAxis.valueToJava2D(x0, dataArea, xEdge);
+        double right = domainAxis.valueToJava2D(x0 + nx * w, dataArea, xEdge);
+        double bottom = rangeAxis.valueToJava2D(y0, dataArea, yEdge);
+        double top = rangeAxis.valueToJava2D(y0 + ny * h, dataArea, yEdge);
+
+        AffineTransform t;
+        if (plot.getOrientation() == PlotOrientation.HORIZONTAL) {
+            // x runs down or up the screen, y across it
+            t = new AffineTransform(0.0, (right - left) / nx,
+                    (bottom - top) / ny, 0.0, top, left);
+        }
+        else {
+            t = new AffineTransform((right - left) / nx, 0.0, 0.0,
+                    (bottom - top) / ny, left, top);
+        }
+
+        Shape savedClip = g2.getClip();
+        Object savedHint = g2.getRenderingHint(
+                RenderingHints.KEY_INTERPOLATION);
+        g2.clip(dataArea);
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g2.drawImage(image, t, null);
+        if (savedHint != null) {
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, savedHint);
+        }
+        g2.setClip(savedClip);
+        return true;
+    }
+
+    /**
+     * Creates the colour lookup table of the state, taking the colour at
+     * each end of {@link #getLookupSize()} equal steps between the bounds of
+     * the paint scale.
+     *
+     * @param state  the state.
+     * @param scale  the paint scale.
+     *
+     * @return <code>false</code> if the scale returns a paint that is not a
+     *         <code>Color</code>.
+     */
+    private boolean createLookup(State state, PaintScale scale) {
+        double lower = scale.getLowerBound();
+        double step = (scale.getUpperBound() - lower) / this.lookupSize;
+        int[] ends = new int[this.lookupSize + 1];
+        for (int i = 0; i <= this.lookupSize; i++) {
+            Paint p = scale.getPaint(i == this.lookupSize
+                    ? scale.getUpperBound() : lower + i * step);
+            if (!(p instanceof Color)) {
+                return false;
+            }
+            ends[i] = ((Color) p).getRGB();
+        }
+        state.lookup = new int[this.lookupSize];
+        state.mixed = new boolean[this.lookupSize];
+        for (int i = 0; i < this.lookupSize; i++) {
+            state.lookup[i] = ends[i];
+            state.mixed[i] = ends[i] != ends[i + 1];
+        }
+        return true;
+    }
+
+    /**
+     * Tests this <code>XYImageBlockRenderer</code> for equality with an
+     * arbitrary object.
+     *
+     * @param obj  the object (<code>null</code> permitted).
+     *
+     * @return A boolean.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof XYImageBlockRenderer)) {
+            return false;
+        }
+        XYImageBlockRenderer that = (XYImageBlockRenderer) obj;
+        if (this.lookupSize != that.lookupSize) {
+            return false;
+        }
+        return super.equals(obj);
+    }
+
+}
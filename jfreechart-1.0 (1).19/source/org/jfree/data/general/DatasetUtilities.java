@@ -123,6 +123,7 @@
  * 10-Sep-2009 : Fix bug 2849731 for IntervalCategoryDataset (DG);
  * 16-Feb-2010 : Patch 2952086 - find z-bounds (MH);
  * 02-Jul-2013 : Use ParamChecks (DG);
+ * 19-Oct-2026 : Use XYZBoundsInfo in findZBounds() (EDN);
  * 
  */
 
@@ -156,6 +157,7 @@ import org.jfree.data.xy.XYDomainInfo;
 import org.jfree.data.xy.XYRangeInfo;
 import org.jfree.data.xy.XYSeries;
 import org.jfree.data.xy.XYSeriesCollection;
+import org.jfree.data.xy.XYZBoundsInfo;
 import org.jfree.data.xy.XYZDataset;
 import org.jfree.util.ArrayUtilities;
 
@@ -1299,7 +1301,14 @@ public final class DatasetUtilities {
     public static Range findZBounds(XYZDataset dataset,
             boolean includeInterval) {
         ParamChecks.nullNotPermitted(dataset, "dataset");
-        Range result = iterateZBounds(dataset, includeInterval);
+        Range result;
+        if (dataset instanceof XYZBoundsInfo) {
+            XYZBoundsInfo info = (XYZBoundsInfo) dataset;
+            result = info.getZBounds(includeInterval);
+        }
+        else {
+            result = iterateZBounds(dataset, includeInterval);
+        }
         return result;
     }
 
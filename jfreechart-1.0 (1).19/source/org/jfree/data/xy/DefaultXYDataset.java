@@ -38,27 +38,42 @@
  * 02-Nov-2006 : Fixed a problem with adding a new series with the same key
  *               as an existing series (see bug 1589392) (DG);
  * 25-Jan-2007 : Implemented PublicCloneable (DG);
+ * 19-Oct-2026 : Keep the bounds of each series, and implement
+ *               DomainInfo, RangeInfo, XYDomainInfo and XYRangeInfo (EDN);
  *
  */
 
 package org.jfree.data.xy;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
+import org.jfree.chart.util.ParamChecks;
+import org.jfree.data.DomainInfo;
 import org.jfree.data.DomainOrder;
+import org.jfree.data.Range;
+import org.jfree.data.RangeInfo;
 import org.jfree.data.general.DatasetChangeEvent;
 import org.jfree.util.PublicCloneable;
 
 /**
  * A default implementation of the {@link XYDataset} interface that stores
  * data values in arrays of double primitives.
+ * <P>
+ * The bounds of each series are found when the series is added, so that the
+ * bounds of the dataset are found without iterating over the data.  The
+ * arrays passed to {@link #addSeries(Comparable, double[][])} are not
+ * copied: if their values are changed, the series must be added again.
  *
  * @since 1.0.2
  */
 public class DefaultXYDataset extends AbstractXYDataset
-        implements XYDataset, PublicCloneable {
+        implements XYDataset, DomainInfo, RangeInfo, XYDomainInfo,
+        XYRangeInfo, PublicCloneable {
 
     /**
      * Storage for the series keys.  This list must be kept in sync with the
@@ -73,6 +88,13 @@ public class DefaultXYDataset extends AbstractXYDataset
      */
     private List seriesList;
 
+    /**
+     * The bounds of each series in the dataset (instances of
+     * {@link SeriesBounds}).  This list must be kept in sync with the
+     * seriesList.
+     */
+    private transient List seriesBounds;
+
     /**
      * Creates a new <code>DefaultXYDataset</code> instance, initially
      * containing no data.
@@ -80,6 +102,7 @@ public class DefaultXYDataset extends AbstractXYDataset
     public DefaultXYDataset() {
         this.seriesKeys = new java.util.ArrayList();
         this.seriesList = new java.util.ArrayList();
+        this.seriesBounds = new java.util.ArrayList();
     }
 
     /**
@@ -276,10 +299,12 @@ public class DefaultXYDataset extends AbstractXYDataset
         if (seriesIndex == -1) {  // add a new series
             this.seriesKeys.add(seriesKey);
             this.seriesList.add(data);
+            this.seriesBounds.add(new SeriesBounds(data));
         }
         else {  // replace an existing series
             this.seriesList.remove(seriesIndex);
             this.seriesList.add(seriesIndex, data);
+            this.seriesBounds.set(seriesIndex, new SeriesBounds(data));
         }
         notifyListeners(new DatasetChangeEvent(this, this));
     }
@@ -296,10 +321,168 @@ public class DefaultXYDataset extends AbstractXYDataset
         if (seriesIndex >= 0) {
             this.seriesKeys.remove(seriesIndex);
             this.seriesList.remove(seriesIndex);
+            this.seriesBounds.remove(seriesIndex);
             notifyListeners(new DatasetChangeEvent(this, this));
         }
     }
 
+    /**
+     * Returns the minimum x-value in the dataset.
+     *
+     * @param includeInterval  ignored, the items in this dataset have no
+     *     intervals.
+     *
+     * @return The minimum value or <code>Double.NaN</code> if there are no
+     *     values.
+     *
+     * @since 1.0.20
+     */
+    @Override
+    public double getDomainLowerBound(boolean includeInterval) {
+        Range r = getDomainBounds(includeInterval);
+        return (r != null ? r.getLowerBound() : Double.NaN);
+    }
+
+    /**
+     * Returns the maximum x-value in the dataset.
+     *
+     * @param includeInterval  ignored, the items in this dataset have no
+     *     intervals.
+     *
+     * @return The maximum value or <code>Double.NaN</code> if there are no
+     *     values.
+     *
+     * @since 1.0.20
+     */
+    @Override
+    public double getDomainUpperBound(boolean includeInterval) {
+        Range r = getDomainBounds(includeInterval);
+        return (r != null ? r.getUpperBound() : Double.NaN);
+    }
+
+    /**
+     * Returns the range of the x-values in the dataset.
+     *
+     * @param includeInterval  ignored, the items in this dataset have no
+     *     intervals.
+     *
+     * @return The range (or <code>null</code> if the dataset contains no
+     *     values).
+     *
+     * @since 1.0.20
+     */
+    @Override
+    public Range getDomainBounds(boolean includeInterval) {
+        return SeriesBounds.combine(this.seriesBounds, 0);
+    }
+
+    /**
+     * Returns the range of the x-values in the series with the given keys.
+     *
+     * @param visibleSeriesKeys  the keys of the visible series
+     *     (<code>null</code> not permitted).
+     * @param includeInterval  ignored, the items in this dataset have no
+     *     intervals.
+     *
+     * @return The range (or <code>null</code> if the series contain no
+     *     values).
+     *
+     * @since 1.0.20
+     */
+    @Override
+    public Range getDomainBounds(List visibleSeriesKeys,
+            boolean includeInterval) {
+        ParamChecks.nullNotPermitted(visibleSeriesKeys, "visibleSeriesKeys");
+        List bounds = new ArrayList(visibleSeriesKeys.size());
+        Iterator iterator = visibleSeriesKeys.iterator();
+        while (iterator.hasNext()) {
+            int series = indexOf((Comparable) iterator.next());
+            bounds.add(this.seriesBounds.get(series));
+        }
+        return SeriesBounds.combine(bounds, 0);
+    }
+
+    /**
+     * Returns the minimum y-value in the dataset.
+     *
+     * @param includeInterval  ignored, the items in this dataset have no
+     *     intervals.
+     *
+     * @return The minimum value or <code>Double.NaN</code> if there are no
+     *     values.
+     *
+     * @since 1.0.20
+     */
+    @Override
+    public double getRangeLowerBound(boolean includeInterval) {
+        Range r = getRangeBounds(includeInterval);
+        return (r != null ? r.getLowerBound() : Double.NaN);
+    }
+
+    /**
+     * Returns the maximum y-value in the dataset.
+     *
+     * @param includeInterval  ignored, the items in this dataset have no
+     *     intervals.
+     *
+     * @return The maximum value or <code>Double.NaN</code> if there are no
+     *     values.
+     *
+     * @since 1.0.20
+     */
+    @Override
+    public double getRangeUpperBound(boolean includeInterval) {
+        Range r = getRangeBounds(includeInterval);
+        return (r != null ? r.getUpperBound() : Double.NaN);
+    }
+
+    /**
+     * Returns the range of the y-values in the dataset.
+     *
+     * @param includeInterval  ignored, the items in this dataset have no
+     *     intervals.
+     *
+     * @return The range (or <code>null</code> if the dataset contains no
+     *     values).
+     *
+     * @since 1.0.20
+     */
+    @Override
+    public Range getRangeBounds(boolean includeInterval) {
+        return SeriesBounds.combine(this.seriesBounds, 1);
+    }
+
+    /**
+     * Returns the range of the y-values of the items in the series with the
+     * given keys that have an x-value in the given range.  A series with
+     * every x-value in the range is not iterated over.
+     *
+     * @param visibleSeriesKeys  the keys of the visible series
+     *     (<code>null</code> not permitted).
+     * @param xRange  the x-range (<code>null</code> not permitted).
+     * @param includeInterval  ignored, the items in this dataset have no
+     *     intervals.
+     *
+     * @return The range (or <code>null</code> if there are no such values).
+     *
+     * @since 1.0.20
+     */
+    @Override
+    public Range getRangeBounds(List visibleSeriesKeys, Range xRange,
+            boolean includeInterval) {
+        ParamChecks.nullNotPermitted(visibleSeriesKeys, "visibleSeriesKeys");
+        ParamChecks.nullNotPermitted(xRange, "xRange");
+        Range result = null;
+        Iterator iterator = visibleSeriesKeys.iterator();
+        while (iterator.hasNext()) {
+            int series = indexOf((Comparable) iterator.next());
+            SeriesBounds bounds = (SeriesBounds) this.seriesBounds.get(series);
+            result = Range.combine(result, bounds.getYBounds(
+                    (double[][]) this.seriesList.get(series), xRange));
+        }
+        return result;
+    }
+
     /**
      * Tests this <code>DefaultXYDataset</code> instance for equality with an
      * arbitrary object.  This method returns <code>true</code> if and only if:
@@ -371,6 +554,7 @@ public class DefaultXYDataset extends AbstractXYDataset
         DefaultXYDataset clone = (DefaultXYDataset) super.clone();
         clone.seriesKeys = new java.util.ArrayList(this.seriesKeys);
         clone.seriesList = new ArrayList(this.seriesList.size());
+        clone.seriesBounds = new ArrayList(this.seriesBounds);
         for (int i = 0; i < this.seriesList.size(); i++) {
             double[][] data = (double[][]) this.seriesList.get(i);
             double[] x = data[0];
@@ -384,4 +568,22 @@ public class DefaultXYDataset extends AbstractXYDataset
         return clone;
     }
 
+    /**
+     * Provides serialization support.
+     *
+     * @param stream  the input stream.
+     *
+     * @throws IOException  if there is an I/O error.
+     * @throws ClassNotFoundException  if there is a classpath problem.
+     */
+    private void readObject(ObjectInputStream stream)
+            throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+        this.seriesBounds = new ArrayList(this.seriesList.size());
+        for (int i = 0; i < this.seriesList.size(); i++) {
+            double[][] data = (double[][]) this.seriesList.get(i);
+            this.seriesBounds.add(new SeriesBounds(data));
+        }
+    }
+
 }
@@ -0,0 +1,185 @@
+/* ===========================================================
+ * JFreeChart : a free chart library for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2000-2014, by Object Refinery Limited and Contributors.
+ *
+ * Project Info:  http://www.jfree.org/jfreechart/index.html
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.]
+ *
+ * -----------------
+ * SeriesBounds.java
+ * -----------------
+ * (C) Copyright 2026, by Object Refinery Limited and Contributors.
+ *
+ * Original Author:  E. Dov Neimand;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ * 19-Oct-2026 : Version 1 (EDN);
+ *
+ */
+
+package org.jfree.data.xy;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.jfree.data.Range;
+
+/**
+ * The bounds of the values in one series of a dataset that stores its data
+ * in arrays of double primitives (such as {@link DefaultXYDataset}), found
+ * once when the series is added so that the bounds of the dataset can be
+ * found without looking at every item.  <code>Double.NaN</code> values are
+ * ignored, as they are by
+ * {@link org.jfree.data.general.DatasetUtilities}.  Instances are immutable.
+ */
+final class SeriesBounds {
+
+    /**
+     * The bounds of each array of the series (<code>null</code> for an array
+     * with no values).
+     */
+    private final Range[] bounds;
+
+    /** A flag that indicates that some x-value is <code>Double.NaN</code>. */
+    private final boolean missingX;
+
+    /**
+     * Finds the bounds of a series.
+     *
+     * @param data  the data (the x-values first, then the y-values, then
+     *     any others).
+     */
+    SeriesBounds(double[][] data) {
+        this.bounds = new Range[data.length];
+        for (int i = 0; i < data.length; i++) {
+            this.bounds[i] = iterateBounds(data[i]);
+        }
+        this.missingX = containsNaN(data[0]);
+    }
+
+    /**
+     * Returns the bounds of one of the arrays of the series.
+     *
+     * @param index  the array index (0 for the x-values, 1 for the y-values
+     *     and so on).
+     *
+     * @return The bounds (<code>null</code> if the array has no values).
+     */
+    Range getBounds(int index) {
+        return this.bounds[index];
+    }
+
+    /**
+     * Returns the bounds of the y-values of the items with an x-value in the
+     * given range.  The bounds found when the series was added are used when
+     * every x-value is in the range, otherwise the items are checked one at a
+     * time.
+     *
+     * @param data  the data the bounds were found for.
+     * @param xRange  the x-range (<code>null</code> not permitted).
+     *
+     * @return The bounds (<code>null</code> if there are no such y-values).
+     */
+    Range getYBounds(double[][] data, Range xRange) {
+        Range x = this.bounds[0];
+        if (!this.missingX && (x == null
+                || (xRange.contains(x.getLowerBound())
+                && xRange.contains(x.getUpperBound())))) {
+            return this.bounds[1];
+        }
+        double minimum = Double.POSITIVE_INFINITY;
+        double maximum = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < data[0].length; i++) {
+            double y = data[1][i];
+            if (xRange.contains(data[0][i]) && !Double.isNaN(y)) {
+                minimum = Math.min(minimum, y);
+                maximum = Math.max(maximum, y);
+            }
+        }
+        if (minimum > maximum) {
+            return null;
+        }
+        return new Range(minimum, maximum);
+    }
+
+    /**
+     * Returns the bounds of one of the arrays over several series.
+     *
+     * @param bounds  the bounds of the series (a list of
+     *     <code>SeriesBounds</code> instances).
+     * @param index  the array index.
+     *
+     * @return The bounds (<code>null</code> if the arrays have no values).
+     */
+    static Range combine(List bounds, int index) {
+        Range result = null;
+        Iterator iterator = bounds.iterator();
+        while (iterator.hasNext()) {
+            SeriesBounds b = (SeriesBounds) iterator.next();
+            result = Range.combine(result, b.bounds[index]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the bounds of the values in an array.
+     *
+     * @param values  the values.
+     *
+     * @return The bounds (<code>null</code> if there are no values that are
+     *     not <code>Double.NaN</code>).
+     */
+    private static Range iterateBounds(double[] values) {
+        double minimum = Double.POSITIVE_INFINITY;
+        double maximum = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < values.length; i++) {
+            double v = values[i];
+            if (!Double.isNaN(v)) {
+                minimum = Math.min(minimum, v);
+                maximum = Math.max(maximum, v);
+            }
+        }
+        if (minimum > maximum) {
+            return null;
+        }
+        return new Range(minimum, maximum);
+    }
+
+    /**
+     * Returns <code>true</code> if an array contains <code>Double.NaN</code>.
+     *
+     * @param values  the values.
+     *
+     * @return A boolean.
+     */
+    private static boolean containsNaN(double[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (Double.isNaN(values[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
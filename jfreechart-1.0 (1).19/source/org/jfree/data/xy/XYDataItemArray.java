@@ -0,0 +1,310 @@
+/* ===========================================================
+ * JFreeChart : a free chart library for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2000-2014, by Object Refinery Limited and Contributors.
+ *
+ * Project Info:  http://www.jfree.org/jfreechart/index.html
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.]
+ *
+ * --------------------
+ * XYDataItemArray.java
+ * --------------------
+ * (C) Copyright 2026, by Object Refinery Limited and Contributors.
+ *
+ * Original Author:  E. Dov Neimand;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ * 19-Oct-2026 : Version 1 (EDN);
+ *
+ */
+
+package org.jfree.data.xy;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import org.jfree.chart.util.ParamChecks;
+
+/**
+ * A list of {@link XYDataItem} objects that keeps the x- and y-values in
+ * arrays of primitives, used by an {@link XYSeries} created with array
+ * storage.  Items are made when they are asked for, so changes to an item
+ * returned by {@link #get(int)} are not seen by the list until the item is
+ * put back with {@link #set(int, Object)}.  Values are kept as doubles.
+ */
+class XYDataItemArray extends AbstractList
+        implements RandomAccess, Cloneable, Serializable {
+
+    /** For serialization. */
+    private static final long serialVersionUID = -2436950814326407563L;
+
+    /** The x-values. */
+    private double[] x;
+
+    /** The y-values, <code>Double.NaN</code> where the y-value is null. */
+    private double[] y;
+
+    /** Flags for the items whose y-value is <code>null</code>. */
+    private boolean[] nullY;
+
+    /** The number of items. */
+    private int size;
+
+    /**
+     * Creates a new empty list.
+     */
+    XYDataItemArray() {
+        this(10);
+    }
+
+    /**
+     * Creates a new empty list with room for the given number of items.
+     *
+     * @param capacity  the number of items.
+     */
+    XYDataItemArray(int capacity) {
+        this.x = new double[Math.max(capacity, 1)];
+        this.y = new double[this.x.length];
+        this.nullY = new boolean[this.x.length];
+    }
+
+    /**
+     * Returns the number of items.
+     *
+     * @return The number of items.
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns a new data item with the values at an index.
+     *
+     * @param index  the index.
+     *
+     * @return The item.
+     */
+    @Override
+    public Object get(int index) {
+        checkIndex(index, this.size);
+        return new XYDataItem(new Double(this.x[index]),
+                this.nullY[index] ? null : new Double(this.y[index]));
+    }
+
+    /**
+     * Returns the x-value at an index.
+     *
+     * @param index  the index.
+     *
+     * @return The x-value.
+     */
+    double getXValue(int index) {
+        checkIndex(index, this.size);
+        return this.x[index];
+    }
+
+    /**
+     * Returns the y-value at an index.
+     *
+     * @param index  the index.
+     *
+     * @return The y-value, <code>Double.NaN</code> if it is null.
+     */
+    double getYValue(int index) {
+        checkIndex(index, this.size);
+        return this.y[index];
+    }
+
+    /**
+     * Returns the y-value at an index.
+     *
+     * @param index  the index.
+     *
+     * @return The y-value (possibly <code>null</code>).
+     */
+    Number getY(int index) {
+        checkIndex(index, this.size);
+        return this.nullY[index] ? null : new Double(this.y[index]);
+    }
+
+    /**
+     * Replaces the values at an index with those of a data item.
+     *
+     * @param index  the index.
+     * @param element  the data item (<code>null</code> not permitted).
+     *
+     * @return A data item with the values replaced.
+     */
+    @Override
+    public Object set(int index, Object element) {
+        Object old = get(index);
+        put(index, (XYDataItem) element);
+        return old;
+    }
+
+    /**
+     * Inserts the values of a data item at an index.
+     *
+     * @param index  the index.
+     * @param element  the data item (<code>null</code> not permitted).
+     */
+    @Override
+    public void add(int index, Object element) {
+        if (index < 0 || index > this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index
+                    + ", Size: " + this.size);
+        }
+        ParamChecks.nullNotPermitted(element, "element");
+        ensureCapacity(this.size + 1);
+        int moved = this.size - index;
+        System.arraycopy(this.x, index, this.x, index + 1, moved);
+        System.arraycopy(this.y, index, this.y, index + 1, moved);
+        System.arraycopy(this.nullY, index, this.nullY, index + 1, moved);
+        this.size++;
+        put(index, (XYDataItem) element);
+        this.modCount++;
+    }
+
+    /**
+     * Appends an item.
+     *
+     * @param x  the x-value.
+     * @param y  the y-value.
+     */
+    void add(double x, double y) {
+        ensureCapacity(this.size + 1);
+        this.x[this.size] = x;
+        this.y[this.size] = y;
+        this.nullY[this.size] = false;
+        this.size++;
+        this.modCount++;
+    }
+
+    /**
+     * Appends a copy of an item of another list.
+     *
+     * @param other  the other list.
+     * @param index  the index of the item in the other list.
+     */
+    void add(XYDataItemArray other, int index) {
+        add(other.x[index], other.y[index]);
+        this.nullY[this.size - 1] = other.nullY[index];
+    }
+
+    /**
+     * Removes the item at an index.
+     *
+     * @param index  the index.
+     *
+     * @return A data item with the values removed.
+     */
+    @Override
+    public Object remove(int index) {
+        Object old = get(index);
+        removeRange(index, index + 1);
+        return old;
+    }
+
+    /**
+     * Removes the items from one index, inclusive, to another, exclusive.
+     *
+     * @param fromIndex  the first index removed.
+     * @param toIndex  the index after the last removed.
+     */
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        int moved = this.size - toIndex;
+        System.arraycopy(this.x, toIndex, this.x, fromIndex, moved);
+        System.arraycopy(this.y, toIndex, this.y, fromIndex, moved);
+        System.arraycopy(this.nullY, toIndex, this.nullY, fromIndex, moved);
+        this.size -= toIndex - fromIndex;
+        this.modCount++;
+    }
+
+    /**
+     * Removes all items.
+     */
+    @Override
+    public void clear() {
+        this.size = 0;
+        this.modCount++;
+    }
+
+    /**
+     * Stores the values of a data item at an index.
+     *
+     * @param index  the index.
+     * @param item  the data item.
+     */
+    private void put(int index, XYDataItem item) {
+        this.x[index] = item.getXValue();
+        this.y[index] = item.getYValue();
+        this.nullY[index] = item.getY() == null;
+    }
+
+    /**
+     * Makes sure there is room for a number of items.
+     *
+     * @param capacity  the number of items.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.x.length) {
+            int length = Math.max(capacity, this.x.length * 3 / 2 + 1);
+            this.x = Arrays.copyOf(this.x, length);
+            this.y = Arrays.copyOf(this.y, length);
+            this.nullY = Arrays.copyOf(this.nullY, length);
+        }
+    }
+
+    /**
+     * Throws an exception if an index is not that of an item.
+     *
+     * @param index  the index.
+     * @param size  the number of items.
+     */
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index
+                    + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Returns an independent copy of the list.
+     *
+     * @return A copy of the list.
+     */
+    @Override
+    public Object clone() {
+        XYDataItemArray clone = new XYDataItemArray(this.size);
+        System.arraycopy(this.x, 0, clone.x, 0, this.size);
+        System.arraycopy(this.y, 0, clone.y, 0, this.size);
+        System.arraycopy(this.nullY, 0, clone.nullY, 0, this.size);
+        clone.size = this.size;
+        return clone;
+    }
+
+}
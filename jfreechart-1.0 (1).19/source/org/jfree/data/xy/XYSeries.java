@@ -75,14 +75,17 @@
  * 10-Jun-2009 : Make clones to isolate XYDataItem instances used
  *               for data storage (DG);
  * 02-Jul-2013 : Use ParamChecks (DG);
+ * 19-Oct-2026 : Added add(double[], double[]), array storage and
+ *               getXValue() and getYValue() methods (EDN);
  * 
  */
 
 package org.jfree.data.xy;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import org.jfree.chart.util.ParamChecks;
 
@@ -97,6 +100,12 @@ import org.jfree.util.ObjectUtilities;
  * and duplicate x-values are permitted.  Both the sorting and duplicate
  * defaults can be changed in the constructor.  Y-values can be
  * <code>null</code> to represent missing values.
+ * <p>
+ * A series created with array storage keeps its values in arrays of
+ * doubles instead of as {@link XYDataItem} objects, which saves memory and
+ * time for large series.  Many items are best added at once with
+ * {@link #add(double[], double[])}, which sorts them once and sends one
+ * {@link SeriesChangeEvent}.
  */
 public class XYSeries extends Series implements Cloneable, Serializable {
 
@@ -107,7 +116,11 @@ public class XYSeries extends Series implements Cloneable, Serializable {
     // the 'data' attribute from 'private' to 'protected', so that others can
     // make subclasses that work directly with the underlying data structure.
 
-    /** Storage for the data items in the series. */
+    /**
+     * Storage for the data items in the series.  For a series with array
+     * storage, the items are made as they are asked for, so an item changed
+     * must be put back in the list.
+     */
     protected List data;
 
     /** The maximum number of items for the series. */
@@ -169,8 +182,28 @@ public class XYSeries extends Series implements Cloneable, Serializable {
      */
     public XYSeries(Comparable key, boolean autoSort,
             boolean allowDuplicateXValues) {
+        this(key, autoSort, allowDuplicateXValues, false);
+    }
+
+    /**
+     * Constructs a new xy-series that contains no data, keeping its values
+     * in arrays of doubles if requested.
+     *
+     * @param key  the series key (<code>null</code> not permitted).
+     * @param autoSort  a flag that controls whether or not the items in the
+     *                  series are sorted.
+     * @param allowDuplicateXValues  a flag that controls whether duplicate
+     *                               x-values are allowed.
+     * @param arrayStorage  a flag that controls whether the values are kept
+     *                      in arrays of doubles rather than as
+     *                      {@link XYDataItem} objects.
+     *
+     * @since 1.0.20
+     */
+    public XYSeries(Comparable key, boolean autoSort,
+            boolean allowDuplicateXValues, boolean arrayStorage) {
         super(key);
-        this.data = new java.util.ArrayList();
+        this.data = arrayStorage ? new XYDataItemArray() : new ArrayList();
         this.autoSort = autoSort;
         this.allowDuplicateXValues = allowDuplicateXValues;
         this.minX = Double.NaN;
@@ -307,10 +340,14 @@ public class XYSeries extends Series implements Cloneable, Serializable {
         this.maxX = Double.NaN;
         this.minY = Double.NaN;
         this.maxY = Double.NaN;
-        Iterator iterator = this.data.iterator();
-        while (iterator.hasNext()) {
-            XYDataItem item = (XYDataItem) iterator.next();
-            updateBoundsForAddedItem(item);
+        int itemCount = getItemCount();
+        for (int i = 0; i < itemCount; i++) {
+            double x = getXValue(i);
+            double y = getYValue(i);
+            this.minX = minIgnoreNaN(this.minX, x);
+            this.maxX = maxIgnoreNaN(this.maxX, x);
+            this.minY = minIgnoreNaN(this.minY, y);
+            this.maxY = maxIgnoreNaN(this.maxY, y);
         }
     }
 
@@ -335,6 +372,18 @@ public class XYSeries extends Series implements Cloneable, Serializable {
         return this.allowDuplicateXValues;
     }
 
+    /**
+     * Returns a flag that indicates whether the values are kept in arrays of
+     * doubles.  This flag can only be set in the constructor.
+     *
+     * @return A boolean.
+     *
+     * @since 1.0.20
+     */
+    public boolean getArrayStorage() {
+        return this.data instanceof XYDataItemArray;
+    }
+
     /**
      * Returns the number of items in the series.
      *
@@ -552,6 +601,166 @@ public class XYSeries extends Series implements Cloneable, Serializable {
         }
     }
 
+    /**
+     * Adds many data items to the series and sends a single
+     * {@link SeriesChangeEvent} to all registered listeners.  The series is
+     * left as it would be after adding the items one at a time, but the
+     * items are sorted once and merged with those already in the series,
+     * rather than each being inserted in turn.
+     *
+     * @param x  the x-values (<code>null</code> not permitted).
+     * @param y  the y-values (<code>null</code> not permitted), as many as
+     *           there are x-values.
+     *
+     * @throws SeriesException if an x-value is a duplicate and the
+     *     <code>allowDuplicateXValues</code> flag is not set for this series,
+     *     in which case no item is added.
+     *
+     * @since 1.0.20
+     */
+    public void add(double[] x, double[] y) {
+        add(x, y, true);
+    }
+
+    /**
+     * Adds many data items to the series and, if requested, sends a single
+     * {@link SeriesChangeEvent} to all registered listeners.
+     *
+     * @param x  the x-values (<code>null</code> not permitted).
+     * @param y  the y-values (<code>null</code> not permitted), as many as
+     *           there are x-values.
+     * @param notify  a flag that controls whether or not a
+     *                {@link SeriesChangeEvent} is sent to all registered
+     *                listeners.
+     *
+     * @throws SeriesException if an x-value is a duplicate and the
+     *     <code>allowDuplicateXValues</code> flag is not set for this series,
+     *     in which case no item is added.
+     *
+     * @since 1.0.20
+     */
+    public void add(double[] x, double[] y, boolean notify) {
+        ParamChecks.nullNotPermitted(x, "x");
+        ParamChecks.nullNotPermitted(y, "y");
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("There are " + x.length
+                    + " x-values and " + y.length + " y-values.");
+        }
+        int n = x.length;
+        if (n == 0) {
+            return;
+        }
+        int existing = getItemCount();
+        if (!this.allowDuplicateXValues) {
+            double[] all = Arrays.copyOf(x, existing + n);
+            for (int i = 0; i < existing; i++) {
+                all[n + i] = getXValue(i);
+            }
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                if (all[i] == all[i - 1]) {
+                    throw new SeriesException("X-value already exists.");
+                }
+            }
+        }
+        int[] order = this.autoSort ? sortOrder(x) : null;
+
+        // items dropped for the maximum item count are the first ones in the
+        // merged series, as when they are added one at a time
+        int total = existing + n;
+        int skip = Math.max(0, total - this.maximumItemCount);
+        XYDataItemArray array = this.data instanceof XYDataItemArray
+                ? (XYDataItemArray) this.data : null;
+        List merged = array != null ? new XYDataItemArray(total - skip)
+                : new ArrayList(total - skip);
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < total; k++) {
+            boolean old = i < existing && (j == n || !this.autoSort
+                    || getXValue(i) <= x[order[j]]);
+            if (k < skip) {
+                if (old) {
+                    i++;
+                }
+                else {
+                    j++;
+                }
+            }
+            else if (old) {
+                if (array != null) {
+                    ((XYDataItemArray) merged).add(array, i++);
+                }
+                else {
+                    merged.add(this.data.get(i++));
+                }
+            }
+            else {
+                int item = order == null ? j++ : order[j++];
+                if (array != null) {
+                    ((XYDataItemArray) merged).add(x[item], y[item]);
+                }
+                else {
+                    merged.add(new XYDataItem(x[item], y[item]));
+                }
+            }
+        }
+        this.data = merged;
+
+        if (skip > 0) {
+            findBoundsByIteration();
+        }
+        else {
+            for (int k = 0; k < n; k++) {
+                this.minX = minIgnoreNaN(this.minX, x[k]);
+                this.maxX = maxIgnoreNaN(this.maxX, x[k]);
+                this.minY = minIgnoreNaN(this.minY, y[k]);
+                this.maxY = maxIgnoreNaN(this.maxY, y[k]);
+            }
+        }
+        if (notify) {
+            fireSeriesChanged();
+        }
+    }
+
+    /**
+     * Returns the indices of values in ascending order of value, with equal
+     * values in the order of their indices.
+     *
+     * @param values  the values.
+     *
+     * @return The indices.
+     */
+    private static int[] sortOrder(double[] values) {
+        int n = values.length;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        int[] buffer = new int[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int start = 0; start < n - width; start += 2 * width) {
+                int middle = start + width;
+                int end = Math.min(start + 2 * width, n);
+                if (values[order[middle - 1]] <= values[order[middle]]) {
+                    continue;  // already in order
+                }
+                int a = start;
+                int b = middle;
+                for (int k = start; k < end; k++) {
+                    if (b == end || (a < middle
+                            && values[order[a]] <= values[order[b]])) {
+                        buffer[k] = order[a++];
+                    }
+                    else {
+                        buffer[k] = order[b++];
+                    }
+                }
+                System.arraycopy(buffer, start, order, start, end - start);
+            }
+        }
+        return order;
+    }
+
     /**
      * Deletes a range of items from the series and sends a
      * {@link SeriesChangeEvent} to all registered listeners.
@@ -642,6 +851,9 @@ public class XYSeries extends Series implements Cloneable, Serializable {
      * @return The x-value (never <code>null</code>).
      */
     public Number getX(int index) {
+        if (this.data instanceof XYDataItemArray) {
+            return new Double(getXValue(index));
+        }
         return getRawDataItem(index).getX();
     }
 
@@ -653,9 +865,47 @@ public class XYSeries extends Series implements Cloneable, Serializable {
      * @return The y-value (possibly <code>null</code>).
      */
     public Number getY(int index) {
+        if (this.data instanceof XYDataItemArray) {
+            return ((XYDataItemArray) this.data).getY(index);
+        }
         return getRawDataItem(index).getY();
     }
 
+    /**
+     * Returns the x-value at the specified index as a double, without making
+     * an object for a series with array storage.
+     *
+     * @param index  the index (zero-based).
+     *
+     * @return The x-value.
+     *
+     * @since 1.0.20
+     */
+    public double getXValue(int index) {
+        if (this.data instanceof XYDataItemArray) {
+            return ((XYDataItemArray) this.data).getXValue(index);
+        }
+        return getRawDataItem(index).getXValue();
+    }
+
+    /**
+     * Returns the y-value at the specified index as a double, without making
+     * an object for a series with array storage.
+     *
+     * @param index  the index (zero-based).
+     *
+     * @return The y-value (<code>Double.NaN</code> for a <code>null</code>
+     *         y-value).
+     *
+     * @since 1.0.20
+     */
+    public double getYValue(int index) {
+        if (this.data instanceof XYDataItemArray) {
+            return ((XYDataItemArray) this.data).getYValue(index);
+        }
+        return getRawDataItem(index).getYValue();
+    }
+
     /**
      * Updates the value of an item in the series and sends a
      * {@link SeriesChangeEvent} to all registered listeners.
@@ -676,6 +926,7 @@ public class XYSeries extends Series implements Cloneable, Serializable {
             iterate = oldY <= this.minY || oldY >= this.maxY;
         }
         item.setY(y);
+        this.data.set(index, item);
 
         if (iterate) {
             findBoundsByIteration();
@@ -817,6 +1068,7 @@ public class XYSeries extends Series implements Cloneable, Serializable {
                 iterate = oldY <= this.minY || oldY >= this.maxY;
             }
             existing.setY(item.getY());
+            this.data.set(index, existing);
 
             if (iterate) {
                 findBoundsByIteration();
@@ -909,7 +1161,12 @@ public class XYSeries extends Series implements Cloneable, Serializable {
     @Override
     public Object clone() throws CloneNotSupportedException {
         XYSeries clone = (XYSeries) super.clone();
-        clone.data = (List) ObjectUtilities.deepClone(this.data);
+        if (this.data instanceof XYDataItemArray) {
+            clone.data = (List) ((XYDataItemArray) this.data).clone();
+        }
+        else {
+            clone.data = (List) ObjectUtilities.deepClone(this.data);
+        }
         return clone;
     }
 
@@ -927,7 +1184,8 @@ public class XYSeries extends Series implements Cloneable, Serializable {
             throws CloneNotSupportedException {
 
         XYSeries copy = (XYSeries) super.clone();
-        copy.data = new java.util.ArrayList();
+        copy.data = getArrayStorage() ? new XYDataItemArray()
+                : new ArrayList();
         if (this.data.size() > 0) {
             for (int index = start; index <= end; index++) {
                 XYDataItem item = (XYDataItem) this.data.get(index);
@@ -60,6 +60,7 @@
  * 02-Jul-2013 : Use ParamChecks (DG);
  * 21-Nov-2013 : Fixed bug where removeSeries(int) was not deregistering 
  *               vetoable listener (DG);
+ * 19-Oct-2026 : Overridden getXValue() and getYValue() (EDN);
  *
  */
 
@@ -358,6 +359,22 @@ public class XYSeriesCollection extends AbstractIntervalXYDataset
         return s.getX(item);
     }
 
+    /**
+     * Returns the x-value for the specified series and item.
+     *
+     * @param series  the series (zero-based index).
+     * @param item  the item (zero-based index).
+     *
+     * @return The x-value.
+     *
+     * @since 1.0.20
+     */
+    @Override
+    public double getXValue(int series, int item) {
+        XYSeries s = (XYSeries) this.data.get(series);
+        return s.getXValue(item);
+    }
+
     /**
      * Returns the starting X value for the specified series and item.
      *
@@ -398,6 +415,23 @@ public class XYSeriesCollection extends AbstractIntervalXYDataset
         return s.getY(index);
     }
 
+    /**
+     * Returns the y-value for the specified series and item.
+     *
+     * @param series  the series (zero-based index).
+     * @param item  the item (zero-based index).
+     *
+     * @return The y-value (<code>Double.NaN</code> for a <code>null</code>
+     *         y-value).
+     *
+     * @since 1.0.20
+     */
+    @Override
+    public double getYValue(int series, int item) {
+        XYSeries s = (XYSeries) this.data.get(series);
+        return s.getYValue(item);
+    }
+
     /**
      * Returns the starting Y value for the specified series and item.
      *
@@ -0,0 +1,67 @@
+/* ===========================================================
+ * JFreeChart : a free chart library for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2000-2014, by Object Refinery Limited and Contributors.
+ *
+ * Project Info:  http://www.jfree.org/jfreechart/index.html
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.]
+ *
+ * ------------------
+ * XYZBoundsInfo.java
+ * ------------------
+ * (C) Copyright 2026, by Object Refinery Limited and Contributors.
+ *
+ * Original Author:  E. Dov Neimand;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ * 19-Oct-2026 : Version 1 (EDN);
+ *
+ */
+
+package org.jfree.data.xy;
+
+import org.jfree.data.Range;
+
+/**
+ * An interface that can (optionally) be implemented by an
+ * {@link XYZDataset} to assist in determining the minimum and maximum
+ * z-values in the dataset.  If not present,
+ * {@link org.jfree.data.general.DatasetUtilities} will iterate over all the
+ * values in the dataset to get the bounds.
+ *
+ * @since 1.0.20
+ */
+public interface XYZBoundsInfo {
+
+    /**
+     * Returns the range of the z-values in this dataset.
+     *
+     * @param includeInterval  a flag that determines whether or not the
+     *                         z-interval is taken into account.
+     *
+     * @return The range (or <code>null</code> if the dataset contains no
+     *     values).
+     */
+    public Range getZBounds(boolean includeInterval);
+
+}
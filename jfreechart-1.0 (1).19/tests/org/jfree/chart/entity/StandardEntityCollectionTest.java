@@ -35,6 +35,9 @@
  * Changes
  * -------
  * 19-May-2004 : Version 1 (DG);
+ * 19-Oct-2026 : Added tests for the grid index and minimum entity
+ *               size (EDN);
+ * 19-Oct-2026 : Added an ignored benchmark for the grid index (EDN);
  *
  */
 
@@ -42,13 +45,20 @@ package org.jfree.chart.entity;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
 import java.awt.geom.Rectangle2D;
+import java.util.Iterator;
+import java.util.Random;
 
 import org.jfree.chart.TestUtilities;
 
 import org.jfree.data.general.DefaultPieDataset;
+import org.junit.Ignore;
 import org.junit.Test;
 
 /**
@@ -75,6 +85,11 @@ public class StandardEntityCollectionTest {
                 "ToolTip", "URL");
         c2.add(e2);
         assertTrue(c1.equals(c2));
+
+        c1.setMinimumEntitySize(2.0);
+        assertFalse(c1.equals(c2));
+        c2.setMinimumEntitySize(2.0);
+        assertTrue(c1.equals(c2));
     }
 
     /**
@@ -114,4 +129,174 @@ public class StandardEntityCollectionTest {
         assertEquals(c1, c2);
     }
 
+    /**
+     * Returns the last entity whose area contains a point, by looking at
+     * every entity.
+     *
+     * @param c  the entity collection.
+     * @param x  the x-coordinate.
+     * @param y  the y-coordinate.
+     *
+     * @return The entity (possibly <code>null</code>).
+     */
+    private ChartEntity scan(EntityCollection c, double x, double y) {
+        ChartEntity found = null;
+        Iterator iterator = c.iterator();
+        while (iterator.hasNext()) {
+            ChartEntity entity = (ChartEntity) iterator.next();
+            if (entity.getArea().contains(x, y)) {
+                found = entity;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Checks that getEntity(double, double) finds the entity a scan of all
+     * the entities finds, at many points.
+     *
+     * @param c  the entity collection.
+     * @param random  the random number generator.
+     */
+    private void assertFindsAsScan(StandardEntityCollection c,
+            Random random) {
+        for (int i = 0; i < 2000; i++) {
+            double x = random.nextDouble() * 900.0 - 50.0;
+            double y = random.nextDouble() * 700.0 - 50.0;
+            assertSame(scan(c, x, y), c.getEntity(x, y));
+        }
+    }
+
+    /**
+     * Adds entities of many sizes, some larger than the chart, some with
+     * negative coordinates.
+     *
+     * @param c  the entity collection.
+     * @param random  the random number generator.
+     * @param n  the number of entities.
+     */
+    private void addEntities(StandardEntityCollection c, Random random,
+            int n) {
+        for (int i = 0; i < n; i++) {
+            double size = i % 50 == 0 ? 1000.0 : random.nextDouble() * 40.0;
+            double x = random.nextDouble() * 800.0 - size / 2;
+            double y = random.nextDouble() * 600.0 - size / 2;
+            Shape area = i % 2 == 0
+                    ? new Rectangle2D.Double(x, y, size, size / 2)
+                    : new Ellipse2D.Double(x, y, size / 2, size);
+            c.add(new ChartEntity(area, "Tip " + i));
+        }
+    }
+
+    /**
+     * The grid index finds the same entity as looking at every entity, as
+     * entities are added, after the collection is cleared, after an entity
+     * is removed through the iterator, and in clones and serialized copies.
+     */
+    @Test
+    public void testGetEntity() throws CloneNotSupportedException {
+        Random random = new Random(1);
+        StandardEntityCollection c = new StandardEntityCollection();
+        assertNull(c.getEntity(10.0, 10.0));
+
+        addEntities(c, random, 500);
+        assertFindsAsScan(c, random);
+        addEntities(c, random, 500);
+        assertFindsAsScan(c, random);
+
+        Iterator iterator = c.iterator();
+        for (int i = 0; i < 100; i++) {
+            iterator.next();
+            iterator.remove();
+        }
+        assertFindsAsScan(c, random);
+
+        StandardEntityCollection clone = (StandardEntityCollection) c.clone();
+        assertFindsAsScan(clone, random);
+        StandardEntityCollection restored = (StandardEntityCollection)
+                TestUtilities.serialised(c);
+        assertFindsAsScan(restored, random);
+
+        c.clear();
+        assertNull(c.getEntity(10.0, 10.0));
+        addEntities(c, random, 200);
+        assertFindsAsScan(c, random);
+    }
+
+    /**
+     * Entities narrower and shorter than the minimum entity size are not
+     * added.
+     */
+    @Test
+    public void testMinimumEntitySize() {
+        StandardEntityCollection c = new StandardEntityCollection();
+        assertEquals(0.0, c.getMinimumEntitySize(), 0.0);
+        c.add(new ChartEntity(new Rectangle2D.Double(0, 0, 0.5, 0.5)));
+        assertEquals(1, c.getEntityCount());
+
+        c.setMinimumEntitySize(2.0);
+        assertTrue(c.isTooSmall(new Rectangle2D.Double(0, 0, 1.0, 1.5)));
+        assertFalse(c.isTooSmall(new Rectangle2D.Double(0, 0, 1.0, 2.0)));
+        c.add(new ChartEntity(new Rectangle2D.Double(0, 0, 1.0, 1.5)));
+        assertEquals(1, c.getEntityCount());
+        c.add(new ChartEntity(new Rectangle2D.Double(0, 0, 3.0, 0.5)));
+        assertEquals(2, c.getEntityCount());
+    }
+
+    /**
+     * Times adding a million small entities, such as those of a large
+     * scatter plot, and finding the entity at a point with the grid index
+     * and by looking at every entity.  This is a benchmark rather than a
+     * test, so it is ignored; remove the annotation to run it.
+     */
+    @Ignore
+    @Test
+    public void benchmarkGetEntity() {
+        int n = 1000000;
+        Random random = new Random(1);
+        Shape[] areas = new Shape[n];
+        for (int i = 0; i < n; i++) {
+            double x = random.nextDouble() * 4000.0;
+            double y = random.nextDouble() * 3000.0;
+            areas[i] = new Rectangle2D.Double(x, y, 4.0, 4.0);
+        }
+
+        long start = System.nanoTime();
+        StandardEntityCollection c = new StandardEntityCollection();
+        for (int i = 0; i < n; i++) {
+            c.add(new ChartEntity(areas[i]));
+        }
+        long added = System.nanoTime();
+
+        int lookups = 100000;
+        double[] points = new double[2 * lookups];
+        for (int i = 0; i < points.length; i += 2) {
+            points[i] = random.nextDouble() * 4000.0;
+            points[i + 1] = random.nextDouble() * 3000.0;
+        }
+        int found = 0;
+        long gridStart = System.nanoTime();
+        for (int i = 0; i < points.length; i += 2) {
+            if (c.getEntity(points[i], points[i + 1]) != null) {
+                found++;
+            }
+        }
+        long gridEnd = System.nanoTime();
+
+        int scans = 200;
+        long scanStart = System.nanoTime();
+        for (int i = 0; i < 2 * scans; i += 2) {
+            assertSame(scan(c, points[i], points[i + 1]),
+                    c.getEntity(points[i], points[i + 1]));
+        }
+        long scanEnd = System.nanoTime();
+
+        System.out.println(n + " entities added in "
+                + (added - start) / 1000000 + " ms; " + found + " of "
+                + lookups + " points hit an entity");
+        System.out.println("getEntity: " + (gridEnd - gridStart) / 1000.0
+                / lookups + " us per point; linear scan: "
+                + (scanEnd - scanStart) / 1000.0 / scans + " us per point");
+    }
+
 }
@@ -0,0 +1,308 @@
+/* ===========================================================
+ * JFreeChart : a free chart library for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2000-2014, by Object Refinery Limited and Contributors.
+ *
+ * Project Info:  http://www.jfree.org/jfreechart/index.html
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.]
+ *
+ * -----------------------------
+ * XYImageBlockRendererTest.java
+ * -----------------------------
+ * (C) Copyright 2026, by Object Refinery Limited and Contributors.
+ *
+ * Original Author:  E. Dov Neimand;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ * 19-Oct-2026 : Version 1 (EDN);
+ *
+ */
+
+package org.jfree.chart.renderer.xy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertFalse;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.TestUtilities;
+import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.LookupPaintScale;
+import org.jfree.data.xy.DefaultXYZDataset;
+import org.jfree.ui.RectangleInsets;
+import org.jfree.util.PublicCloneable;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link XYImageBlockRenderer} class.
+ */
+public class XYImageBlockRendererTest {
+
+    /**
+     * Test that the equals() method distinguishes all fields.
+     */
+    @Test
+    public void testEquals() {
+        XYImageBlockRenderer r1 = new XYImageBlockRenderer();
+        XYImageBlockRenderer r2 = new XYImageBlockRenderer();
+        assertTrue(r1.equals(r2));
+        assertTrue(r2.equals(r1));
+
+        // lookupSize
+        r1.setLookupSize(1024);
+        assertFalse(r1.equals(r2));
+        r2.setLookupSize(1024);
+        assertTrue(r1.equals(r2));
+
+        // fields of the superclass
+        r1.setBlockWidth(2.0);
+        assertFalse(r1.equals(r2));
+        r2.setBlockWidth(2.0);
+        assertTrue(r1.equals(r2));
+    }
+
+    /**
+     * Two objects that are equal are required to return the same hashCode.
+     */
+    @Test
+    public void testHashcode() {
+        XYImageBlockRenderer r1 = new XYImageBlockRenderer();
+        XYImageBlockRenderer r2 = new XYImageBlockRenderer();
+        assertTrue(r1.equals(r2));
+        assertEquals(r1.hashCode(), r2.hashCode());
+    }
+
+    /**
+     * Confirm that cloning works.
+     */
+    @Test
+    public void testCloning() throws CloneNotSupportedException {
+        XYImageBlockRenderer r1 = new XYImageBlockRenderer();
+        LookupPaintScale scale1 = new LookupPaintScale();
+        r1.setPaintScale(scale1);
+        r1.setLookupSize(64);
+        XYImageBlockRenderer r2 = (XYImageBlockRenderer) r1.clone();
+        assertTrue(r1 != r2);
+        assertTrue(r1.getClass() == r2.getClass());
+        assertTrue(r1.equals(r2));
+
+        // check independence
+        scale1.add(0.5, Color.red);
+        assertFalse(r1.equals(r2));
+        LookupPaintScale scale2 = (LookupPaintScale) r2.getPaintScale();
+        scale2.add(0.5, Color.red);
+        assertTrue(r1.equals(r2));
+    }
+
+    /**
+     * Verify that this class implements {@link PublicCloneable}.
+     */
+    @Test
+    public void testPublicCloneable() {
+        XYImageBlockRenderer r1 = new XYImageBlockRenderer();
+        assertTrue(r1 instanceof PublicCloneable);
+    }
+
+    /**
+     * Serialize an instance, restore it, and check for equality.
+     */
+    @Test
+    public void testSerialization() {
+        XYImageBlockRenderer r1 = new XYImageBlockRenderer();
+        r1.setLookupSize(100);
+        XYImageBlockRenderer r2 = (XYImageBlockRenderer)
+                TestUtilities.serialised(r1);
+        assertEquals(r1, r2);
+    }
+
+    /**
+     * A regular grid drawn as an image has the same colours as when it is
+     * drawn one block at a time, in either orientation and with an inverted
+     * axis.
+     */
+    @Test
+    public void testSameAsBlocks() {
+        DefaultXYZDataset dataset = grid(10, 8, 0.0);
+        for (PlotOrientation orientation : new PlotOrientation[] {
+                PlotOrientation.VERTICAL, PlotOrientation.HORIZONTAL}) {
+            for (boolean inverted : new boolean[] {false, true}) {
+                BufferedImage blocks = draw(new XYBlockRenderer(), dataset,
+                        orientation, inverted);
+                BufferedImage image = draw(new XYImageBlockRenderer(),
+                        dataset, orientation, inverted);
+                assertSameColours(blocks, image);
+            }
+        }
+    }
+
+    /**
+     * A grid zoomed in on is drawn as it is one block at a time.
+     */
+    @Test
+    public void testZoomed() {
+        DefaultXYZDataset dataset = grid(10, 8, 0.0);
+        XYBlockRenderer r1 = new XYBlockRenderer();
+        XYImageBlockRenderer r2 = new XYImageBlockRenderer();
+        r1.setPaintScale(scale());
+        r2.setPaintScale(scale());
+        XYPlot p1 = new XYPlot(dataset, new NumberAxis("X"),
+                new NumberAxis("Y"), r1);
+        XYPlot p2 = new XYPlot(dataset, new NumberAxis("X"),
+                new NumberAxis("Y"), r2);
+        p1.getDomainAxis().setRange(2.3, 5.7);
+        p2.getDomainAxis().setRange(2.3, 5.7);
+        p1.getRangeAxis().setRange(-0.5, 3.1);
+        p2.getRangeAxis().setRange(-0.5, 3.1);
+        assertSameColours(draw(p1), draw(p2));
+    }
+
+    /**
+     * Data that is not on a grid is drawn one block at a time.
+     */
+    @Test
+    public void testIrregular() {
+        DefaultXYZDataset dataset = grid(10, 8, 0.25);
+        BufferedImage blocks = draw(new XYBlockRenderer(), dataset,
+                PlotOrientation.VERTICAL, false);
+        BufferedImage image = draw(new XYImageBlockRenderer(), dataset,
+                PlotOrientation.VERTICAL, false);
+        assertSameColours(blocks, image);
+    }
+
+    /**
+     * A grid of z-values, one series.
+     *
+     * @param nx  the number of columns.
+     * @param ny  the number of rows.
+     * @param jitter  an amount added to every other x-value.
+     *
+     * @return The dataset.
+     */
+    private DefaultXYZDataset grid(int nx, int ny, double jitter) {
+        double[][] data = new double[3][nx * ny];
+        for (int i = 0; i < nx * ny; i++) {
+            data[0][i] = i % nx + (i % 2 == 0 ? 0.0 : jitter);
+            data[1][i] = i / nx;
+            data[2][i] = (i * 7 % 11) / 10.0;
+        }
+        DefaultXYZDataset dataset = new DefaultXYZDataset();
+        dataset.addSeries("S1", data);
+        return dataset;
+    }
+
+    /**
+     * A paint scale with a colour for each tenth between 0 and 1.
+     *
+     * @return The paint scale.
+     */
+    private LookupPaintScale scale() {
+        LookupPaintScale scale = new LookupPaintScale(0.0, 1.01, Color.black);
+        for (int i = 0; i <= 10; i++) {
+            scale.add(i / 10.0, new Color(20 * i, 255 - 20 * i, 100));
+        }
+        return scale;
+    }
+
+    /**
+     * Draws a dataset with a renderer.
+     *
+     * @param renderer  the renderer.
+     * @param dataset  the dataset.
+     * @param orientation  the plot orientation.
+     * @param inverted  invert the domain axis?
+     *
+     * @return The image drawn.
+     */
+    private BufferedImage draw(XYBlockRenderer renderer,
+            DefaultXYZDataset dataset, PlotOrientation orientation,
+            boolean inverted) {
+        renderer.setPaintScale(scale());
+        XYPlot plot = new XYPlot(dataset, new NumberAxis("X"),
+                new NumberAxis("Y"), renderer);
+        plot.setOrientation(orientation);
+        plot.getDomainAxis().setInverted(inverted);
+        return draw(plot);
+    }
+
+    /**
+     * Draws a plot, without axes or gaps so that the blocks fill the image.
+     *
+     * @param plot  the plot.
+     *
+     * @return The image drawn.
+     */
+    private BufferedImage draw(XYPlot plot) {
+        plot.getDomainAxis().setVisible(false);
+        plot.getRangeAxis().setVisible(false);
+        plot.setInsets(new RectangleInsets(0, 0, 0, 0));
+        plot.setAxisOffset(new RectangleInsets(0, 0, 0, 0));
+        plot.setOutlineVisible(false);
+        JFreeChart chart = new JFreeChart(null, null, plot, false);
+        chart.setPadding(new RectangleInsets(0, 0, 0, 0));
+        BufferedImage image = new BufferedImage(200, 160,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = image.createGraphics();
+        chart.draw(g2, new Rectangle2D.Double(0, 0, 200, 160));
+        g2.dispose();
+        return image;
+    }
+
+    /**
+     * Checks that two images have the same colour at every pixel more than
+     * two pixels from a change of colour in the expected image.  Nearer to
+     * the edges of blocks, the outlines drawn around blocks and rounding may
+     * differ.
+     *
+     * @param expected  the expected image.
+     * @param actual  the actual image.
+     */
+    private void assertSameColours(BufferedImage expected,
+            BufferedImage actual) {
+        int checked = 0;
+        for (int x = 2; x < expected.getWidth() - 2; x++) {
+            for (int y = 2; y < expected.getHeight() - 2; y++) {
+                int rgb = expected.getRGB(x, y);
+                boolean inside = true;
+                for (int dx = -2; dx <= 2; dx++) {
+                    for (int dy = -2; dy <= 2; dy++) {
+                        inside &= expected.getRGB(x + dx, y + dy) == rgb;
+                    }
+                }
+                if (inside) {
+                    checked++;
+                    assertEquals("(" + x + ", " + y + ")", rgb,
+                            actual.getRGB(x, y));
+                }
+            }
+        }
+        assertTrue(checked > expected.getWidth() * expected.getHeight() / 4);
+    }
+
+}
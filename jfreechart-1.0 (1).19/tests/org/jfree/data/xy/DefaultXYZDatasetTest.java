@@ -37,6 +37,7 @@
  * 12-Jul-2006 : Version 1 (DG);
  * 02-Nov-2006 : Added testAddSeries() method (DG);
  * 22-Apr-2008 : Added testPublicCloneable (DG);
+ * 19-Oct-2026 : Added tests for the bounds of the dataset (EDN);
  *
  */
 
@@ -45,8 +46,14 @@ package org.jfree.data.xy;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
 
 import org.jfree.chart.TestUtilities;
+import org.jfree.data.Range;
+import org.jfree.data.general.DatasetUtilities;
 
 import org.jfree.util.PublicCloneable;
 import org.junit.Test;
@@ -136,6 +143,7 @@ public class DefaultXYZDatasetTest {
         d1.addSeries("S1", data1);
         d2 = (DefaultXYZDataset) TestUtilities.serialised(d1);
         assertEquals(d1, d2);
+        assertEquals(new Range(4.0, 6.0), d2.getRangeBounds(false));
     }
 
     /**
@@ -209,6 +217,103 @@ public class DefaultXYZDatasetTest {
         assertTrue(pass);
     }
 
+    /**
+     * The bounds of the dataset are kept as series are added, replaced and
+     * removed, and are the same as those found by iterating over the data.
+     */
+    @Test
+    public void testBounds() throws CloneNotSupportedException {
+        DefaultXYZDataset d = new DefaultXYZDataset();
+        assertNull(d.getDomainBounds(false));
+        assertNull(d.getRangeBounds(false));
+        assertTrue(Double.isNaN(d.getDomainLowerBound(false)));
+        assertTrue(Double.isNaN(d.getRangeUpperBound(false)));
+
+        d.addSeries("S1", new double[][] {{1.0, 5.0, Double.NaN},
+                {4.0, Double.NaN, -2.0}, {7.0, Double.NaN, -1.0}});
+        d.addSeries("S2", new double[][] {{-3.0, 2.0}, {8.0, 1.0}, {3.0, 2.0}});
+        checkBounds(d);
+        assertEquals(new Range(-3.0, 5.0), d.getDomainBounds(true));
+        assertEquals(-2.0, d.getRangeLowerBound(true), EPSILON);
+        assertEquals(8.0, d.getRangeUpperBound(true), EPSILON);
+
+        // replace a series
+        d.addSeries("S2", new double[][] {{0.5, Double.NaN, 2.0, 3.0},
+                {Double.NaN, 9.0, -4.0, 0.0}, {Double.NaN, 5.0, 6.0, 0.0}});
+        checkBounds(d);
+
+        // a series with no values
+        d.addSeries("S3", new double[][] {{Double.NaN}, {Double.NaN},
+                {Double.NaN}});
+        checkBounds(d);
+
+        // remove series
+        d.removeSeries("S1");
+        checkBounds(d);
+        d.removeSeries("S2");
+        d.removeSeries("S3");
+        assertNull(d.getDomainBounds(false));
+        assertNull(d.getRangeBounds(false));
+
+        // the bounds of a clone
+        d.addSeries("S1", new double[][] {{1.0, 2.0}, {3.0, 4.0}, {3.0, 2.0}});
+        DefaultXYZDataset clone = (DefaultXYZDataset) d.clone();
+        d.removeSeries("S1");
+        assertEquals(new Range(3.0, 4.0), clone.getRangeBounds(false));
+    }
+
+    /**
+     * The bounds of the visible series, and of the y-values with x-values in
+     * a range, are the same as those found by iterating over the data.
+     */
+    @Test
+    public void testVisibleSeriesBounds() {
+        DefaultXYZDataset d = new DefaultXYZDataset();
+        d.addSeries("S1", new double[][] {{1.0, 5.0, 3.0}, {4.0, 7.0, -2.0},
+                {1.0, 2.0, 3.0}});
+        d.addSeries("S2", new double[][] {{-3.0, Double.NaN}, {8.0, 1.0},
+                {3.0, 2.0}});
+        d.addSeries("S3", new double[][] {{}, {}, {}});
+        List keys = Arrays.asList(new String[] {"S1", "S2", "S3"});
+        Range[] xRanges = new Range[] {
+            new Range(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY),
+            new Range(-3.0, 5.0), new Range(1.0, 5.0), new Range(0.0, 4.0),
+            new Range(6.0, 7.0)};
+        for (int i = 0; i < 3; i++) {
+            List visible = keys.subList(i, 3);
+            assertEquals(DatasetUtilities.iterateToFindDomainBounds(d,
+                    visible, false), d.getDomainBounds(visible, false));
+            for (int j = 0; j < xRanges.length; j++) {
+                assertEquals(DatasetUtilities.iterateToFindRangeBounds(d,
+                        visible, xRanges[j], false),
+                        d.getRangeBounds(visible, xRanges[j], false));
+            }
+        }
+        assertEquals(new Range(-2.0, 4.0), d.getRangeBounds(keys,
+                new Range(0.0, 4.0), false));
+    }
+
+    /**
+     * Checks that the bounds of a dataset are those found by iterating over
+     * the data.
+     *
+     * @param d  the dataset.
+     */
+    private void checkBounds(DefaultXYZDataset d) {
+        assertEquals(DatasetUtilities.iterateDomainBounds(d),
+                d.getDomainBounds(false));
+        assertEquals(DatasetUtilities.iterateRangeBounds(d),
+                d.getRangeBounds(false));
+        assertEquals(DatasetUtilities.iterateDomainBounds(d),
+                DatasetUtilities.findDomainBounds(d));
+        assertEquals(DatasetUtilities.iterateRangeBounds(d),
+                DatasetUtilities.findRangeBounds(d));
+        assertEquals(DatasetUtilities.iterateZBounds(d),
+                DatasetUtilities.findZBounds(d));
+        assertEquals(DatasetUtilities.iterateZBounds(d),
+                d.getZBounds(false));
+    }
+
     /**
      * Creates a sample dataset for testing.
      *
@@ -41,6 +41,8 @@
  * 01-May-2008 : Added testAddOrUpdate3() (DG);
  * 24-Nov-2008 : Added testBug1955483() (DG);
  * 06-Mar-2009 : Added tests for cached bounds values (DG);
+ * 19-Oct-2026 : Added tests for add(double[], double[]) and array
+ *               storage (EDN);
  *
  */
 
@@ -49,8 +51,13 @@ package org.jfree.data.xy;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import org.jfree.chart.TestUtilities;
 
+import org.jfree.data.general.SeriesChangeEvent;
+import org.jfree.data.general.SeriesChangeListener;
 import org.jfree.data.general.SeriesException;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
@@ -806,4 +813,178 @@ public class XYSeriesTest {
         c.removeSeries(1);
         s1.setKey("S2");
     }
+
+    /**
+     * Counts the change events received.
+     */
+    static class EventCounter implements SeriesChangeListener {
+
+        int count;
+
+        @Override
+        public void seriesChanged(SeriesChangeEvent event) {
+            this.count++;
+        }
+    }
+
+    /**
+     * Random values with many repeats, so that duplicate x-values are
+     * tested.
+     *
+     * @param random  the random number generator.
+     * @param n  the number of values.
+     *
+     * @return The values.
+     */
+    private double[] values(Random random, int n) {
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextInt(50) / 2.0;
+        }
+        return values;
+    }
+
+    /**
+     * Adding arrays leaves a series as adding the items one at a time does,
+     * and sends one event.
+     */
+    @Test
+    public void testAddArrays() {
+        Random random = new Random(1);
+        for (boolean autoSort : new boolean[] {true, false}) {
+            for (boolean arrayStorage : new boolean[] {false, true}) {
+                XYSeries s1 = new XYSeries("S", autoSort, true, arrayStorage);
+                XYSeries s2 = new XYSeries("S", autoSort, true, arrayStorage);
+                double[] x = values(random, 100);
+                double[] y = values(random, 100);
+                for (int i = 0; i < 30; i++) {
+                    s1.add(x[i], y[i]);
+                    s2.add(x[i], y[i]);
+                }
+                for (int i = 30; i < 100; i++) {
+                    s1.add(x[i], y[i]);
+                }
+                EventCounter counter = new EventCounter();
+                s2.addChangeListener(counter);
+                s2.add(Arrays.copyOfRange(x, 30, 100),
+                        Arrays.copyOfRange(y, 30, 100));
+                assertEquals(1, counter.count);
+                assertEquals(s1, s2);
+                assertEquals(s1.getMinX(), s2.getMinX(), 0.0);
+                assertEquals(s1.getMaxX(), s2.getMaxX(), 0.0);
+                assertEquals(s1.getMinY(), s2.getMinY(), 0.0);
+                assertEquals(s1.getMaxY(), s2.getMaxY(), 0.0);
+            }
+        }
+    }
+
+    /**
+     * Adding arrays to a series with a maximum item count keeps the items
+     * that adding them one at a time keeps.
+     */
+    @Test
+    public void testAddArraysMaximumItemCount() {
+        Random random = new Random(2);
+        for (boolean autoSort : new boolean[] {true, false}) {
+            XYSeries s1 = new XYSeries("S", autoSort);
+            XYSeries s2 = new XYSeries("S", autoSort);
+            s1.setMaximumItemCount(25);
+            s2.setMaximumItemCount(25);
+            double[] x = values(random, 60);
+            double[] y = values(random, 60);
+            for (int i = 0; i < 60; i++) {
+                s1.add(x[i], y[i]);
+            }
+            s2.add(x, y);
+            assertEquals(25, s2.getItemCount());
+            assertEquals(s1, s2);
+            assertEquals(s1.getMinX(), s2.getMinX(), 0.0);
+            assertEquals(s1.getMaxY(), s2.getMaxY(), 0.0);
+        }
+    }
+
+    /**
+     * Adding arrays with a duplicate x-value to a series that does not allow
+     * them adds nothing.
+     */
+    @Test
+    public void testAddArraysDuplicates() {
+        for (boolean autoSort : new boolean[] {true, false}) {
+            XYSeries s = new XYSeries("S", autoSort, false);
+            s.add(1.0, 1.0);
+            s.add(new double[] {3.0, 2.0}, new double[] {3.0, 2.0});
+            assertEquals(3, s.getItemCount());
+            try {
+                s.add(new double[] {5.0, 4.0, 2.0},
+                        new double[] {5.0, 4.0, 2.0});
+                fail("Expected a SeriesException.");
+            }
+            catch (SeriesException e) {
+                // expected
+            }
+            try {
+                s.add(new double[] {5.0, 5.0}, new double[] {5.0, 4.0});
+                fail("Expected a SeriesException.");
+            }
+            catch (SeriesException e) {
+                // expected
+            }
+            assertEquals(3, s.getItemCount());
+        }
+        try {
+            new XYSeries("S").add(new double[2], new double[3]);
+            fail("Expected an IllegalArgumentException.");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * A series with array storage behaves as one without.
+     */
+    @Test
+    public void testArrayStorage() throws CloneNotSupportedException {
+        XYSeries s1 = new XYSeries("S", true, false);
+        XYSeries s2 = new XYSeries("S", true, false, true);
+        assertFalse(s1.getArrayStorage());
+        assertTrue(s2.getArrayStorage());
+        for (XYSeries s : new XYSeries[] {s1, s2}) {
+            s.add(3.0, 30.0);
+            s.add(1.0, 10.0);
+            s.add(2.0, null);
+            s.add(4.0, 40.0);
+            s.updateByIndex(0, new Double(11.0));
+            s.addOrUpdate(4.0, 44.0);
+            s.remove(2);
+            s.add(5.0, 50.0);
+            s.delete(3, 3);
+        }
+        assertEquals(s1, s2);
+        assertEquals(3, s2.getItemCount());
+        assertEquals(11.0, s2.getYValue(0), 0.0);
+        assertEquals(null, s2.getY(1));
+        assertTrue(Double.isNaN(s2.getYValue(1)));
+        assertEquals(44.0, s2.getMaxY(), 0.0);
+        assertEquals(new Double(4.0), s2.getX(2));
+
+        XYSeries clone = (XYSeries) s2.clone();
+        assertEquals(s2, clone);
+        assertTrue(clone.getArrayStorage());
+        clone.updateByIndex(0, new Double(12.0));
+        assertEquals(11.0, s2.getYValue(0), 0.0);
+
+        XYSeries copy = s2.createCopy(0, 1);
+        assertTrue(copy.getArrayStorage());
+        assertEquals(2, copy.getItemCount());
+
+        XYSeries restored = (XYSeries) TestUtilities.serialised(s2);
+        assertEquals(s2, restored);
+        assertTrue(restored.getArrayStorage());
+
+        XYSeriesCollection c = new XYSeriesCollection(s2);
+        assertEquals(4.0, c.getXValue(0, 2), 0.0);
+        assertTrue(Double.isNaN(c.getYValue(0, 1)));
+    }
+
 }